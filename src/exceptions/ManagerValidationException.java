@@ -1,7 +1,25 @@
 package exceptions;
 
+import task.Task;
+
+import java.util.List;
+
 public class ManagerValidationException extends RuntimeException {
+    private final transient List<Task> conflicts;
+
     public ManagerValidationException(String message) {
+        this(message, List.of());
+    }
+
+    /**
+     * @param conflicts задачи, с которыми пересекается проверяемая
+     */
+    public ManagerValidationException(String message, List<Task> conflicts) {
         super(message);
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public List<Task> getConflicts() {
+        return conflicts;
     }
-}
\ No newline at end of file
+}
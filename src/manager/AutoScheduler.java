@@ -0,0 +1,134 @@
+package manager;
+
+import task.Task;
+import task.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Раскладывает задачи по свободным промежуткам. Задачи берутся по сроку (сначала ближайший,
+ * без срока — последними), при равном сроке — по убыванию приоритета, затем по id; каждая
+ * ставится в начало самого раннего промежутка, куда она помещается.
+ *
+ * <p>Задача всегда занимает начало промежутка, поэтому промежутки не делятся, а только
+ * укорачиваются слева. Длины промежутков лежат в дереве отрезков с максимумом, и самый ранний
+ * подходящий промежуток находится спуском по дереву за O(log G). Вместе с сортировкой
+ * планирование занимает O(N log N).
+ */
+class AutoScheduler {
+    // Промежутки короче секунды задаче не достаются: длина промежутка считается в целых секундах
+    static final Duration MIN_GAP = Duration.ofSeconds(1);
+
+    private final LocalDateTime[] starts;
+    private final LocalDateTime[] ends;
+    private final int size;
+    // Максимум свободных секунд в поддереве; листья с индекса size
+    private final long[] tree;
+
+    private AutoScheduler(List<TimeSlot> gaps) {
+        int count = gaps.size();
+        starts = new LocalDateTime[count];
+        ends = new LocalDateTime[count];
+        int capacity = 1;
+        while (capacity < count) {
+            capacity <<= 1;
+        }
+        size = capacity;
+        tree = new long[2 * capacity];
+        for (int i = 0; i < count; i++) {
+            starts[i] = gaps.get(i).getStart();
+            ends[i] = gaps.get(i).getEnd();
+            tree[capacity + i] = gaps.get(i).getDuration().getSeconds();
+        }
+        for (int node = capacity - 1; node > 0; node--) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @param candidates задачи и подзадачи без времени начала
+     * @param gaps       свободные промежутки окна в порядке времени
+     */
+    static SchedulePlan plan(List<? extends Task> candidates, List<TimeSlot> gaps, ScheduleRequest request) {
+        List<Job> jobs = new ArrayList<>(candidates.size());
+        List<Integer> unscheduled = new ArrayList<>();
+        for (Task task : candidates) {
+            Duration duration = durationOf(task, request);
+            if (duration == null) {
+                unscheduled.add(task.getId());
+            } else {
+                jobs.add(new Job(task, duration, request));
+            }
+        }
+        // Ключи сортировки посчитаны заранее: сравнения не обращаются к словарям запроса
+        jobs.sort(Comparator.comparing((Job job) -> job.deadline, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(job -> -job.priority)
+                .thenComparingInt(job -> job.task.getId()));
+
+        AutoScheduler scheduler = new AutoScheduler(gaps);
+        List<SchedulePlan.Assignment> assignments = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            int gap = scheduler.firstFitting(seconds(job.duration));
+            if (gap < 0) {
+                unscheduled.add(job.task.getId());
+                continue;
+            }
+            LocalDateTime start = scheduler.starts[gap];
+            LocalDateTime end = start.plus(job.duration);
+            scheduler.shrink(gap, end);
+            assignments.add(new SchedulePlan.Assignment(job.task.getId(), job.task.getType(), start, end,
+                    job.deadline != null && end.isAfter(job.deadline)));
+        }
+        assignments.sort(Comparator.comparing(SchedulePlan.Assignment::getStart));
+        unscheduled.sort(null);
+        return new SchedulePlan(assignments, unscheduled, !request.isDryRun());
+    }
+
+    static Duration durationOf(Task task, ScheduleRequest request) {
+        Duration duration = task.getDuration() != null ? task.getDuration() : request.getDefaultDuration();
+        return duration == null || duration.isNegative() ? null : duration;
+    }
+
+    // Длительность округляется вверх, а длина промежутка — вниз: задача никогда не выходит за промежуток
+    private static long seconds(Duration duration) {
+        return duration.getNano() == 0 ? duration.getSeconds() : duration.getSeconds() + 1;
+    }
+
+    private int firstFitting(long seconds) {
+        if (starts.length == 0 || tree[1] < seconds) {
+            return -1;
+        }
+        int node = 1;
+        while (node < size) {
+            node = tree[2 * node] >= seconds ? 2 * node : 2 * node + 1;
+        }
+        return node - size;
+    }
+
+    private void shrink(int gap, LocalDateTime newStart) {
+        starts[gap] = newStart;
+        int node = size + gap;
+        tree[node] = Duration.between(newStart, ends[gap]).getSeconds();
+        for (node >>= 1; node > 0; node >>= 1) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private static class Job {
+        final Task task;
+        final Duration duration;
+        final LocalDateTime deadline;
+        final int priority;
+
+        Job(Task task, Duration duration, ScheduleRequest request) {
+            this.task = task;
+            this.duration = duration;
+            this.deadline = request.getDeadline(task.getId());
+            this.priority = request.getPriority(task.getId());
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package manager;
+
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная обёртка над любым {@link TaskManager}. Мутации выполняются под блокировкой
+ * записи целиком — вместе с генерацией id и пересчётом эпика, — поэтому другие потоки не видят
+ * подзадачу без обновлённого эпика. Чтения идут под блокировкой чтения и выполняются параллельно.
+ *
+ * <p>Просмотр по id пишет в историю, поэтому просмотры дополнительно упорядочены между собой
+ * отдельной блокировкой, но не мешают остальным чтениям.
+ *
+ * <p>Методы чтения возвращают копии задач: вызывающий поток может читать их без блокировок,
+ * пока менеджер продолжает меняться. Переданные в методы записи объекты переходят во владение
+ * менеджера.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private final TaskManager delegate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private final Object historyLock = new Object();
+    private final Object pathLock = new Object();
+
+    public ConcurrentTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    // Методы для задач
+    @Override
+    public List<Task> getAllTasks() {
+        return read(() -> copyAll(delegate.getAllTasks()));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(delegate::deleteAllTasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return view(() -> new Task(delegate.getTaskById(id)));
+    }
+
+    @Override
+    public void createTask(Task task) {
+        write(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public void createTasks(List<Task> tasks) {
+        write(() -> delegate.createTasks(tasks));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        write(() -> delegate.deleteTask(id));
+    }
+
+    // Методы для эпиков
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(() -> copyAll(delegate.getAllEpics()));
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(delegate::deleteAllEpics);
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return view(() -> new Epic(delegate.getEpicById(id)));
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        write(() -> delegate.createEpic(epic));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        write(() -> delegate.deleteEpic(id));
+    }
+
+    // Методы для подзадач
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(() -> copyAll(delegate.getAllSubtasks()));
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(delegate::deleteAllSubtasks);
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return view(() -> new Subtask(delegate.getSubtaskById(id)));
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        write(() -> delegate.createSubtask(subtask));
+    }
+
+    @Override
+    public void createSubtasks(List<Subtask> subtasks) {
+        write(() -> delegate.createSubtasks(subtasks));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        write(() -> delegate.deleteSubtask(id));
+    }
+
+    @Override
+    public void updateMany(List<? extends Task> updates) {
+        write(() -> delegate.updateMany(updates));
+    }
+
+    // Транзакция целиком выполняется под блокировкой записи: читатели не видят её промежуточных состояний
+    @Override
+    public void inTransaction(Consumer<TaskManager> transaction) {
+        write(() -> delegate.inTransaction(tx -> transaction.accept(this)));
+    }
+
+    // Дополнительные методы
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        return read(() -> copyAll(delegate.getSubtasksByEpicId(epicId)));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(() -> {
+            synchronized (historyLock) {
+                return delegate.getHistory();
+            }
+        });
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(() -> copyAll(delegate.getPrioritizedTasks()));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> copyAll(delegate.getPrioritizedTasks(from, to, limit)));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> delegate.findFreeSlots(duration, from, to, limit));
+    }
+
+    // Пробный запуск только читает и идёт параллельно с другими чтениями
+    @Override
+    public SchedulePlan schedule(ScheduleRequest request) {
+        if (request.isDryRun()) {
+            return read(() -> delegate.schedule(request));
+        }
+        writeLock.lock();
+        try {
+            return delegate.schedule(request);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        write(() -> delegate.addDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        write(() -> delegate.removeDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        return read(() -> delegate.getDependencies(taskId));
+    }
+
+    // Расчёт пути кешируется в delegate, поэтому запросы путей упорядочены между собой, как просмотры
+    @Override
+    public CriticalPath getCriticalPath(int epicId) {
+        return read(() -> {
+            synchronized (pathLock) {
+                return delegate.getCriticalPath(epicId);
+            }
+        });
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return read(() -> copyAll(delegate.getTasksPage(afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return read(() -> copyAll(delegate.getEpicsPage(afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return read(() -> copyAll(delegate.getSubtasksPage(afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return read(() -> copyAll(delegate.getTasksByStatus(status)));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return read(() -> copyAll(delegate.getEpicsByStatus(status)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return read(() -> copyAll(delegate.getSubtasksByStatus(status)));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return read(() -> copyAll(delegate.search(query, limit)));
+    }
+
+    private <R> R read(Supplier<R> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <R> R view(Supplier<R> action) {
+        return read(() -> {
+            synchronized (historyLock) {
+                return action.get();
+            }
+        });
+    }
+
+    private void write(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> List<T> copyAll(List<T> tasks) {
+        List<T> copies = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            copies.add((T) copyOf(task));
+        }
+        return copies;
+    }
+
+    private static Task copyOf(Task task) {
+        switch (task.getType()) {
+            case EPIC:
+                return new Epic((Epic) task);
+            case SUBTASK:
+                return new Subtask((Subtask) task);
+            default:
+                return new Task(task);
+        }
+    }
+}
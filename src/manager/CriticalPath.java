@@ -0,0 +1,49 @@
+package manager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Расчёт эпика по зависимостям подзадач: топологический порядок, раннее начало каждой подзадачи
+ * от начала эпика и самая длинная цепочка зависимостей, которая определяет длительность эпика.
+ * Подзадачи без длительности считаются мгновенными; зависимости от задач вне эпика не учитываются.
+ */
+public final class CriticalPath {
+    private final List<Integer> order;
+    private final Map<Integer, Duration> earliestStarts;
+    private final List<Integer> path;
+    private final Duration length;
+
+    CriticalPath(List<Integer> order, Map<Integer, Duration> earliestStarts, List<Integer> path, Duration length) {
+        this.order = order;
+        this.earliestStarts = earliestStarts;
+        this.path = path;
+        this.length = length;
+    }
+
+    /**
+     * @return id подзадач эпика так, что каждая идёт после всех, от которых зависит
+     */
+    public List<Integer> getOrder() {
+        return order;
+    }
+
+    /**
+     * @return id подзадачи -> самое раннее начало от начала эпика, в топологическом порядке
+     */
+    public Map<Integer, Duration> getEarliestStarts() {
+        return earliestStarts;
+    }
+
+    /**
+     * @return id подзадач критического пути от первой к последней; пустой список для эпика без подзадач
+     */
+    public List<Integer> getPath() {
+        return path;
+    }
+
+    public Duration getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,323 @@
+package manager;
+
+import task.Subtask;
+import util.IntObjectMap;
+import util.IntOrderedSet;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Зависимости между задачами: ребро {@code before -> after} значит, что after не может начаться
+ * раньше окончания before. Граф всегда ацикличен — ребро, которое замкнуло бы цикл, не добавляется.
+ *
+ * <p>Для эпиков хранятся рассчитанные критические пути по подзадачам. Когда меняется длительность
+ * одной подзадачи, раннее начало пересчитывается только у зависящих от неё подзадач, в
+ * топологическом порядке и до тех пор, пока значения меняются. Новые и удалённые рёбра, а также
+ * изменения состава эпика сбрасывают его расчёт, и он строится заново при следующем запросе.
+ * Не потокобезопасно.
+ */
+class DependencyGraph {
+    private static final IntOrderedSet NONE = new IntOrderedSet();
+
+    // id -> от кого зависит и кто зависит от него
+    private final IntObjectMap<IntOrderedSet> predecessors = new IntObjectMap<>();
+    private final IntObjectMap<IntOrderedSet> successors = new IntObjectMap<>();
+    private final IntObjectMap<EpicPaths> epicPaths = new IntObjectMap<>();
+
+    boolean isEmpty() {
+        return predecessors.isEmpty();
+    }
+
+    boolean hasEdges(int id) {
+        return predecessors.containsKey(id) || successors.containsKey(id);
+    }
+
+    boolean contains(int before, int after) {
+        return predecessorsOf(after).contains(before);
+    }
+
+    IntOrderedSet predecessorsOf(int id) {
+        IntOrderedSet ids = predecessors.get(id);
+        return ids == null ? NONE : ids;
+    }
+
+    IntOrderedSet successorsOf(int id) {
+        IntOrderedSet ids = successors.get(id);
+        return ids == null ? NONE : ids;
+    }
+
+    /**
+     * @throws IllegalArgumentException если ребро замыкает цикл; цикл перечисляется в сообщении
+     */
+    void add(int before, int after) {
+        if (before == after) {
+            throw new IllegalArgumentException("Задача с id=" + after + " не может зависеть от самой себя");
+        }
+        List<Integer> cycle = findPath(after, before);
+        if (cycle != null) {
+            cycle.add(after);
+            throw new IllegalArgumentException("Зависимость " + before + " -> " + after + " образует цикл: " + cycle);
+        }
+        link(predecessors, after, before);
+        link(successors, before, after);
+    }
+
+    void remove(int before, int after) {
+        unlink(predecessors, after, before);
+        unlink(successors, before, after);
+    }
+
+    void removeNode(int id) {
+        for (int before : predecessorsOf(id).toArray()) {
+            unlink(successors, before, id);
+        }
+        for (int after : successorsOf(id).toArray()) {
+            unlink(predecessors, after, id);
+        }
+        predecessors.remove(id);
+        successors.remove(id);
+    }
+
+    /**
+     * Копия рёбер для {@link #restore(Map)}; рассчитанные пути не копируются.
+     */
+    Map<Integer, IntOrderedSet> save() {
+        Map<Integer, IntOrderedSet> saved = new IntObjectMap<>(predecessors.size());
+        for (Map.Entry<Integer, IntOrderedSet> entry : predecessors.entrySet()) {
+            saved.put(entry.getKey(), new IntOrderedSet(entry.getValue()));
+        }
+        return saved;
+    }
+
+    void restore(Map<Integer, IntOrderedSet> saved) {
+        predecessors.clear();
+        successors.clear();
+        epicPaths.clear();
+        for (Map.Entry<Integer, IntOrderedSet> entry : saved.entrySet()) {
+            int after = entry.getKey();
+            for (int before : entry.getValue().toArray()) {
+                link(predecessors, after, before);
+                link(successors, before, after);
+            }
+        }
+    }
+
+    void invalidate(int epicId) {
+        epicPaths.remove(epicId);
+    }
+
+    void invalidateAll() {
+        epicPaths.clear();
+    }
+
+    /**
+     * Обновляет рассчитанный путь эпика после изменения длительности подзадачи; если путь ещё
+     * не рассчитан, ничего не делает.
+     */
+    void durationChanged(Subtask subtask) {
+        EpicPaths paths = epicPaths.get(subtask.getEpicId());
+        if (paths != null) {
+            paths.updateDuration(subtask.getId(), seconds(subtask.getDuration()));
+        }
+    }
+
+    /**
+     * @param subtasks все подзадачи эпика
+     */
+    CriticalPath criticalPath(int epicId, List<Subtask> subtasks) {
+        EpicPaths paths = epicPaths.get(epicId);
+        if (paths == null) {
+            paths = new EpicPaths(subtasks);
+            epicPaths.put(epicId, paths);
+        }
+        return paths.toCriticalPath();
+    }
+
+    // Путь from -> ... -> to по рёбрам графа или null; обход в глубину без рекурсии
+    private List<Integer> findPath(int from, int to) {
+        Map<Integer, Integer> parents = new HashMap<>();
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        parents.put(from, from);
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (current == to) {
+                List<Integer> path = new ArrayList<>();
+                for (int id = to; id != from; id = parents.get(id)) {
+                    path.add(id);
+                }
+                path.add(from);
+                Collections.reverse(path);
+                return path;
+            }
+            for (int next : successorsOf(current).toArray()) {
+                if (!parents.containsKey(next)) {
+                    parents.put(next, current);
+                    stack.push(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void link(IntObjectMap<IntOrderedSet> edges, int from, int to) {
+        IntOrderedSet ids = edges.get(from);
+        if (ids == null) {
+            ids = new IntOrderedSet();
+            edges.put(from, ids);
+        }
+        ids.add(to);
+    }
+
+    private static void unlink(IntObjectMap<IntOrderedSet> edges, int from, int to) {
+        IntOrderedSet ids = edges.get(from);
+        if (ids != null && ids.remove(to) && ids.isEmpty()) {
+            edges.remove(from);
+        }
+    }
+
+    private static long seconds(Duration duration) {
+        return duration == null ? 0 : duration.getSeconds();
+    }
+
+    /**
+     * Расчёт одного эпика. Подзадачи пронумерованы позициями в топологическом порядке, поэтому
+     * все зависимости подзадачи стоят левее неё, а пересчёт идёт слева направо.
+     */
+    private class EpicPaths {
+        final int[] order;
+        final Map<Integer, Integer> positions;
+        final long[] durations;
+        final long[] starts;
+        // Позиция зависимости, которая определяет раннее начало, или -1
+        final int[] critical;
+
+        EpicPaths(List<Subtask> subtasks) {
+            int count = subtasks.size();
+            positions = new HashMap<>(count * 2);
+            IntObjectMap<Subtask> members = new IntObjectMap<>(count);
+            for (Subtask subtask : subtasks) {
+                members.put(subtask.getId(), subtask);
+            }
+
+            // Алгоритм Кана по рёбрам внутри эпика
+            Map<Integer, Integer> pending = new HashMap<>(count * 2);
+            ArrayDeque<Integer> ready = new ArrayDeque<>();
+            for (Subtask subtask : subtasks) {
+                int inside = countMembers(predecessorsOf(subtask.getId()), members);
+                pending.put(subtask.getId(), inside);
+                if (inside == 0) {
+                    ready.add(subtask.getId());
+                }
+            }
+            order = new int[count];
+            int size = 0;
+            while (!ready.isEmpty()) {
+                int id = ready.poll();
+                positions.put(id, size);
+                order[size++] = id;
+                for (int next : successorsOf(id).toArray()) {
+                    if (members.containsKey(next)) {
+                        int left = pending.get(next) - 1;
+                        pending.put(next, left);
+                        if (left == 0) {
+                            ready.add(next);
+                        }
+                    }
+                }
+            }
+
+            durations = new long[count];
+            starts = new long[count];
+            critical = new int[count];
+            for (int position = 0; position < count; position++) {
+                durations[position] = seconds(members.get(order[position]).getDuration());
+                recompute(position);
+            }
+        }
+
+        void updateDuration(int id, long duration) {
+            Integer position = positions.get(id);
+            if (position == null || durations[position] == duration) {
+                return;
+            }
+            durations[position] = duration;
+            PriorityQueue<Integer> queue = new PriorityQueue<>();
+            BitSet queued = new BitSet(order.length);
+            enqueueSuccessors(position, queue, queued);
+            while (!queue.isEmpty()) {
+                int next = queue.poll();
+                queued.clear(next);
+                if (recompute(next)) {
+                    enqueueSuccessors(next, queue, queued);
+                }
+            }
+        }
+
+        // Раннее начало — наибольший конец среди зависимостей; true, если конец подзадачи сдвинулся
+        private boolean recompute(int position) {
+            long start = 0;
+            int best = -1;
+            for (int before : predecessorsOf(order[position]).toArray()) {
+                Integer index = positions.get(before);
+                if (index != null && (best < 0 || starts[index] + durations[index] > start)) {
+                    best = index;
+                    start = starts[index] + durations[index];
+                }
+            }
+            critical[position] = best;
+            boolean moved = starts[position] != start;
+            starts[position] = start;
+            return moved;
+        }
+
+        private void enqueueSuccessors(int position, PriorityQueue<Integer> queue, BitSet queued) {
+            for (int next : successorsOf(order[position]).toArray()) {
+                Integer index = positions.get(next);
+                if (index != null && !queued.get(index)) {
+                    queued.set(index);
+                    queue.add(index);
+                }
+            }
+        }
+
+        CriticalPath toCriticalPath() {
+            List<Integer> ids = new ArrayList<>(order.length);
+            Map<Integer, Duration> earliestStarts = new LinkedHashMap<>();
+            int last = -1;
+            for (int position = 0; position < order.length; position++) {
+                ids.add(order[position]);
+                earliestStarts.put(order[position], Duration.ofSeconds(starts[position]));
+                if (last < 0 || starts[position] + durations[position] > starts[last] + durations[last]) {
+                    last = position;
+                }
+            }
+            List<Integer> path = new ArrayList<>();
+            for (int position = last; position >= 0; position = critical[position]) {
+                path.add(order[position]);
+            }
+            Collections.reverse(path);
+            Duration length = last < 0 ? Duration.ZERO : Duration.ofSeconds(starts[last] + durations[last]);
+            return new CriticalPath(ids, earliestStarts, path, length);
+        }
+
+        private int countMembers(IntOrderedSet ids, IntObjectMap<Subtask> members) {
+            int count = 0;
+            for (int id : ids.toArray()) {
+                if (members.containsKey(id)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
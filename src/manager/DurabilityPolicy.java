@@ -0,0 +1,47 @@
+package manager;
+
+/**
+ * Политика записи журналов {@link FileBackedTaskManager}: компромисс между числом обращений
+ * к диску и окном возможной потери данных при сбое.
+ */
+public enum DurabilityPolicy {
+    /**
+     * Каждая запись сразу отдаётся ОС без fsync: переживает падение процесса, но не ОС.
+     */
+    WRITE_THROUGH(0, 1),
+    /**
+     * Каждая запись отдаётся ОС и сбрасывается на диск (fsync) до возврата из метода.
+     */
+    SYNC(0, 1),
+    /**
+     * Записи копятся в памяти и пишутся одной пачкой с одним fsync раз в 5 мс
+     * или по накоплении 1000 записей.
+     */
+    GROUP_COMMIT(5, 1_000),
+    /**
+     * Записи пишутся в фоне раз в секунду одной пачкой с одним fsync.
+     */
+    PERIODIC(1_000, 100_000);
+
+    private final long flushIntervalMillis;
+    private final int maxPendingRecords;
+
+    DurabilityPolicy(long flushIntervalMillis, int maxPendingRecords) {
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxPendingRecords = maxPendingRecords;
+    }
+
+    // Максимальная задержка записи на диск для фоновых политик
+    long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    // Сколько записей может ждать фоновой записи, прежде чем она будет запущена досрочно
+    int getMaxPendingRecords() {
+        return maxPendingRecords;
+    }
+
+    boolean isBackground() {
+        return flushIntervalMillis > 0;
+    }
+}
@@ -1,279 +1,466 @@
 package manager;
 
-import exceptions.ManagerSaveException;
 import task.*;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.io.Closeable;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-
-public class FileBackedTaskManager extends InMemoryTaskManager {
-    private final File file;
+import java.util.function.Consumer;
+
+/**
+ * Менеджер задач, сохраняющий изменения в {@link TaskStorage}. Мутации синхронизированы на самом
+ * менеджере; под этой же блокировкой хранилище получает изменения и снимает снимки состояния.
+ */
+public class FileBackedTaskManager extends InMemoryTaskManager implements Closeable {
+    private final TaskStorage storage;
+    private final StorageState state = new ManagerState();
     private boolean isLoading = false;
+    // Просмотры при загрузке применяются после пересчёта эпиков, чтобы в историю попали актуальные копии
+    private final List<Integer> loadedViews = new ArrayList<>();
+    // Изменения текущей транзакции, ещё не переданные хранилищу; null вне транзакции
+    private List<StorageMutation> pendingMutations;
 
     public FileBackedTaskManager(File file) {
-        this.file = file;
+        this(file, false);
+    }
+
+    public FileBackedTaskManager(File file, boolean journaled) {
+        this(file, journaled, DurabilityPolicy.WRITE_THROUGH);
+    }
+
+    /**
+     * @param journaled если {@code true}, каждая мутация дописывается в журнал {@code <file>.log}
+     *                  вместо полной перезаписи файла хранилища
+     * @param policy    когда записи журналов попадают на диск; при фоновых политиках и полной
+     *                  перезаписи файл пишется отдельным потоком из снимка состояния
+     */
+    public FileBackedTaskManager(File file, boolean journaled, DurabilityPolicy policy) {
+        this(file, journaled, policy, StorageFormat.CSV);
+    }
+
+    /**
+     * @param format формат, в котором пишутся полные снимки; журналы всегда остаются текстовыми
+     */
+    public FileBackedTaskManager(File file, boolean journaled, DurabilityPolicy policy, StorageFormat format) {
+        this(new FileTaskStorage(file, journaled, policy, format));
+    }
+
+    /**
+     * Менеджер с пустым состоянием, сохраняющий изменения в {@code storage}. Уже сохранённое
+     * в хранилище состояние не читается — для этого есть {@link #load(TaskStorage)}.
+     */
+    public FileBackedTaskManager(TaskStorage storage) {
+        this.storage = storage;
     }
 
     @Override
-    public Task getTaskById(int id) {
+    public synchronized Task getTaskById(int id) {
         Task task = super.getTaskById(id);
-        save();
+        persist(StorageMutation.view(id));
         return task;
     }
 
     @Override
-    public Epic getEpicById(int id) {
+    public synchronized Epic getEpicById(int id) {
         Epic epic = super.getEpicById(id);
-        save();
+        persist(StorageMutation.view(id));
         return epic;
     }
 
     @Override
-    public Subtask getSubtaskById(int id) {
+    public synchronized Subtask getSubtaskById(int id) {
         Subtask subtask = super.getSubtaskById(id);
-        save();
+        persist(StorageMutation.view(id));
         return subtask;
     }
 
     @Override
-    public void createTask(Task task) {
+    public synchronized void deleteAllTasks() {
+        List<Integer> removedIds = new ArrayList<>(tasks.keySet());
+        super.deleteAllTasks();
+        persist(StorageMutation.clear(TaskType.TASK, removedIds));
+    }
+
+    @Override
+    public synchronized void createTask(Task task) {
         super.createTask(task);
-        save();
+        persist(StorageMutation.put(task));
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void createTasks(List<Task> newTasks) {
+        super.createTasks(newTasks);
+        persistAll(newTasks);
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        if (tasks.get(task.getId()) == task) {
+            persist(StorageMutation.put(task));
+        }
     }
 
     @Override
-    public void deleteTask(int id) {
+    public synchronized void deleteTask(int id) {
+        boolean exists = tasks.containsKey(id);
         super.deleteTask(id);
-        save();
+        if (exists) {
+            persist(StorageMutation.remove(id, List.of(id)));
+        }
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        List<Integer> removedIds = new ArrayList<>(epics.keySet());
+        removedIds.addAll(subtasks.keySet());
+        super.deleteAllEpics();
+        persist(StorageMutation.clear(TaskType.EPIC, removedIds));
     }
 
     @Override
-    public void createEpic(Epic epic) {
+    public synchronized void createEpic(Epic epic) {
         super.createEpic(epic);
-        save();
+        persist(StorageMutation.put(epic));
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        Epic existingEpic = epics.get(epic.getId());
+        if (existingEpic != null) {
+            persist(StorageMutation.put(existingEpic));
+        }
     }
 
     @Override
-    public void deleteEpic(int id) {
+    public synchronized void deleteEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            super.deleteEpic(id);
+            return;
+        }
+        List<Integer> removedIds = new ArrayList<>(epic.getSubtaskIds());
+        removedIds.add(id);
         super.deleteEpic(id);
-        save();
+        persist(StorageMutation.remove(id, removedIds));
     }
 
     @Override
-    public void createSubtask(Subtask subtask) {
+    public synchronized void deleteAllSubtasks() {
+        List<Integer> removedIds = new ArrayList<>(subtasks.keySet());
+        super.deleteAllSubtasks();
+        persist(StorageMutation.clear(TaskType.SUBTASK, removedIds));
+    }
+
+    @Override
+    public synchronized void createSubtask(Subtask subtask) {
         super.createSubtask(subtask);
-        save();
+        persist(StorageMutation.put(subtask));
+    }
+
+    @Override
+    public synchronized void createSubtasks(List<Subtask> newSubtasks) {
+        super.createSubtasks(newSubtasks);
+        persistAll(newSubtasks);
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        if (subtasks.get(subtask.getId()) == subtask) {
+            persist(StorageMutation.put(subtask));
+        }
     }
 
     @Override
-    public void deleteSubtask(int id) {
+    public synchronized void deleteSubtask(int id) {
+        boolean exists = subtasks.containsKey(id);
         super.deleteSubtask(id);
-        save();
+        if (exists) {
+            persist(StorageMutation.remove(id, List.of(id)));
+        }
+    }
+
+    @Override
+    public synchronized void updateMany(List<? extends Task> updates) {
+        super.updateMany(updates);
+        List<Task> stored = new ArrayList<>(updates.size());
+        for (Task update : updates) {
+            // У эпика меняются поля хранимого объекта, а не сам объект
+            stored.add(update.getType() == TaskType.EPIC ? epics.get(update.getId()) : update);
+        }
+        persistAll(stored);
+    }
+
+    // Применённый план сохраняется через updateMany
+    @Override
+    public synchronized SchedulePlan schedule(ScheduleRequest request) {
+        return super.schedule(request);
+    }
+
+    // Зависимости не сохраняются в хранилище: методы только упорядочены с остальными
+    @Override
+    public synchronized void addDependency(int taskId, int dependsOnId) {
+        super.addDependency(taskId, dependsOnId);
+    }
+
+    @Override
+    public synchronized void removeDependency(int taskId, int dependsOnId) {
+        super.removeDependency(taskId, dependsOnId);
+    }
+
+    @Override
+    public synchronized List<Integer> getDependencies(int taskId) {
+        return super.getDependencies(taskId);
     }
 
-    protected void save() {
-        if (isLoading) {
+    @Override
+    public synchronized CriticalPath getCriticalPath(int epicId) {
+        return super.getCriticalPath(epicId);
+    }
+
+    /**
+     * Изменения транзакции копятся и сохраняются одной операцией хранилища после её успешного
+     * завершения; при откате они отбрасываются, и в хранилище ничего не попадает.
+     */
+    @Override
+    public synchronized void inTransaction(Consumer<TaskManager> transaction) {
+        if (pendingMutations != null) {
+            super.inTransaction(transaction);
             return;
         }
-        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
-            writer.write("id,type,name,status,description,epic,duration,startTime\n");
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task) + "\n");
-            }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic) + "\n");
-            }
-            for (Subtask subtask : getAllSubtasks()) {
-                writer.write(toString(subtask) + "\n");
+        pendingMutations = new ArrayList<>();
+        try {
+            super.inTransaction(transaction);
+            if (!pendingMutations.isEmpty()) {
+                storage.applyAll(pendingMutations, state);
             }
-            writer.write("\n");
-            writer.write(historyToString(historyManager));
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка сохранения файла", e);
+        } finally {
+            pendingMutations = null;
         }
     }
 
-    private String toString(Task task) {
-        TaskType type = task.getType();
-        String epicId = type == TaskType.SUBTASK ? Integer.toString(((Subtask) task).getEpicId()) : "";
-        String duration = task.getDuration() != null ? Long.toString(task.getDuration().toMinutes()) : "";
-        String startTime = task.getStartTime() != null ? task.getStartTime().toString() : "";
+    private void persist(StorageMutation mutation) {
+        if (pendingMutations != null) {
+            pendingMutations.add(mutation);
+        } else {
+            storage.apply(mutation, state);
+        }
+    }
 
-        return String.format("%d,%s,%s,%s,%s,%s,%s,%s",
-                task.getId(),
-                type,
-                task.getTitle(),
-                task.getStatus(),
-                task.getDescription(),
-                epicId,
-                duration,
-                startTime);
+    // Пакет сохраняется одной операцией хранилища
+    private void persistAll(List<? extends Task> changed) {
+        List<StorageMutation> mutations = new ArrayList<>(changed.size());
+        for (Task task : changed) {
+            mutations.add(StorageMutation.put(task));
+        }
+        if (pendingMutations != null) {
+            pendingMutations.addAll(mutations);
+        } else {
+            storage.applyAll(mutations, state);
+        }
     }
 
-    private static String historyToString(HistoryManager manager) {
-        List<String> ids = new ArrayList<>();
-        for (Task task : manager.getHistory()) {
-            ids.add(Integer.toString(task.getId()));
+    /**
+     * Задаёт порог, после которого журнал компактизируется в фоне: текущее состояние
+     * записывается полным снимком, а журнал обрезается.
+     *
+     * @throws UnsupportedOperationException если хранилище не файловое
+     */
+    public void setCompactionThreshold(int maxRecords, long maxSize) {
+        if (!(storage instanceof FileTaskStorage)) {
+            throw new UnsupportedOperationException("Компактизация поддерживается только файловым хранилищем");
         }
-        return String.join(",", ids);
+        ((FileTaskStorage) storage).setCompactionThreshold(maxRecords, maxSize);
+    }
+
+    /**
+     * Синхронно записывает полный снимок и обрезает журнал.
+     */
+    public synchronized void checkpoint() {
+        storage.flush(state);
+    }
+
+    /**
+     * Дожидается фоновых записей и закрывает хранилище.
+     */
+    @Override
+    public void close() {
+        storage.close();
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        manager.isLoading = true;
-
-        // Объявляем все переменные до циклов
-        String line;
-        boolean isHistorySection = false;
-        int maxId = 0;
-        Task task = null;
-        List<Integer> historyIds = new ArrayList<>();
-        String[] fields = null;
-        int id = 0;
-        TaskType type = null;
-        Integer idForHistory = null;
-        Subtask subtask = null;
-        Epic epic = null;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            while ((line = reader.readLine()) != null) {
-                if (line.isEmpty()) {
-                    isHistorySection = true;
-                    continue;
-                }
-
-                if (isHistorySection) {
-                    historyIds = historyFromString(line);
-                    for (int i = 0; i < historyIds.size(); i++) {
-                        idForHistory = historyIds.get(i);
-                        if (manager.tasks.containsKey(idForHistory)) {
-                            manager.historyManager.add(manager.tasks.get(idForHistory));
-                        } else if (manager.epics.containsKey(idForHistory)) {
-                            manager.historyManager.add(manager.epics.get(idForHistory));
-                        } else if (manager.subtasks.containsKey(idForHistory)) {
-                            manager.historyManager.add(manager.subtasks.get(idForHistory));
-                        }
-                    }
-                } else if (!line.startsWith("id")) {
-                    fields = line.split(",");
-                    id = Integer.parseInt(fields[0]);
-                    type = TaskType.valueOf(fields[1]);
-                    task = fromString(line);
-
-                    if (id > maxId) {
-                        maxId = id;
-                    }
+        return loadFromFile(file, false);
+    }
 
-                    switch (type) {
-                        case EPIC:
-                            manager.epics.put(id, (Epic) task);
-                            break;
-                        case SUBTASK:
-                            manager.subtasks.put(id, (Subtask) task);
-                            break;
-                        default:
-                            manager.tasks.put(id, task);
-                    }
-                }
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled) {
+        return loadFromFile(file, journaled, DurabilityPolicy.WRITE_THROUGH);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled, DurabilityPolicy policy) {
+        return loadFromFile(file, journaled, policy, StorageFormat.CSV);
+    }
+
+    /**
+     * Загружает хранилище в любом из форматов; дальнейшие снимки пишутся в формате {@code format}.
+     */
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled, DurabilityPolicy policy,
+                                                     StorageFormat format) {
+        return load(new FileTaskStorage(file, journaled, policy, format));
+    }
+
+    /**
+     * Восстанавливает менеджер из хранилища; дальнейшие изменения сохраняются в него же.
+     */
+    public static FileBackedTaskManager load(TaskStorage storage) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(storage);
+        synchronized (manager) {
+            manager.isLoading = true;
+            boolean flush = storage.load(manager.state);
+
+            // Связи, статусы и время эпиков, затем индексы — массово, а не по одной задаче
+            manager.rebuildEpics();
+            manager.rebuildIndexes();
+            for (int id : manager.loadedViews) {
+                manager.viewLoaded(id);
             }
-            manager.nextId = maxId + 1;
-
-            // Восстанавливаем связи подзадач в эпиках
-            for (int subtaskId : manager.subtasks.keySet()) {
-                subtask = manager.subtasks.get(subtaskId);
-                epic = manager.epics.get(subtask.getEpicId());
-                if (epic != null) {
-                    epic.addSubtaskId(subtask.getId());
-                }
+            manager.loadedViews.clear();
+            manager.isLoading = false;
+
+            if (flush) {
+                storage.flush(manager.state);
             }
+        }
+        return manager;
+    }
+
+    private void viewLoaded(int id) {
+        if (tasks.containsKey(id)) {
+            historyManager.add(new Task(tasks.get(id)));
+        } else if (epics.containsKey(id)) {
+            historyManager.add(new Epic(epics.get(id)));
+        } else if (subtasks.containsKey(id)) {
+            historyManager.add(new Subtask(subtasks.get(id)));
+        }
+    }
 
-            // Обновляем статусы и время эпиков
-            Epic epicItem = null;
-            for (int epicId : manager.epics.keySet()) {
-                epicItem = manager.epics.get(epicId);
-                manager.updateEpicStatus(epicItem.getId());
-                manager.updateEpicTime(epicItem.getId());
+    /**
+     * Доступ хранилища к состоянию менеджера. Методы восстановления не пересчитывают эпики
+     * и индексы: это делается один раз после загрузки.
+     */
+    private class ManagerState implements StorageState {
+        @Override
+        public void put(Task task) {
+            switch (task.getType()) {
+                case EPIC:
+                    epics.put(task.getId(), (Epic) task);
+                    break;
+                case SUBTASK:
+                    subtasks.put(task.getId(), (Subtask) task);
+                    break;
+                default:
+                    tasks.put(task.getId(), task);
+            }
+            if (task.getId() >= nextId) {
+                nextId = task.getId() + 1;
             }
+        }
 
-            // Восстанавливаем prioritizedTasks
-            for (Task t : manager.tasks.values()) {
-                if (t.getStartTime() != null) {
-                    manager.prioritizedTasks.add(t);
-                }
+        @Override
+        public List<Integer> remove(int id) {
+            List<Integer> removedIds = new ArrayList<>();
+            historyManager.remove(id);
+            if (tasks.remove(id) != null || subtasks.remove(id) != null) {
+                removedIds.add(id);
+                return removedIds;
             }
-            for (Subtask s : manager.subtasks.values()) {
-                if (s.getStartTime() != null) {
-                    manager.prioritizedTasks.add(s);
-                }
+            if (epics.remove(id) != null) {
+                removedIds.add(id);
+                subtasks.values().removeIf(subtask -> {
+                    if (subtask.getEpicId() != id) {
+                        return false;
+                    }
+                    historyManager.remove(subtask.getId());
+                    removedIds.add(subtask.getId());
+                    return true;
+                });
             }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка чтения файла", e);
+            return removedIds;
         }
-        manager.isLoading = false;
-        return manager;
-    }
 
-    private static Task fromString(String value) {
-        String[] fields = value.split(",");
-        int id = Integer.parseInt(fields[0]);
-        TaskType type = TaskType.valueOf(fields[1]);
-        String title = fields[2];
-        Status status = Status.valueOf(fields[3]);
-        String description = fields[4];
+        @Override
+        public List<Integer> clear(TaskType type) {
+            List<Integer> removedIds = new ArrayList<>();
+            switch (type) {
+                case TASK:
+                    removedIds.addAll(tasks.keySet());
+                    tasks.clear();
+                    break;
+                case EPIC:
+                    removedIds.addAll(epics.keySet());
+                    removedIds.addAll(subtasks.keySet());
+                    epics.clear();
+                    subtasks.clear();
+                    break;
+                case SUBTASK:
+                    removedIds.addAll(subtasks.keySet());
+                    subtasks.clear();
+                    break;
+            }
+            removedIds.forEach(historyManager::remove);
+            return removedIds;
+        }
 
-        Duration duration = null;
-        if (fields.length > 6 && !fields[6].isEmpty()) {
-            duration = Duration.ofMinutes(Long.parseLong(fields[6]));
+        @Override
+        public void view(int id) {
+            if (isLoading) {
+                loadedViews.add(id);
+            } else {
+                viewLoaded(id);
+            }
         }
 
-        LocalDateTime startTime = null;
-        if (fields.length > 7 && !fields[7].isEmpty()) {
-            startTime = LocalDateTime.parse(fields[7]);
+        @Override
+        public List<Task> rows(boolean copy) {
+            List<Task> rows = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+            for (Task task : tasks.values()) {
+                rows.add(copy ? new Task(task) : task);
+            }
+            for (Epic epic : epics.values()) {
+                rows.add(copy ? new Epic(epic) : epic);
+            }
+            for (Subtask subtask : subtasks.values()) {
+                rows.add(copy ? new Subtask(subtask) : subtask);
+            }
+            return rows;
         }
 
-        switch (type) {
-            case TASK:
-                return new Task(id, title, description, status, duration, startTime);
-            case EPIC:
-                return new Epic(id, title, description, status, duration, startTime);
-            case SUBTASK:
-                int epicId = Integer.parseInt(fields[5]);
-                return new Subtask(id, title, description, status, epicId, duration, startTime);
-            default:
-                throw new IllegalArgumentException("Неизвестный тип задачи");
+        @Override
+        public Task get(int id, boolean copy) {
+            if (tasks.containsKey(id)) {
+                return copy ? new Task(tasks.get(id)) : tasks.get(id);
+            } else if (epics.containsKey(id)) {
+                return copy ? new Epic(epics.get(id)) : epics.get(id);
+            } else if (subtasks.containsKey(id)) {
+                return copy ? new Subtask(subtasks.get(id)) : subtasks.get(id);
+            }
+            return null;
         }
-    }
 
-    private static List<Integer> historyFromString(String value) {
-        List<Integer> historyIds = new ArrayList<>();
-        if (value != null && !value.isEmpty()) {
-            String[] idStrings = value.split(",");
-            for (String idString : idStrings) {
-                historyIds.add(Integer.parseInt(idString));
+        @Override
+        public List<Integer> history() {
+            List<Integer> ids = new ArrayList<>();
+            for (Task task : historyManager.getHistory()) {
+                ids.add(task.getId());
             }
+            return ids;
+        }
+
+        @Override
+        public Object mutex() {
+            return FileBackedTaskManager.this;
         }
-        return historyIds;
     }
-}
\ No newline at end of file
+}
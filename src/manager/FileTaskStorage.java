@@ -0,0 +1,547 @@
+package manager;
+
+import exceptions.ManagerSaveException;
+import task.Task;
+import task.TaskType;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Файловое хранилище задач.
+ *
+ * <p>Без журнала каждое изменение приводит к записи файла: полной перезаписи снимка в формате
+ * CSV или BINARY либо записи только изменённых задач в формате SLOTTED. С журналом изменения
+ * дописываются в {@code <file>.log}, а снимок пишется в фоне при компактизации. История
+ * просмотров всегда хранится в отдельном журнале {@code <file>.history}.
+ *
+ * <p>При фоновых политиках {@link DurabilityPolicy} поток записи снимает копию состояния под
+ * {@link StorageState#mutex()}, а сериализует и пишет её уже без блокировки.
+ */
+public class FileTaskStorage implements TaskStorage {
+    static final int DEFAULT_COMPACTION_RECORDS = 10_000;
+    static final long DEFAULT_COMPACTION_SIZE = 4 * 1024 * 1024;
+    static final int HISTORY_COMPACTION_RECORDS = 1_000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final File file;
+    private final DurabilityPolicy policy;
+    private final StorageFormat format;
+    private final TaskJournal journal;
+    // История просмотров хранится отдельно, чтобы чтение задачи не перезаписывало всё хранилище
+    private final TaskJournal historyJournal;
+    private final TaskCsvCodec codec = new TaskCsvCodec();
+    private final TaskCsvCodec legacyCodec = new TaskCsvCodec(false);
+    private int compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private long compactionSize = DEFAULT_COMPACTION_SIZE;
+    private ScheduledExecutorService storageWriter;
+    private Future<?> compaction;
+    private boolean saveScheduled;
+    private long snapshotVersion;
+    private final Object fileLock = new Object();
+    private long writtenVersion;
+    private volatile ManagerSaveException saveFailure;
+    // Для формата SLOTTED: id задач, изменённых или удалённых с последней записи
+    private final Set<Integer> dirtyIds = new HashSet<>();
+    private TaskSlotFile slotFile;
+
+    /**
+     * @param journaled если {@code true}, каждая мутация дописывается в журнал {@code <file>.log}
+     *                  вместо записи файла хранилища
+     * @param policy    когда записи журналов попадают на диск; при фоновых политиках и записи без
+     *                  журнала файл пишется отдельным потоком из снимка состояния
+     * @param format    формат, в котором пишутся снимки; журналы всегда остаются текстовыми
+     */
+    public FileTaskStorage(File file, boolean journaled, DurabilityPolicy policy, StorageFormat format) {
+        this.file = file;
+        this.policy = policy;
+        this.format = format;
+        this.journal = journaled ? new TaskJournal(TaskJournal.journalFileFor(file), policy) : null;
+        this.historyJournal = new TaskJournal(TaskJournal.historyFileFor(file), policy);
+    }
+
+    /**
+     * Задаёт порог, после которого журнал компактизируется в фоне: текущее состояние
+     * записывается полным снимком, а журнал обрезается.
+     */
+    public void setCompactionThreshold(int maxRecords, long maxSize) {
+        this.compactionRecords = maxRecords;
+        this.compactionSize = maxSize;
+    }
+
+    /**
+     * Читает хранилище в любом из форматов; дальнейшие снимки пишутся в формате {@code format}.
+     */
+    @Override
+    public boolean load(StorageState state) {
+        if (file.exists()) {
+            ParallelSnapshotLoader.Result snapshot;
+            if (TaskSlotFile.isSlotted(file)) {
+                TaskSlotFile loadedSlots = TaskSlotFile.open(file, policy);
+                snapshot = new ParallelSnapshotLoader.Result(loadedSlots.takeLoadedRows(), new ArrayList<>());
+                if (format == StorageFormat.SLOTTED) {
+                    slotFile = loadedSlots;
+                } else {
+                    loadedSlots.close();
+                }
+            } else if (TaskBinaryFile.isBinary(file)) {
+                snapshot = TaskBinaryFile.load(file);
+            } else {
+                snapshot = ParallelSnapshotLoader.load(file);
+            }
+            for (Task task : snapshot.rows) {
+                state.put(task);
+            }
+            for (int id : snapshot.historyIds) {
+                state.view(id);
+            }
+        }
+
+        // Проигрываем журнал поверх снимка
+        replayJournal(state);
+
+        // История из отдельного журнала дополняет историю из снимка
+        TaskJournal.replay(TaskJournal.historyFileFor(file), record -> state.view(Integer.parseInt(record)));
+
+        // Прошлая компактизация не успела завершиться или хранилище в другом формате
+        // переводится в слоты: состояние нужно зафиксировать сразу
+        return journal != null && TaskJournal.sealedFileFor(file).exists()
+                || format == StorageFormat.SLOTTED && slotFile == null && file.exists();
+    }
+
+    @Override
+    public void apply(StorageMutation mutation, StorageState state) {
+        switch (mutation.getKind()) {
+            case PUT:
+                markDirty(mutation.getId());
+                persist(TaskJournal.PUT + "," + codec.encode(mutation.getTask()), state);
+                break;
+            case REMOVE:
+                markDirty(mutation.getRemovedIds());
+                persist(TaskJournal.DELETE + "," + mutation.getId(), state);
+                break;
+            case CLEAR:
+                markDirty(mutation.getRemovedIds());
+                persist(TaskJournal.CLEAR + "," + mutation.getType(), state);
+                break;
+            case VIEW:
+                persistView(mutation.getId(), state);
+                break;
+        }
+    }
+
+    /**
+     * Пакет без журнала перезаписывает файл один раз, а с журналом дописывается в него одной записью.
+     * Просмотры в пакет не входят и сохраняются как обычно.
+     */
+    @Override
+    public void applyAll(List<StorageMutation> mutations, StorageState state) {
+        List<String> records = new ArrayList<>(mutations.size());
+        for (StorageMutation mutation : mutations) {
+            switch (mutation.getKind()) {
+                case PUT:
+                    markDirty(mutation.getId());
+                    records.add(TaskJournal.PUT + "," + codec.encode(mutation.getTask()));
+                    break;
+                case REMOVE:
+                    markDirty(mutation.getRemovedIds());
+                    records.add(TaskJournal.DELETE + "," + mutation.getId());
+                    break;
+                case CLEAR:
+                    markDirty(mutation.getRemovedIds());
+                    records.add(TaskJournal.CLEAR + "," + mutation.getType());
+                    break;
+                case VIEW:
+                    persistView(mutation.getId(), state);
+                    break;
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        if (journal == null) {
+            save(state);
+        } else {
+            appendToJournal(records, state);
+        }
+    }
+
+    /**
+     * Синхронно записывает снимок и обрезает журнал.
+     */
+    @Override
+    public void flush(StorageState state) {
+        if (journal == null) {
+            persistSnapshot(captureSnapshot(state, false));
+            deleteJournalFiles();
+            compactHistory(state);
+            return;
+        }
+        awaitCompaction();
+        persistSnapshot(captureSnapshot(state, false));
+        TaskJournal.deleteIfExists(TaskJournal.sealedFileFor(file));
+        journal.truncate();
+        compactHistory(state);
+    }
+
+    /**
+     * Дожидается фоновых записей и закрывает журналы.
+     */
+    @Override
+    public void close() {
+        try {
+            awaitCompaction();
+        } finally {
+            if (storageWriter != null) {
+                // Отложенное сохранение всё равно выполнится после shutdown
+                storageWriter.shutdown();
+                try {
+                    storageWriter.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                storageWriter = null;
+            }
+            historyJournal.close();
+            if (journal != null) {
+                journal.close();
+            }
+            synchronized (fileLock) {
+                if (slotFile != null) {
+                    slotFile.close();
+                    slotFile = null;
+                }
+            }
+        }
+        if (saveFailure != null) {
+            throw saveFailure;
+        }
+    }
+
+    private void persist(String record, StorageState state) {
+        if (journal == null) {
+            save(state);
+        } else {
+            appendToJournal(List.of(record), state);
+        }
+    }
+
+    // Статусы и время эпиков вычисляются при загрузке, поэтому изменение подзадачи эпик не затрагивает
+    private void markDirty(int id) {
+        if (format == StorageFormat.SLOTTED) {
+            dirtyIds.add(id);
+        }
+    }
+
+    private void markDirty(Collection<Integer> ids) {
+        if (format == StorageFormat.SLOTTED) {
+            dirtyIds.addAll(ids);
+        }
+    }
+
+    // Просмотр дописывает один id в журнал истории; полная перезапись файла истории — раз в пачку записей
+    private void persistView(int id, StorageState state) {
+        historyJournal.append(Integer.toString(id));
+        if (historyJournal.getRecordCount() >= HISTORY_COMPACTION_RECORDS) {
+            compactHistory(state);
+        }
+    }
+
+    private void compactHistory(StorageState state) {
+        List<String> ids = new ArrayList<>();
+        for (int id : state.history()) {
+            ids.add(Integer.toString(id));
+        }
+        historyJournal.rewrite(ids);
+    }
+
+    private void appendToJournal(List<String> records, StorageState state) {
+        journal.appendAll(records);
+        if (journal.getRecordCount() >= compactionRecords || journal.getSize() >= compactionSize) {
+            startCompaction(state);
+        }
+    }
+
+    // Запечатывает журнал и пишет снимок в фоне; состояние для снимка фиксируется в текущем потоке
+    private void startCompaction(StorageState state) {
+        if (compaction != null) {
+            if (!compaction.isDone()) {
+                return;
+            }
+            awaitCompaction();
+        }
+        File sealedFile = TaskJournal.sealedFileFor(file);
+        if (!journal.seal(sealedFile)) {
+            return;
+        }
+        Snapshot snapshot = captureSnapshot(state, true);
+        compactHistory(state);
+        compaction = storageWriter().submit(() -> {
+            persistSnapshot(snapshot);
+            TaskJournal.deleteIfExists(sealedFile);
+        });
+    }
+
+    private ScheduledExecutorService storageWriter() {
+        if (storageWriter == null) {
+            storageWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-storage-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return storageWriter;
+    }
+
+    private void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Ошибка компактизации журнала", e.getCause());
+        } finally {
+            compaction = null;
+        }
+    }
+
+    private void save(StorageState state) {
+        if (saveFailure != null) {
+            throw saveFailure;
+        }
+        if (policy.isBackground()) {
+            scheduleSave(state);
+            return;
+        }
+        persistSnapshot(captureSnapshot(state, false));
+        deleteJournalFiles();
+        // Файл слотов не хранит историю: она целиком в своём журнале, который сжимается сам
+        if (format != StorageFormat.SLOTTED) {
+            compactHistory(state);
+        }
+    }
+
+    // Серия мутаций за время ожидания превращается в одну запись файла
+    private void scheduleSave(StorageState state) {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        storageWriter().schedule(() -> backgroundSave(state), policy.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundSave(StorageState state) {
+        Snapshot snapshot;
+        synchronized (state.mutex()) {
+            saveScheduled = false;
+            snapshot = captureSnapshot(state, true);
+        }
+        try {
+            persistSnapshot(snapshot);
+            deleteJournalFiles();
+        } catch (ManagerSaveException e) {
+            saveFailure = e;
+        }
+    }
+
+    // Полный снимок уже содержит все изменения из журнала
+    private void deleteJournalFiles() {
+        TaskJournal.deleteIfExists(TaskJournal.sealedFileFor(file));
+        TaskJournal.deleteIfExists(TaskJournal.journalFileFor(file));
+    }
+
+    /**
+     * Снимок состояния для записи в файл. Копии задач позволяют сериализовать его в другом потоке,
+     * не мешая дальнейшим мутациям. Для формата SLOTTED снимок содержит только изменения:
+     * задачи в {@code rows} и id удалённых в {@code removed}; {@code full} — что это весь набор задач.
+     */
+    private static class Snapshot {
+        final List<Task> rows;
+        final List<Integer> history;
+        final List<Integer> removed;
+        final boolean full;
+        final long version;
+
+        Snapshot(List<Task> rows, List<Integer> history, List<Integer> removed, boolean full, long version) {
+            this.rows = rows;
+            this.history = history;
+            this.removed = removed;
+            this.full = full;
+            this.version = version;
+        }
+    }
+
+    private Snapshot captureSnapshot(StorageState state, boolean copy) {
+        if (format == StorageFormat.SLOTTED && slotFile != null) {
+            return captureChanges(state, copy);
+        }
+        dirtyIds.clear();
+        return new Snapshot(state.rows(copy), state.history(), List.of(), true, ++snapshotVersion);
+    }
+
+    private Snapshot captureChanges(StorageState state, boolean copy) {
+        List<Task> rows = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        for (int id : dirtyIds) {
+            Task task = state.get(id, copy);
+            if (task != null) {
+                rows.add(task);
+            } else {
+                removed.add(id);
+            }
+        }
+        dirtyIds.clear();
+        return new Snapshot(rows, List.of(), removed, false, ++snapshotVersion);
+    }
+
+    private void persistSnapshot(Snapshot snapshot) {
+        if (format == StorageFormat.SLOTTED) {
+            writeSlots(snapshot);
+        } else {
+            writeAtomically(snapshot);
+        }
+    }
+
+    /**
+     * Записывает изменения в файл слотов. В отличие от полных снимков, изменения нельзя пропускать,
+     * поэтому они применяются строго в порядке снятия.
+     */
+    private void writeSlots(Snapshot snapshot) {
+        synchronized (fileLock) {
+            try {
+                while (writtenVersion < snapshot.version - 1) {
+                    fileLock.wait();
+                }
+                if (snapshot.full) {
+                    // Первая запись заменяет файл целиком, как и полный снимок
+                    if (slotFile != null) {
+                        slotFile.close();
+                    }
+                    slotFile = TaskSlotFile.create(file, snapshot.rows, policy);
+                } else {
+                    slotFile.apply(snapshot.rows, snapshot.removed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException("Запись изменений прервана", e);
+            } finally {
+                writtenVersion = snapshot.version;
+                fileLock.notifyAll();
+            }
+        }
+    }
+
+    // Снимок может писаться из фонового потока, поэтому у него свой кодек
+    private void writeSnapshot(OutputStream output, Snapshot snapshot) throws IOException {
+        if (format == StorageFormat.BINARY) {
+            TaskBinaryFile.write(snapshot.rows, snapshot.history, output);
+            return;
+        }
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        TaskCsvCodec snapshotCodec = new TaskCsvCodec();
+        snapshotCodec.writeLine(TaskCsvCodec.HEADER, writer);
+        for (Task task : snapshot.rows) {
+            snapshotCodec.write(task, writer);
+        }
+        // Секция истории остаётся для совместимости формата; актуальная история — в файле .history
+        snapshotCodec.writeLine("", writer);
+        snapshotCodec.flush(writer);
+        StringBuilder history = new StringBuilder();
+        for (int id : snapshot.history) {
+            if (history.length() > 0) {
+                history.append(',');
+            }
+            history.append(id);
+        }
+        writer.write(history.toString());
+        writer.flush();
+    }
+
+    /**
+     * Пишет снимок во временный файл и атомарно подменяет им основной, чтобы сбой не оставил
+     * файл обрезанным. Снимок старше уже записанного пропускается.
+     */
+    private void writeAtomically(Snapshot snapshot) {
+        synchronized (fileLock) {
+            if (snapshot.version < writtenVersion) {
+                return;
+            }
+            File tempFile = new File(file.getPath() + ".tmp");
+            try (FileOutputStream output = new FileOutputStream(tempFile)) {
+                OutputStream buffered = new BufferedOutputStream(output);
+                writeSnapshot(buffered, snapshot);
+                buffered.flush();
+                if (policy != DurabilityPolicy.WRITE_THROUGH) {
+                    output.getChannel().force(true);
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка сохранения файла", e);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка сохранения файла", e);
+            }
+            writtenVersion = snapshot.version;
+        }
+    }
+
+    // Применяет записи журнала к уже загруженным задачам
+    private void replayJournal(StorageState state) {
+        Consumer<String> replayer = record -> {
+            int separator = record.indexOf(',');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Неизвестная запись журнала: " + record);
+            }
+            String operation = record.substring(0, separator);
+
+            // Изменения из журнала ещё не попали в файл слотов
+            switch (operation) {
+                case TaskJournal.PUT:
+                case TaskJournal.LEGACY_PUT:
+                    TaskCsvCodec recordCodec = operation.equals(TaskJournal.PUT) ? codec : legacyCodec;
+                    Task task = recordCodec.decode(record, separator + 1);
+                    state.put(task);
+                    markDirty(task.getId());
+                    break;
+                case TaskJournal.DELETE:
+                    markDirty(state.remove(Integer.parseInt(record.substring(separator + 1))));
+                    break;
+                case TaskJournal.CLEAR:
+                    markDirty(state.clear(TaskType.valueOf(record.substring(separator + 1))));
+                    break;
+                case TaskJournal.VIEW:
+                    state.view(Integer.parseInt(record.substring(separator + 1)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестная запись журнала: " + record);
+            }
+        };
+        // Сначала запечатанный сегмент (если компактизация прервалась), затем хвост журнала
+        TaskJournal.replay(TaskJournal.sealedFileFor(file), replayer);
+        TaskJournal.replay(TaskJournal.journalFileFor(file), replayer);
+    }
+}
@@ -0,0 +1,72 @@
+package manager;
+
+import task.Task;
+import task.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Собирает свободные промежутки между задачами, которые ему передают в порядке начала. Общий
+ * для индекса времени и снимка: источники отличаются только тем, как находят начальную занятость
+ * и обходят задачи.
+ *
+ * <p>Задача без длительности занимает точку, но новую задачу через неё провести нельзя, поэтому
+ * она тоже делит промежуток.
+ */
+class FreeSlotCollector {
+    private final Duration duration;
+    private final LocalDateTime to;
+    private final int limit;
+    private final List<TimeSlot> slots = new ArrayList<>();
+    private LocalDateTime cursor;
+
+    /**
+     * @param busyUntil наибольший конец задач, начавшихся раньше {@code from}, или {@code null}
+     */
+    FreeSlotCollector(Duration duration, LocalDateTime from, LocalDateTime to, int limit, LocalDateTime busyUntil) {
+        this.duration = duration;
+        this.to = to;
+        this.limit = limit;
+        this.cursor = busyUntil != null && busyUntil.isAfter(from) ? busyUntil : from;
+    }
+
+    static void checkArguments(Duration duration, LocalDateTime from, LocalDateTime to) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Длительность промежутка должна быть положительной");
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Некорректный диапазон поиска: " + from + " — " + to);
+        }
+    }
+
+    /**
+     * Учитывает следующую по началу задачу с началом в {@code [from, to)}.
+     *
+     * @return {@code false}, если промежутков уже достаточно и обход можно остановить
+     */
+    boolean accept(Task task) {
+        offer(task.getStartTime());
+        LocalDateTime end = TaskTimeIndex.endOf(task);
+        if (end.isAfter(cursor)) {
+            cursor = end;
+        }
+        return slots.size() < limit;
+    }
+
+    List<TimeSlot> finish() {
+        if (slots.size() < limit) {
+            offer(to);
+        }
+        return slots;
+    }
+
+    private void offer(LocalDateTime gapEnd) {
+        LocalDateTime end = gapEnd.isAfter(to) ? to : gapEnd;
+        if (slots.size() < limit && !cursor.plus(duration).isAfter(end)) {
+            slots.add(new TimeSlot(cursor, end));
+        }
+    }
+}
@@ -4,25 +4,49 @@ import task.Epic;
 import task.Status;
 import task.Subtask;
 import task.Task;
+import task.TaskType;
+import task.TimeSlot;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import exceptions.ManagerValidationException;
 import exceptions.NotFoundException;
+import util.IntObjectMap;
+import util.IntOrderedSet;
+import util.IntSortedSet;
 
 public class InMemoryTaskManager implements TaskManager {
+    // Порядок prioritizedTasks: по началу, при равном начале — по id
+    protected static final Comparator<Task> PRIORITY_ORDER = Comparator.comparing(Task::getStartTime,
+            Comparator.nullsLast(Comparator.naturalOrder())).thenComparingInt(Task::getId);
+
     protected int nextId = 1;
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    protected final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    protected final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    protected final IntObjectMap<Subtask> subtasks = new IntObjectMap<>();
+    // Статус и время эпиков пересчитываются по этим сводкам, а не обходом подзадач
+    private final IntObjectMap<EpicAggregate> epicAggregates = new IntObjectMap<>();
     protected final HistoryManager historyManager = Managers.getDefaultHistory();
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(
-            Comparator.comparing(Task::getStartTime,
-                    Comparator.nullsLast(Comparator.naturalOrder()))
-    );
+    protected final StatusIndex taskStatuses = new StatusIndex();
+    protected final StatusIndex epicStatuses = new StatusIndex();
+    protected final StatusIndex subtaskStatuses = new StatusIndex();
+    protected final SearchIndex searchIndex = new SearchIndex();
+    // Id каждого типа по возрастанию — для постраничного чтения
+    protected final IntSortedSet taskOrder = new IntSortedSet();
+    protected final IntSortedSet epicOrder = new IntSortedSet();
+    protected final IntSortedSet subtaskOrder = new IntSortedSet();
+    // Задачи и подзадачи со временем начала; по нему же проверяются пересечения
+    protected final TaskTimeIndex prioritizedTasks = new TaskTimeIndex();
+    // Повторяющиеся задачи хранятся отдельно: их повторения вычисляются для запрошенного окна
+    protected final RecurringTasks recurringTasks = new RecurringTasks();
+    // Зависимости между задачами и рассчитанные по ним критические пути эпиков
+    private final DependencyGraph dependencies = new DependencyGraph();
+    // Прежние версии задач, изменённых в текущей транзакции; null вне транзакции
+    private UndoLog undoLog;
 
     private int generateId() {
         return nextId++;
@@ -36,11 +60,17 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllTasks() {
+        rememberHistory();
         for (int id : tasks.keySet()) {
+            remember(id);
             historyManager.remove(id);
-            prioritizedTasks.remove(tasks.get(id));
+            removePrioritized(id);
+            searchIndex.remove(id);
+            dropDependencies(id);
         }
         tasks.clear();
+        taskOrder.clear();
+        taskStatuses.clear();
     }
 
     @Override
@@ -49,6 +79,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (task == null) {
             throw new NotFoundException("Задача с id=" + id + " не найдена");
         }
+        rememberHistory();
         historyManager.add(new Task(task));
         return task;
     }
@@ -56,32 +87,56 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void createTask(Task task) {
         validateTaskTime(task);
-        task.setId(generateId());
-        tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        insertTask(task);
+    }
+
+    @Override
+    public void createTasks(List<Task> newTasks) {
+        validateBatchTime(newTasks, Set.of());
+        newTasks.forEach(this::insertTask);
     }
 
     @Override
     public void updateTask(Task updatedTask) {
         if (tasks.containsKey(updatedTask.getId())) {
             validateTaskTime(updatedTask);
-            Task oldTask = tasks.get(updatedTask.getId());
-            prioritizedTasks.remove(oldTask);
-            tasks.put(updatedTask.getId(), updatedTask);
-            if (updatedTask.getStartTime() != null) {
-                prioritizedTasks.add(updatedTask);
-            }
+            replaceTask(updatedTask);
         }
     }
 
+    private void insertTask(Task task) {
+        task.setId(generateId());
+        remember(task.getId());
+        tasks.put(task.getId(), task);
+        taskOrder.add(task.getId());
+        taskStatuses.put(task.getId(), task.getStatus());
+        searchIndex.put(task);
+        addPrioritized(task);
+    }
+
+    private void replaceTask(Task updatedTask) {
+        remember(updatedTask.getId());
+        removePrioritized(updatedTask.getId());
+        tasks.put(updatedTask.getId(), updatedTask);
+        taskStatuses.put(updatedTask.getId(), updatedTask.getStatus());
+        searchIndex.put(updatedTask);
+        addPrioritized(updatedTask);
+    }
+
     @Override
     public void deleteTask(int id) {
+        if (tasks.containsKey(id)) {
+            remember(id);
+            rememberHistory();
+        }
         Task task = tasks.remove(id);
         if (task != null) {
+            taskOrder.remove(id);
+            taskStatuses.remove(id);
+            searchIndex.remove(id);
             historyManager.remove(id);
-            prioritizedTasks.remove(task);
+            removePrioritized(id);
+            dropDependencies(id);
         }
     }
 
@@ -93,17 +148,31 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllEpics() {
+        rememberHistory();
+        epics.keySet().forEach(this::remember);
+        subtasks.keySet().forEach(this::remember);
         for (int id : epics.keySet()) {
             historyManager.remove(id);
+            searchIndex.remove(id);
+        }
+        for (int id : subtasks.keySet()) {
+            searchIndex.remove(id);
+            dropDependencies(id);
         }
+        dependencies.invalidateAll();
         for (Epic epic : epics.values()) {
             for (int subtaskId : epic.getSubtaskIds()) {
                 historyManager.remove(subtaskId);
-                prioritizedTasks.remove(subtasks.get(subtaskId));
+                prioritizedTasks.remove(subtaskId);
             }
         }
         epics.clear();
         subtasks.clear();
+        epicOrder.clear();
+        subtaskOrder.clear();
+        epicAggregates.clear();
+        epicStatuses.clear();
+        subtaskStatuses.clear();
     }
 
     @Override
@@ -112,6 +181,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Эпик с id=" + id + " не найдена");
         }
+        rememberHistory();
         historyManager.add(new Epic(epic));
         return epic;
     }
@@ -119,27 +189,53 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void createEpic(Epic epic) {
         epic.setId(generateId());
+        remember(epic.getId());
         epics.put(epic.getId(), epic);
+        epicOrder.add(epic.getId());
+        epicAggregates.put(epic.getId(), new EpicAggregate());
+        epicStatuses.put(epic.getId(), epic.getStatus());
+        searchIndex.put(epic);
     }
 
     @Override
     public void updateEpic(Epic updatedEpic) {
-        Epic existingEpic = epics.get(updatedEpic.getId());
-        if (existingEpic != null) {
-            existingEpic.setTitle(updatedEpic.getTitle());
-            existingEpic.setDescription(updatedEpic.getDescription());
+        if (epics.containsKey(updatedEpic.getId())) {
+            replaceEpic(updatedEpic);
         }
     }
 
+    // Статус, время и подзадачи эпика вычисляются, поэтому меняются только название и описание
+    private void replaceEpic(Epic updatedEpic) {
+        remember(updatedEpic.getId());
+        Epic existingEpic = epics.get(updatedEpic.getId());
+        existingEpic.setTitle(updatedEpic.getTitle());
+        existingEpic.setDescription(updatedEpic.getDescription());
+        searchIndex.put(existingEpic);
+    }
+
     @Override
     public void deleteEpic(int id) {
+        if (epics.containsKey(id)) {
+            remember(id);
+            epics.get(id).getSubtaskIds().forEach(this::remember);
+            rememberHistory();
+        }
         Epic epic = epics.remove(id);
         if (epic != null) {
+            epicOrder.remove(id);
+            epicAggregates.remove(id);
+            epicStatuses.remove(id);
+            searchIndex.remove(id);
             for (int subtaskId : epic.getSubtaskIds()) {
                 subtasks.remove(subtaskId);
+                subtaskOrder.remove(subtaskId);
+                subtaskStatuses.remove(subtaskId);
+                searchIndex.remove(subtaskId);
                 historyManager.remove(subtaskId);
-                prioritizedTasks.remove(subtasks.get(subtaskId));
+                prioritizedTasks.remove(subtaskId);
+                dropDependencies(subtaskId);
             }
+            dependencies.invalidate(id);
             historyManager.remove(id);
         }
     }
@@ -151,15 +247,25 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllSubtasks() {
+        rememberHistory();
+        subtasks.keySet().forEach(this::remember);
+        epics.keySet().forEach(this::remember);
         for (int id : subtasks.keySet()) {
             historyManager.remove(id);
-            prioritizedTasks.remove(subtasks.get(id));
+            prioritizedTasks.remove(id);
+            searchIndex.remove(id);
+            dropDependencies(id);
         }
+        dependencies.invalidateAll();
         subtasks.clear();
+        subtaskOrder.clear();
+        subtaskStatuses.clear();
         for (Epic epic : epics.values()) {
             epic.clearSubtaskIds();
-            updateEpicStatus(epic.getId());
-            updateEpicTime(epic.getId());
+            EpicAggregate aggregate = epicAggregates.get(epic.getId());
+            aggregate.clear();
+            aggregate.applyTo(epic);
+            epicStatuses.put(epic.getId(), epic.getStatus());
         }
     }
 
@@ -169,82 +275,201 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask == null) {
             throw new NotFoundException("Подзадача с id=" + id + " не найдена");
         }
+        rememberHistory();
         historyManager.add(new Subtask(subtask));
         return subtask;
     }
 
     @Override
     public void createSubtask(Subtask subtask) {
-        int epicId = subtask.getEpicId();
+        requireEpic(subtask.getEpicId());
+        validateTaskTime(subtask);
+        insertSubtask(subtask);
+        applyAggregate(subtask.getEpicId(), epicAggregates.get(subtask.getEpicId()));
+    }
+
+    @Override
+    public void createSubtasks(List<Subtask> newSubtasks) {
+        for (Subtask subtask : newSubtasks) {
+            requireEpic(subtask.getEpicId());
+        }
+        validateBatchTime(newSubtasks, Set.of());
+        Set<Integer> affectedEpics = new LinkedHashSet<>();
+        for (Subtask subtask : newSubtasks) {
+            insertSubtask(subtask);
+            affectedEpics.add(subtask.getEpicId());
+        }
+        applyAggregates(affectedEpics);
+    }
+
+    @Override
+    public void updateSubtask(Subtask updatedSubtask) {
+        if (!subtasks.containsKey(updatedSubtask.getId())) return;
+
+        validateTaskTime(updatedSubtask);
+        Set<Integer> affectedEpics = new LinkedHashSet<>();
+        replaceSubtask(updatedSubtask, affectedEpics);
+        applyAggregates(affectedEpics);
+    }
+
+    private void requireEpic(int epicId) {
         if (!epics.containsKey(epicId)) {
             throw new IllegalArgumentException("Epic with id " + epicId + " not found");
         }
+    }
 
-        validateTaskTime(subtask);
+    // Время эпика вычисляется по подзадачам, поэтому зависеть друг от друга могут только задачи и подзадачи
+    private void requireDependent(int id) {
+        if (epics.containsKey(id)) {
+            throw new IllegalArgumentException("Эпик с id=" + id + " не может участвовать в зависимостях");
+        }
+        if (!tasks.containsKey(id) && !subtasks.containsKey(id)) {
+            throw new NotFoundException("Задача с id=" + id + " не найдена");
+        }
+    }
+
+    private void invalidatePaths(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            dependencies.invalidate(subtask.getEpicId());
+        }
+    }
+
+    private void dropDependencies(int id) {
+        if (dependencies.hasEdges(id)) {
+            rememberDependencies();
+            dependencies.removeNode(id);
+        }
+    }
+
+    // Сводка эпика обновляется, но сам эпик пересчитывается вызывающим — один раз на пакет
+    private void insertSubtask(Subtask subtask) {
+        int epicId = subtask.getEpicId();
         subtask.setId(generateId());
+        remember(subtask.getId());
+        remember(epicId);
         subtasks.put(subtask.getId(), subtask);
+        subtaskOrder.add(subtask.getId());
+        subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+        searchIndex.put(subtask);
         epics.get(epicId).addSubtaskId(subtask.getId());
-        updateEpicStatus(epicId);
-        updateEpicTime(epicId);
-
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
-        }
+        epicAggregates.get(epicId).put(subtask);
+        dependencies.invalidate(epicId);
+        addPrioritized(subtask);
     }
 
-    @Override
-    public void updateSubtask(Subtask updatedSubtask) {
+    private void replaceSubtask(Subtask updatedSubtask, Set<Integer> affectedEpics) {
         int id = updatedSubtask.getId();
         Subtask existingSubtask = subtasks.get(id);
-
-        if (existingSubtask == null) return;
-
-        validateTaskTime(updatedSubtask);
-        prioritizedTasks.remove(existingSubtask);
+        prioritizedTasks.remove(id);
 
         int oldEpicId = existingSubtask.getEpicId();
         int newEpicId = updatedSubtask.getEpicId();
+        remember(id);
+        remember(oldEpicId);
+        remember(newEpicId);
 
         if (oldEpicId == newEpicId) {
             subtasks.put(id, updatedSubtask);
-            updateEpicStatus(oldEpicId);
-            updateEpicTime(oldEpicId);
+            subtaskStatuses.put(id, updatedSubtask.getStatus());
+            epicAggregates.get(oldEpicId).put(updatedSubtask);
+            dependencies.durationChanged(updatedSubtask);
+            affectedEpics.add(oldEpicId);
         } else if (epics.containsKey(newEpicId)) {
             Epic oldEpic = epics.get(oldEpicId);
             if (oldEpic != null) {
                 oldEpic.removeSubtaskId(id);
-                updateEpicStatus(oldEpicId);
-                updateEpicTime(oldEpicId);
+                epicAggregates.get(oldEpicId).remove(id);
+                affectedEpics.add(oldEpicId);
             }
 
-            Epic newEpic = epics.get(newEpicId);
-            if (newEpic != null) {
-                subtasks.put(id, updatedSubtask);
-                newEpic.addSubtaskId(id);
-                updateEpicStatus(newEpicId);
-                updateEpicTime(newEpicId);
-            }
+            subtasks.put(id, updatedSubtask);
+            subtaskStatuses.put(id, updatedSubtask.getStatus());
+            epics.get(newEpicId).addSubtaskId(id);
+            epicAggregates.get(newEpicId).put(updatedSubtask);
+            dependencies.invalidate(oldEpicId);
+            dependencies.invalidate(newEpicId);
+            affectedEpics.add(newEpicId);
         }
 
-        if (updatedSubtask.getStartTime() != null) {
-            prioritizedTasks.add(updatedSubtask);
-        }
+        searchIndex.put(subtasks.get(id));
+        addPrioritized(subtasks.get(id));
     }
 
     @Override
     public void deleteSubtask(int id) {
+        if (subtasks.containsKey(id)) {
+            remember(id);
+            remember(subtasks.get(id).getEpicId());
+            rememberHistory();
+        }
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
+            subtaskOrder.remove(id);
+            subtaskStatuses.remove(id);
+            searchIndex.remove(id);
             int epicId = subtask.getEpicId();
             Epic epic = epics.get(epicId);
             if (epic != null) {
                 epic.removeSubtaskId(id);
-                updateEpicStatus(epicId);
-                updateEpicTime(epicId);
+                removeFromEpic(epicId, id);
             }
             historyManager.remove(id);
-            prioritizedTasks.remove(subtask);
+            prioritizedTasks.remove(id);
+            dropDependencies(id);
+            dependencies.invalidate(epicId);
+        }
+    }
+
+    /**
+     * Задачи, подзадачи и эпики обновляются по типу объекта. Сначала проверяется весь пакет:
+     * что все записи существуют и встречаются по одному разу, а новое время не пересекается ни с
+     * остальными задачами, ни с другими записями пакета. Если проверка не прошла, ничего не меняется.
+     */
+    @Override
+    public void updateMany(List<? extends Task> updates) {
+        Set<Integer> ids = new HashSet<>();
+        List<Task> scheduled = new ArrayList<>();
+        for (Task update : updates) {
+            if (!ids.add(update.getId())) {
+                throw new IllegalArgumentException("Задача с id=" + update.getId() + " встречается в пакете дважды");
+            }
+            switch (update.getType()) {
+                case EPIC:
+                    if (!epics.containsKey(update.getId())) {
+                        throw new NotFoundException("Эпик с id=" + update.getId() + " не найдена");
+                    }
+                    break;
+                case SUBTASK:
+                    if (!subtasks.containsKey(update.getId())) {
+                        throw new NotFoundException("Подзадача с id=" + update.getId() + " не найдена");
+                    }
+                    requireEpic(((Subtask) update).getEpicId());
+                    scheduled.add(update);
+                    break;
+                default:
+                    if (!tasks.containsKey(update.getId())) {
+                        throw new NotFoundException("Задача с id=" + update.getId() + " не найдена");
+                    }
+                    scheduled.add(update);
+            }
+        }
+        validateBatchTime(scheduled, ids);
+
+        Set<Integer> affectedEpics = new LinkedHashSet<>();
+        for (Task update : updates) {
+            switch (update.getType()) {
+                case EPIC:
+                    replaceEpic((Epic) update);
+                    break;
+                case SUBTASK:
+                    replaceSubtask((Subtask) update, affectedEpics);
+                    break;
+                default:
+                    replaceTask(update);
+            }
         }
+        applyAggregates(affectedEpics);
     }
 
     @Override
@@ -264,104 +489,707 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    // Повторяющиеся задачи входят в общий список один раз — первым повторением
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        if (recurringTasks.isEmpty()) {
+            return prioritizedTasks.toList();
+        }
+        List<Task> recurring = new ArrayList<>(recurringTasks.values());
+        recurring.sort(PRIORITY_ORDER);
+        return RecurringTasks.merge(prioritizedTasks.toList(), recurring, Integer.MAX_VALUE);
     }
 
-    protected void updateEpicStatus(int epicId) {
-        Epic epic = epics.get(epicId);
-        if (epic == null) return;
+    // Повторения разворачиваются только для окна [from, to)
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        if (recurringTasks.isEmpty()) {
+            return prioritizedTasks.range(from, to, limit);
+        }
+        return RecurringTasks.merge(prioritizedTasks.range(from, to, limit),
+                RecurringTasks.occurrences(recurringTasks.values(), from, to, limit), limit);
+    }
 
-        List<Integer> subtaskIds = epic.getSubtaskIds();
-        if (subtaskIds.isEmpty()) {
-            epic.setStatus(Status.NEW);
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        FreeSlotCollector.checkArguments(duration, from, to);
+        return freeSlots(duration, from, to, limit);
+    }
+
+    private List<TimeSlot> freeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        if (recurringTasks.isEmpty()) {
+            return prioritizedTasks.freeSlots(duration, from, to, limit);
+        }
+        // Повторения вставляются между задачами индекса по ходу обхода и вычисляются, только пока нужны
+        FreeSlotCollector collector = new FreeSlotCollector(duration, from, to, limit,
+                RecurringTasks.busyUntil(recurringTasks.values(), from, prioritizedTasks.busyUntil(from)));
+        RecurringTasks.Merger merger = new RecurringTasks.Merger(recurringTasks.values(), from, to, collector::accept);
+        if (limit > 0 && prioritizedTasks.visitRange(from, to, merger)) {
+            merger.finish();
+        }
+        return collector.finish();
+    }
+
+    /**
+     * План строится по свободным промежуткам индекса времени и применяется одним
+     * {@link #updateMany(List)}: одна проверка пересечений, одно сохранение, один пересчёт на эпик.
+     */
+    @Override
+    public SchedulePlan schedule(ScheduleRequest request) {
+        List<Task> candidates = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (task.getStartTime() == null) {
+                candidates.add(task);
+            }
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (subtask.getStartTime() == null) {
+                candidates.add(subtask);
+            }
+        }
+        List<TimeSlot> gaps = freeSlots(AutoScheduler.MIN_GAP, request.getFrom(), request.getTo(), Integer.MAX_VALUE);
+        SchedulePlan plan = AutoScheduler.plan(candidates, gaps, request);
+        if (plan.isApplied() && !plan.getAssignments().isEmpty()) {
+            List<Task> updates = new ArrayList<>(plan.getAssignments().size());
+            for (SchedulePlan.Assignment assignment : plan.getAssignments()) {
+                Task copy = assignment.getType() == TaskType.SUBTASK
+                        ? new Subtask(subtasks.get(assignment.getTaskId()))
+                        : new Task(tasks.get(assignment.getTaskId()));
+                copy.setStartTime(assignment.getStart());
+                copy.setDuration(Duration.between(assignment.getStart(), assignment.getEnd()));
+                updates.add(copy);
+            }
+            updateMany(updates);
+        }
+        return plan;
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        requireDependent(taskId);
+        requireDependent(dependsOnId);
+        if (dependencies.contains(dependsOnId, taskId)) {
             return;
         }
+        rememberDependencies();
+        dependencies.add(dependsOnId, taskId);
+        invalidatePaths(taskId);
+        invalidatePaths(dependsOnId);
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        if (dependencies.contains(dependsOnId, taskId)) {
+            rememberDependencies();
+            dependencies.remove(dependsOnId, taskId);
+            invalidatePaths(taskId);
+            invalidatePaths(dependsOnId);
+        }
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        requireDependent(taskId);
+        return new ArrayList<>(dependencies.predecessorsOf(taskId).asList());
+    }
+
+    /**
+     * Расчёт эпика хранится между запросами: после изменения длительности подзадачи пересчитываются
+     * только зависящие от неё подзадачи, а полный расчёт повторяется лишь после изменения зависимостей
+     * или состава эпика.
+     */
+    @Override
+    public CriticalPath getCriticalPath(int epicId) {
+        if (!epics.containsKey(epicId)) {
+            throw new NotFoundException("Эпик с id=" + epicId + " не найдена");
+        }
+        return dependencies.criticalPath(epicId, getSubtasksByEpicId(epicId));
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(taskOrder, tasks, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(epicOrder, epics, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return page(subtaskOrder, subtasks, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return byStatus(taskStatuses, tasks, status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return byStatus(epicStatuses, epics, status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return byStatus(subtaskStatuses, subtasks, status);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (int id : searchIndex.search(query, limit)) {
+            result.add(find(id));
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет изменения {@code transaction} как одно целое. Операции применяются сразу, поэтому
+     * каждая следующая видит результат предыдущих и проверяется с их учётом; перед первым изменением
+     * задачи запоминается её прежняя версия. Если транзакция завершилась исключением, все изменения,
+     * включая историю просмотров и счётчик id, откатываются, а исключение пробрасывается дальше.
+     * Вложенная транзакция становится частью внешней.
+     */
+    @Override
+    public void inTransaction(Consumer<TaskManager> transaction) {
+        if (undoLog != null) {
+            transaction.accept(this);
+            return;
+        }
+        undoLog = new UndoLog(nextId);
+        try {
+            transaction.accept(this);
+        } catch (RuntimeException | Error e) {
+            rollback(undoLog);
+            throw e;
+        } finally {
+            undoLog = null;
+        }
+    }
+
+    private Task find(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    private void remember(int id) {
+        if (undoLog != null && !undoLog.before.containsKey(id)) {
+            Task task = find(id);
+            undoLog.before.put(id, task == null ? null : new SavedTask(task));
+        }
+    }
+
+    private void rememberHistory() {
+        if (undoLog != null && undoLog.history == null) {
+            undoLog.history = historyManager.getHistory();
+        }
+    }
+
+    private void rememberDependencies() {
+        if (undoLog != null && undoLog.dependencies == null) {
+            undoLog.dependencies = dependencies.save();
+        }
+    }
+
+    /**
+     * Возвращает в таблицы прежние объекты задач с прежними полями, так что ссылки вызывающего
+     * кода остаются действительными. Эпик запоминается вместе с каждой изменённой подзадачей,
+     * поэтому связи и сводки восстанавливаются по спискам подзадач из прежних версий эпиков.
+     */
+    private void rollback(UndoLog log) {
+        for (int id : log.before.keySet()) {
+            detach(id);
+        }
+        for (SavedTask saved : log.before.values()) {
+            if (saved != null) {
+                attach(saved.restore());
+            }
+        }
+        for (SavedTask saved : log.before.values()) {
+            if (saved != null && saved.original instanceof Epic) {
+                Epic epic = (Epic) saved.original;
+                EpicAggregate aggregate = new EpicAggregate();
+                for (int subtaskId : epic.getSubtaskIds()) {
+                    aggregate.put(subtasks.get(subtaskId));
+                }
+                epicAggregates.put(epic.getId(), aggregate);
+                applyAggregate(epic.getId(), aggregate);
+            }
+        }
+        nextId = log.nextId;
+        if (log.dependencies != null) {
+            dependencies.restore(log.dependencies);
+        }
+        // Длительности подзадач могли смениться: рассчитанные пути эпиков строятся заново
+        dependencies.invalidateAll();
+        if (log.history != null) {
+            for (Task task : historyManager.getHistory()) {
+                historyManager.remove(task.getId());
+            }
+            log.history.forEach(historyManager::add);
+        }
+    }
+
+    // Убирает задачу из таблиц и индексов, не трогая связанные с ней задачи
+    private void detach(int id) {
+        Task task = tasks.remove(id);
+        if (task != null) {
+            taskOrder.remove(id);
+            taskStatuses.remove(id);
+            removePrioritized(id);
+        }
+        Epic epic = epics.remove(id);
+        if (epic != null) {
+            epicOrder.remove(id);
+            epicAggregates.remove(id);
+            epicStatuses.remove(id);
+        }
+        Subtask subtask = subtasks.remove(id);
+        if (subtask != null) {
+            subtaskOrder.remove(id);
+            subtaskStatuses.remove(id);
+            prioritizedTasks.remove(id);
+        }
+        searchIndex.remove(id);
+    }
+
+    private void attach(Task task) {
+        int id = task.getId();
+        switch (task.getType()) {
+            case EPIC:
+                epics.put(id, (Epic) task);
+                epicOrder.add(id);
+                break;
+            case SUBTASK:
+                subtasks.put(id, (Subtask) task);
+                subtaskOrder.add(id);
+                subtaskStatuses.put(id, task.getStatus());
+                addPrioritized(task);
+                break;
+            default:
+                tasks.put(id, task);
+                taskOrder.add(id);
+                taskStatuses.put(id, task.getStatus());
+                addPrioritized(task);
+        }
+        searchIndex.put(task);
+    }
+
+    // Объект задачи и копия его полей на момент первого изменения в транзакции
+    private static class SavedTask {
+        final Task original;
+        final Task state;
+
+        SavedTask(Task original) {
+            this.original = original;
+            switch (original.getType()) {
+                case EPIC:
+                    this.state = new Epic((Epic) original);
+                    break;
+                case SUBTASK:
+                    this.state = new Subtask((Subtask) original);
+                    break;
+                default:
+                    this.state = new Task(original);
+            }
+        }
+
+        Task restore() {
+            original.setTitle(state.getTitle());
+            original.setDescription(state.getDescription());
+            original.setStatus(state.getStatus());
+            original.setDuration(state.getDuration());
+            original.setStartTime(state.getStartTime());
+            original.setRecurrence(state.getRecurrence());
+            if (original instanceof Subtask) {
+                ((Subtask) original).setEpicId(((Subtask) state).getEpicId());
+            } else if (original instanceof Epic) {
+                Epic epic = (Epic) original;
+                epic.clearSubtaskIds();
+                ((Epic) state).getSubtaskIds().forEach(epic::addSubtaskId);
+            }
+            return original;
+        }
+    }
+
+    private static class UndoLog {
+        final int nextId;
+        // id -> задача до транзакции или null, если её не было; порядок не важен
+        final Map<Integer, SavedTask> before = new HashMap<>();
+        List<Task> history;
+        // Рёбра графа зависимостей до первого их изменения; null, если не менялись
+        Map<Integer, IntOrderedSet> dependencies;
+
+        UndoLog(int nextId) {
+            this.nextId = nextId;
+        }
+    }
+
+    private static <T extends Task> List<T> page(IntSortedSet order, IntObjectMap<T> entities, int afterId,
+                                                 int limit) {
+        int from = order.indexAfter(afterId);
+        int to = from + Math.min(Math.max(limit, 0), order.size() - from);
+        List<T> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(entities.get(order.get(i)));
+        }
+        return result;
+    }
+
+    private static <T extends Task> List<T> byStatus(StatusIndex index, IntObjectMap<T> entities, Status status) {
+        IntOrderedSet ids = index.ids(status);
+        List<T> result = new ArrayList<>(ids.size());
+        ids.forEach(id -> result.add(entities.get(id)));
+        return result;
+    }
+
+    /**
+     * Восстанавливает списки подзадач эпиков, их статусы и время за один проход по подзадачам.
+     * Используется при массовой загрузке вместо пересчёта каждого эпика по отдельности.
+     */
+    protected void rebuildEpics() {
+        epicAggregates.clear();
+        dependencies.invalidateAll();
+        for (Epic epic : epics.values()) {
+            epic.clearSubtaskIds();
+            epicAggregates.put(epic.getId(), new EpicAggregate());
+        }
+        for (Subtask subtask : subtasks.values()) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubtaskId(subtask.getId());
+                epicAggregates.get(epic.getId()).put(subtask);
+            }
+        }
+        for (Epic epic : epics.values()) {
+            epicAggregates.get(epic.getId()).applyTo(epic);
+        }
+    }
+
+    /**
+     * Заново строит все индексы по загруженным таблицам; вызывается после {@link #rebuildEpics()}.
+     */
+    protected void rebuildIndexes() {
+        rebuildPrioritizedTasks();
+        rebuildOrder(taskOrder, tasks);
+        rebuildOrder(epicOrder, epics);
+        rebuildOrder(subtaskOrder, subtasks);
+        rebuildStatusIndex(taskStatuses, tasks);
+        rebuildStatusIndex(epicStatuses, epics);
+        rebuildStatusIndex(subtaskStatuses, subtasks);
+        searchIndex.clear();
+        tasks.values().forEach(searchIndex::put);
+        epics.values().forEach(searchIndex::put);
+        subtasks.values().forEach(searchIndex::put);
+    }
 
-        boolean allNew = true;
-        boolean allDone = true;
+    private static void rebuildOrder(IntSortedSet order, IntObjectMap<? extends Task> entities) {
+        order.clear();
+        int[] ids = new int[entities.size()];
+        int count = 0;
+        for (int id : entities.keySet()) {
+            ids[count++] = id;
+        }
+        Arrays.sort(ids);
+        for (int id : ids) {
+            order.add(id);
+        }
+    }
 
-        for (int subtaskId : subtaskIds) {
-            Subtask subtask = subtasks.get(subtaskId);
-            if (subtask == null) continue;
+    private static void rebuildStatusIndex(StatusIndex index, IntObjectMap<? extends Task> entities) {
+        index.clear();
+        for (Task task : entities.values()) {
+            index.put(task.getId(), task.getStatus());
+        }
+    }
 
-            Status status = subtask.getStatus();
-            if (status != Status.NEW) allNew = false;
-            if (status != Status.DONE) allDone = false;
+    /**
+     * Заново строит prioritizedTasks: задачи сортируются одним проходом, а дерево
+     * собирается из отсортированной последовательности за линейное время.
+     */
+    protected void rebuildPrioritizedTasks() {
+        List<Task> scheduled = new ArrayList<>();
+        recurringTasks.clear();
+        for (Task task : tasks.values()) {
+            if (task.getRecurrence() != null) {
+                recurringTasks.put(task);
+            } else if (task.getStartTime() != null) {
+                scheduled.add(task);
+            }
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (subtask.getStartTime() != null) {
+                scheduled.add(subtask);
+            }
         }
+        Task[] sorted = scheduled.toArray(new Task[0]);
+        Arrays.parallelSort(sorted, PRIORITY_ORDER);
+        prioritizedTasks.rebuild(Arrays.asList(sorted));
+    }
 
-        if (allNew) {
-            epic.setStatus(Status.NEW);
-        } else if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+    private void removeFromEpic(int epicId, int subtaskId) {
+        EpicAggregate aggregate = epicAggregates.get(epicId);
+        aggregate.remove(subtaskId);
+        applyAggregate(epicId, aggregate);
+    }
+
+    private void applyAggregates(Set<Integer> epicIds) {
+        for (int epicId : epicIds) {
+            applyAggregate(epicId, epicAggregates.get(epicId));
         }
     }
 
-    protected void updateEpicTime(int epicId) {
+    private void applyAggregate(int epicId, EpicAggregate aggregate) {
         Epic epic = epics.get(epicId);
-        if (epic == null) return;
+        aggregate.applyTo(epic);
+        epicStatuses.put(epicId, epic.getStatus());
+    }
 
-        List<Subtask> epicSubtasks = getSubtasksByEpicId(epicId);
+    /**
+     * Сводка по подзадачам эпика, которая обновляется на разность при каждом изменении подзадачи.
+     * Она хранит счётчики статусов, сумму длительностей и мультимножества начал и концов.
+     * Вклад подзадачи запоминается при добавлении, поэтому его можно вычесть, даже если саму
+     * подзадачу уже изменили.
+     */
+    private static class EpicAggregate {
+        private final IntObjectMap<Contribution> contributions = new IntObjectMap<>();
+        private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+        private int newCount;
+        private int doneCount;
+        private Duration duration = Duration.ZERO;
 
-        if (epicSubtasks.isEmpty()) {
-            epic.setDuration(null);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            return;
+        void put(Subtask subtask) {
+            remove(subtask.getId());
+            Contribution contribution = new Contribution(subtask);
+            contributions.put(subtask.getId(), contribution);
+            if (contribution.status == Status.NEW) {
+                newCount++;
+            } else if (contribution.status == Status.DONE) {
+                doneCount++;
+            }
+            if (contribution.duration != null) {
+                duration = duration.plus(contribution.duration);
+            }
+            if (contribution.start != null) {
+                starts.merge(contribution.start, 1, Integer::sum);
+            }
+            if (contribution.end != null) {
+                ends.merge(contribution.end, 1, Integer::sum);
+            }
         }
 
-        epic.setDuration(calculateEpicDuration(epicSubtasks));
-        epic.setStartTime(calculateEpicStartTime(epicSubtasks));
-        epic.setEndTime(calculateEpicEndTime(epicSubtasks));
+        void remove(int subtaskId) {
+            Contribution contribution = contributions.remove(subtaskId);
+            if (contribution == null) {
+                return;
+            }
+            if (contribution.status == Status.NEW) {
+                newCount--;
+            } else if (contribution.status == Status.DONE) {
+                doneCount--;
+            }
+            if (contribution.duration != null) {
+                duration = duration.minus(contribution.duration);
+            }
+            if (contribution.start != null) {
+                decrement(starts, contribution.start);
+            }
+            if (contribution.end != null) {
+                decrement(ends, contribution.end);
+            }
+        }
+
+        void clear() {
+            contributions.clear();
+            starts.clear();
+            ends.clear();
+            newCount = 0;
+            doneCount = 0;
+            duration = Duration.ZERO;
+        }
+
+        void applyTo(Epic epic) {
+            int count = contributions.size();
+            if (count == 0) {
+                epic.setStatus(Status.NEW);
+                epic.setDuration(null);
+                epic.setStartTime(null);
+                epic.setEndTime(null);
+                return;
+            }
+            if (newCount == count) {
+                epic.setStatus(Status.NEW);
+            } else if (doneCount == count) {
+                epic.setStatus(Status.DONE);
+            } else {
+                epic.setStatus(Status.IN_PROGRESS);
+            }
+            epic.setDuration(duration);
+            epic.setStartTime(starts.isEmpty() ? null : starts.firstKey());
+            epic.setEndTime(ends.isEmpty() ? null : ends.lastKey());
+        }
+
+        private static void decrement(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+            multiset.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        }
     }
 
-    private Duration calculateEpicDuration(List<Subtask> epicSubtasks) {
-        return epicSubtasks.stream()
-                .map(Subtask::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration.ZERO, Duration::plus);
+    private static class Contribution {
+        final Status status;
+        final Duration duration;
+        final LocalDateTime start;
+        final LocalDateTime end;
+
+        Contribution(Subtask subtask) {
+            status = subtask.getStatus();
+            duration = subtask.getDuration();
+            start = subtask.getStartTime();
+            end = subtask.getEndTime();
+        }
     }
 
-    private LocalDateTime calculateEpicStartTime(List<Subtask> epicSubtasks) {
-        return epicSubtasks.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
+    private void addPrioritized(Task task) {
+        if (task.getRecurrence() != null) {
+            recurringTasks.put(task);
+        } else if (task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+        }
     }
 
-    private LocalDateTime calculateEpicEndTime(List<Subtask> epicSubtasks) {
-        return epicSubtasks.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
+    private void removePrioritized(int id) {
+        prioritizedTasks.remove(id);
+        recurringTasks.remove(id);
+    }
+
+    /**
+     * Проверяет время пакета за один проход: записи сортируются по началу, и каждая сравнивается
+     * с самой поздно заканчивающейся из предыдущих, а затем ищется в индексе. Пересечения с задачами
+     * из {@code replacedIds} не считаются — их прежнее время пакет заменяет.
+     */
+    private void validateBatchTime(List<? extends Task> batch, Set<Integer> replacedIds) {
+        List<Task> scheduled = new ArrayList<>();
+        List<Task> recurring = new ArrayList<>();
+        for (Task task : batch) {
+            if (task.getRecurrence() != null) {
+                recurring.add(task);
+            } else if (task.getStartTime() != null) {
+                scheduled.add(task);
+            }
+        }
+        validateRecurringBatch(recurring, scheduled, replacedIds);
+        scheduled.sort(Comparator.comparing(Task::getStartTime));
+
+        Task latest = null;
+        for (Task task : scheduled) {
+            if (latest != null && task.getStartTime().isBefore(TaskTimeIndex.endOf(latest))) {
+                throw batchOverlap(latest, task);
+            }
+            if (latest == null || TaskTimeIndex.endOf(task).isAfter(TaskTimeIndex.endOf(latest))) {
+                latest = task;
+            }
+        }
+
+        for (Task task : scheduled) {
+            List<Task> conflicts = new ArrayList<>();
+            for (Task conflict : prioritizedTasks.findOverlaps(task.getStartTime(), TaskTimeIndex.endOf(task), 0)) {
+                if (!replacedIds.contains(conflict.getId())) {
+                    conflicts.add(conflict);
+                }
+            }
+            conflicts.addAll(recurringTasks.overlapping(task.getStartTime(), TaskTimeIndex.endOf(task), replacedIds));
+            if (!conflicts.isEmpty()) {
+                throw overlapException(conflicts);
+            }
+        }
+    }
+
+    // Повторяющиеся задачи пакета сверяются с сохранёнными задачами, друг с другом и с обычными задачами пакета
+    private void validateRecurringBatch(List<Task> recurring, List<Task> scheduled, Set<Integer> replacedIds) {
+        for (int i = 0; i < recurring.size(); i++) {
+            Task task = recurring.get(i);
+            validateRecurring(task, replacedIds);
+            for (int j = 0; j < i; j++) {
+                if (RecurringTasks.collide(recurring.get(j), task)) {
+                    throw batchOverlap(recurring.get(j), task);
+                }
+            }
+            for (Task other : scheduled) {
+                if (RecurringTasks.occursDuring(task, other.getStartTime(), TaskTimeIndex.endOf(other))) {
+                    throw batchOverlap(task, other);
+                }
+            }
+        }
+    }
+
+    private static ManagerValidationException batchOverlap(Task first, Task second) {
+        return new ManagerValidationException("Задачи пакета «" + first.getTitle() + "» и «"
+                + second.getTitle() + "» пересекаются по времени", List.of(first, second));
     }
 
+    /**
+     * Интервалы задач полуоткрытые: задача может начаться ровно в момент окончания другой.
+     */
     private void validateTaskTime(Task task) {
+        if (task.getRecurrence() != null) {
+            validateRecurring(task, Set.of(task.getId()));
+            return;
+        }
         if (task.getStartTime() == null) {
             return;
         }
 
-        boolean hasOverlap = prioritizedTasks.stream()
-                .filter(t -> t.getId() != task.getId())
-                .filter(t -> t.getStartTime() != null && t.getEndTime() != null)
-                .anyMatch(t -> isTimeOverlap(t, task));
-
-        if (hasOverlap) {
-            throw new ManagerValidationException("Задача пересекается по времени с существующей задачей");
+        List<Task> conflicts = prioritizedTasks.findOverlaps(task.getStartTime(), TaskTimeIndex.endOf(task),
+                task.getId());
+        conflicts.addAll(recurringTasks.overlapping(task.getStartTime(), TaskTimeIndex.endOf(task),
+                Set.of(task.getId())));
+        if (!conflicts.isEmpty()) {
+            throw overlapException(conflicts);
         }
     }
 
-    private boolean isTimeOverlap(Task task1, Task task2) {
-        LocalDateTime start1 = task1.getStartTime();
-        LocalDateTime end1 = task1.getEndTime();
-        LocalDateTime start2 = task2.getStartTime();
-        LocalDateTime end2 = task2.getEndTime();
+    /**
+     * Повторяющаяся задача сверяется с обычными задачами начиная с её первого повторения и с
+     * остальными повторяющимися задачами; задачи из {@code excludedIds} не учитываются.
+     */
+    private void validateRecurring(Task task, Set<Integer> excludedIds) {
+        if (task.getType() != TaskType.TASK) {
+            throw new IllegalArgumentException("Повторяться могут только задачи, но не эпики и подзадачи");
+        }
+        if (task.getStartTime() == null) {
+            throw new IllegalArgumentException("У повторяющейся задачи должно быть время первого повторения");
+        }
+        // Иначе повторения задачи пересекались бы друг с другом
+        if (task.getDuration() != null && task.getDuration().compareTo(task.getRecurrence().getPeriod()) > 0) {
+            throw new IllegalArgumentException("Задача «" + task.getTitle() + "» длится дольше периода повторения "
+                    + task.getRecurrence().getPeriod().toDays() + " дн.");
+        }
+
+        List<Task> conflicts = new ArrayList<>();
+        for (Task candidate : prioritizedTasks.findOverlaps(task.getStartTime(), LocalDateTime.MAX, 0)) {
+            if (!excludedIds.contains(candidate.getId())
+                    && RecurringTasks.occursDuring(task, candidate.getStartTime(), TaskTimeIndex.endOf(candidate))) {
+                conflicts.add(candidate);
+            }
+        }
+        conflicts.addAll(recurringTasks.colliding(task, excludedIds));
+        if (!conflicts.isEmpty()) {
+            throw overlapException(conflicts);
+        }
+    }
 
-        return !(end1.isBefore(start2) || end2.isBefore(start1));
+    private static ManagerValidationException overlapException(List<Task> conflicts) {
+        String ids = conflicts.stream()
+                .map(conflict -> String.valueOf(conflict.getId()))
+                .collect(Collectors.joining(", "));
+        return new ManagerValidationException("Задача пересекается по времени с задачами: " + ids, conflicts);
     }
-}
\ No newline at end of file
+}
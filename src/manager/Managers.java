@@ -1,15 +1,72 @@
 package manager;
 
 import java.io.File;
+import java.util.Locale;
+import java.util.Properties;
 
 public class Managers {
+    /**
+     * Хранилище: {@code csv} (по умолчанию), {@code journal}, {@code binary}, {@code slotted} или {@code memory}.
+     */
+    public static final String STORAGE_PROPERTY = "tasks.storage";
+    /**
+     * Файл хранилища; по умолчанию {@code task_storage.csv}, {@code .bin} или {@code .slots}.
+     */
+    public static final String STORAGE_FILE_PROPERTY = "tasks.storage.file";
+    /**
+     * Имя константы {@link DurabilityPolicy}; по умолчанию {@code WRITE_THROUGH}.
+     */
+    public static final String DURABILITY_PROPERTY = "tasks.storage.durability";
+
+    private static final String DEFAULT_STORAGE = "csv";
     private static final File DEFAULT_STORAGE_FILE = new File("task_storage.csv");
 
+    /**
+     * Менеджер с хранилищем, выбранным системными свойствами ({@code -Dtasks.storage=journal}).
+     */
     public static TaskManager getDefault() {
-        return new FileBackedTaskManager(DEFAULT_STORAGE_FILE);
+        return getDefault(System.getProperties());
+    }
+
+    /**
+     * Менеджер поверх выбранного хранилища; уже сохранённые в нём задачи загружаются, и новые id
+     * продолжают их нумерацию.
+     */
+    public static TaskManager getDefault(Properties config) {
+        return FileBackedTaskManager.load(getStorage(config));
+    }
+
+    public static TaskStorage getStorage(Properties config) {
+        String storage = config.getProperty(STORAGE_PROPERTY, DEFAULT_STORAGE).trim().toLowerCase(Locale.ROOT);
+        DurabilityPolicy policy = DurabilityPolicy.valueOf(config.getProperty(DURABILITY_PROPERTY,
+                DurabilityPolicy.WRITE_THROUGH.name()).trim().toUpperCase(Locale.ROOT));
+
+        switch (storage) {
+            case "memory":
+                return new NoopTaskStorage();
+            case "csv":
+                return new FileTaskStorage(storageFile(config, DEFAULT_STORAGE_FILE), false, policy,
+                        StorageFormat.CSV);
+            case "journal":
+                return new FileTaskStorage(storageFile(config, DEFAULT_STORAGE_FILE), true, policy,
+                        StorageFormat.CSV);
+            case "binary":
+                return new FileTaskStorage(storageFile(config, new File("task_storage.bin")), false, policy,
+                        StorageFormat.BINARY);
+            case "slotted":
+                return new FileTaskStorage(storageFile(config, new File("task_storage.slots")), false, policy,
+                        StorageFormat.SLOTTED);
+            default:
+                throw new IllegalArgumentException("Неизвестное хранилище задач: " + storage);
+        }
     }
 
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
-}
\ No newline at end of file
+
+    private static File storageFile(Properties config, File defaultFile) {
+        String path = config.getProperty(STORAGE_FILE_PROPERTY);
+        return path == null || path.isBlank() ? defaultFile : new File(path.trim());
+    }
+}
@@ -0,0 +1,23 @@
+package manager;
+
+/**
+ * Хранилище, которое ничего не сохраняет: состояние живёт только в памяти процесса.
+ */
+public class NoopTaskStorage implements TaskStorage {
+    @Override
+    public boolean load(StorageState state) {
+        return false;
+    }
+
+    @Override
+    public void apply(StorageMutation mutation, StorageState state) {
+    }
+
+    @Override
+    public void flush(StorageState state) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
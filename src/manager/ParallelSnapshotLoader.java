@@ -0,0 +1,202 @@
+package manager;
+
+import exceptions.ManagerSaveException;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Чтение снимка хранилища в формате CSV для больших файлов.
+ *
+ * <p>Область строк задач делится на куски, выровненные по границам строк. Каждый кусок
+ * отображается в память и разбирается отдельной задачей в {@link ForkJoinPool}, результаты
+ * склеиваются в исходном порядке. Секция истории (последняя строка после пустой) читается отдельно.
+ */
+class ParallelSnapshotLoader {
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int SCAN_BLOCK_SIZE = 8 * 1024;
+
+    static class Result {
+        final List<Task> rows;
+        final List<Integer> historyIds;
+
+        Result(List<Task> rows, List<Integer> historyIds) {
+            this.rows = rows;
+            this.historyIds = historyIds;
+        }
+    }
+
+    static Result load(File file) {
+        return load(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    static Result load(File file, int chunkSize) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new Result(new ArrayList<>(), new ArrayList<>());
+            }
+
+            long dataStart = 0;
+            boolean escaped = false;
+            if (startsWith(channel, "id")) {
+                long headerEnd = indexOf(channel, 0, size);
+                if (headerEnd < 0) {
+                    return new Result(new ArrayList<>(), new ArrayList<>());
+                }
+                dataStart = headerEnd + 1;
+                escaped = TaskCsvCodec.isEscapedHeader(read(channel, 0, headerEnd).stripTrailing());
+            }
+            boolean escapedRows = escaped;
+
+            // История — единственная строка после пустой; в ней нет переводов строк
+            long lastNewline = lastIndexOf(channel, size);
+            long dataEnd = size;
+            List<Integer> historyIds = new ArrayList<>();
+            if (lastNewline >= dataStart && (lastNewline == dataStart || byteAt(channel, lastNewline - 1) == '\n')) {
+                dataEnd = lastNewline;
+                historyIds = parseHistory(read(channel, lastNewline + 1, size - lastNewline - 1));
+            }
+
+            List<long[]> chunks = split(channel, dataStart, dataEnd, chunkSize);
+            List<List<Task>> parsed = IntStream.range(0, chunks.size())
+                    .parallel()
+                    .mapToObj(i -> parseChunk(channel, chunks.get(i), escapedRows))
+                    .collect(Collectors.toList());
+
+            int total = 0;
+            for (List<Task> chunkRows : parsed) {
+                total += chunkRows.size();
+            }
+            List<Task> rows = new ArrayList<>(total);
+            for (List<Task> chunkRows : parsed) {
+                rows.addAll(chunkRows);
+            }
+            return new Result(rows, historyIds);
+        } catch (IOException | UncheckedIOException e) {
+            throw new ManagerSaveException("Ошибка чтения файла", e);
+        }
+    }
+
+    // Границы кусков сдвигаются вперёд до ближайшего перевода строки
+    private static List<long[]> split(FileChannel channel, long start, long end, int chunkSize) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long chunkStart = start;
+        while (chunkStart < end) {
+            long chunkEnd = chunkStart + chunkSize;
+            if (chunkEnd >= end) {
+                chunkEnd = end;
+            } else {
+                long newline = indexOf(channel, chunkEnd, end);
+                chunkEnd = newline < 0 ? end : newline + 1;
+            }
+            chunks.add(new long[]{chunkStart, chunkEnd});
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    private static List<Task> parseChunk(FileChannel channel, long[] chunk, boolean escaped) {
+        String text;
+        try {
+            text = read(channel, chunk[0], chunk[1] - chunk[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        TaskCsvCodec codec = new TaskCsvCodec(escaped);
+        List<Task> rows = new ArrayList<>();
+        int lineStart = 0;
+        int length = text.length();
+        while (lineStart < length) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            if (lineEnd > lineStart && !text.startsWith("id", lineStart)) {
+                rows.add(codec.decode(text, lineStart, lineEnd));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return rows;
+    }
+
+    private static List<Integer> parseHistory(String value) {
+        List<Integer> historyIds = new ArrayList<>();
+        for (String id : value.split(",")) {
+            if (!id.isBlank()) {
+                historyIds.add(Integer.parseInt(id.trim()));
+            }
+        }
+        return historyIds;
+    }
+
+    private static String read(FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Слишком большой фрагмент файла: " + length);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        byte[] bytes = new byte[(int) length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean startsWith(FileChannel channel, String prefix) throws IOException {
+        if (channel.size() < prefix.length()) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(prefix.length());
+        channel.read(buffer, 0);
+        return new String(buffer.array(), StandardCharsets.UTF_8).equals(prefix);
+    }
+
+    private static byte byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, position);
+        return buffer.get(0);
+    }
+
+    // Позиция первого '\n' в [from, to) или -1
+    private static long indexOf(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        for (long blockStart = from; blockStart < to; blockStart += SCAN_BLOCK_SIZE) {
+            buffer.clear();
+            buffer.limit((int) Math.min(SCAN_BLOCK_SIZE, to - blockStart));
+            int read = channel.read(buffer, blockStart);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return blockStart + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Позиция последнего '\n' в [0, to) или -1
+    private static long lastIndexOf(FileChannel channel, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        for (long blockEnd = to; blockEnd > 0; blockEnd -= SCAN_BLOCK_SIZE) {
+            long blockStart = Math.max(0, blockEnd - SCAN_BLOCK_SIZE);
+            buffer.clear();
+            buffer.limit((int) (blockEnd - blockStart));
+            int read = channel.read(buffer, blockStart);
+            for (int i = read - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return blockStart + i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,370 @@
+package manager;
+
+import task.Recurrence;
+import task.Task;
+import util.IntObjectMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Повторяющиеся задачи. Каждая хранится один раз, а её повторения вычисляются по правилу только
+ * для запрошенного окна: k-е повторение начинается в {@code start + k * period}, поэтому первое
+ * повторение после любого момента находится арифметикой за O(1), без перебора предыдущих.
+ *
+ * <p>Повторение — копия задачи с тем же id и правилом и временем начала этого повторения.
+ * Пересечения считаются так же, как в {@link TaskTimeIndex}: интервалы полуоткрытые, задача без
+ * длительности занимает точку. Не потокобезопасно.
+ */
+class RecurringTasks {
+    private final IntObjectMap<Task> tasks = new IntObjectMap<>();
+
+    void put(Task task) {
+        tasks.put(task.getId(), task);
+    }
+
+    void remove(int id) {
+        tasks.remove(id);
+    }
+
+    void clear() {
+        tasks.clear();
+    }
+
+    boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    Collection<Task> values() {
+        return tasks.values();
+    }
+
+    /**
+     * Сохранённые повторяющиеся задачи, кроме {@code excludedIds}, у которых есть повторение,
+     * пересекающееся с {@code [start, end)}.
+     */
+    List<Task> overlapping(LocalDateTime start, LocalDateTime end, Set<Integer> excludedIds) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (!excludedIds.contains(task.getId()) && occursDuring(task, start, end)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Сохранённые повторяющиеся задачи, кроме {@code excludedIds}, повторения которых пересекаются
+     * с повторениями {@code task}.
+     */
+    List<Task> colliding(Task task, Set<Integer> excludedIds) {
+        List<Task> result = new ArrayList<>();
+        for (Task other : tasks.values()) {
+            if (!excludedIds.contains(other.getId()) && collide(task, other)) {
+                result.add(other);
+            }
+        }
+        return result;
+    }
+
+    // Окно и пересечения
+
+    /**
+     * Повторения с началом в {@code [from, to)} по возрастанию начала, не больше {@code limit};
+     * границы {@code null} не ограничивают.
+     *
+     * @throws IllegalArgumentException если окно и лимит не ограничены, а есть бесконечное правило
+     */
+    static List<Task> occurrences(Collection<Task> recurring, LocalDateTime from, LocalDateTime to, int limit) {
+        if (to == null && limit == Integer.MAX_VALUE) {
+            for (Task task : recurring) {
+                if (!task.getRecurrence().isBounded()) {
+                    throw new IllegalArgumentException("Бесконечно повторяющуюся задачу «" + task.getTitle()
+                            + "» нельзя развернуть без верхней границы или лимита");
+                }
+            }
+        }
+        Cursor cursor = new Cursor(recurring, from, to);
+        List<Task> result = new ArrayList<>();
+        while (result.size() < limit && cursor.hasNext()) {
+            result.add(cursor.next());
+        }
+        return result;
+    }
+
+    /**
+     * Сливает два списка, упорядоченных по началу, и оставляет первые {@code limit} задач.
+     */
+    static List<Task> merge(List<Task> first, List<Task> second, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(first.size() + second.size(), Math.max(limit, 0)));
+        int i = 0;
+        int j = 0;
+        while (result.size() < limit && (i < first.size() || j < second.size())) {
+            if (j == second.size() || i < first.size()
+                    && InMemoryTaskManager.PRIORITY_ORDER.compare(first.get(i), second.get(j)) <= 0) {
+                result.add(first.get(i++));
+            } else {
+                result.add(second.get(j++));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Наибольший конец среди обычных задач ({@code busyUntil}) и повторений, начавшихся раньше {@code from}.
+     */
+    static LocalDateTime busyUntil(Collection<Task> recurring, LocalDateTime from, LocalDateTime busyUntil) {
+        for (Task task : recurring) {
+            // Повторение, начавшееся до окна, может занимать его начало
+            long index = Math.min(firstStartingAfter(task, from, true) - 1, lastIndex(task));
+            if (index >= 0) {
+                LocalDateTime end = endOf(task, startOf(task, index));
+                busyUntil = busyUntil == null || end.isAfter(busyUntil) ? end : busyUntil;
+            }
+        }
+        return busyUntil;
+    }
+
+    /**
+     * Есть ли у повторяющейся задачи повторение, пересекающееся с {@code [start, end)}.
+     */
+    static boolean occursDuring(Task task, LocalDateTime start, LocalDateTime end) {
+        // Первое повторение, которое заканчивается позже start
+        long index = firstStartingAfter(task, start.minus(durationOf(task)), false);
+        return index <= lastIndex(task) && startOf(task, index).isBefore(end)
+                && endOf(task, startOf(task, index)).isAfter(start);
+    }
+
+    /**
+     * Пересекаются ли повторения двух повторяющихся задач. Повторения i и j пересекаются, если разность
+     * их начал {@code offset + j * period2 - i * period1} лежит в {@code (-duration2, duration1)}, то есть
+     * {@code j * b - i * a = k} для одного из немногих k, где {@code a} и {@code b} — периоды, делённые на
+     * их НОД. Для каждого k решения образуют прямую {@code (i0 + b * m, j0 + a * m)}, и наличие решения
+     * в границах номеров повторений проверяется за O(1), без перебора самих повторений.
+     */
+    static boolean collide(Task first, Task second) {
+        long firstLast = lastIndex(first);
+        long secondLast = lastIndex(second);
+        if (firstLast < 0 || secondLast < 0) {
+            return false;
+        }
+        long firstPeriod = periodSeconds(first);
+        long secondPeriod = periodSeconds(second);
+        long step = gcd(firstPeriod, secondPeriod);
+        long a = firstPeriod / step;
+        long b = secondPeriod / step;
+        long offset = Duration.between(first.getStartTime(), second.getStartTime()).getSeconds();
+        long firstDuration = durationOf(first).getSeconds();
+        long secondDuration = durationOf(second).getSeconds();
+        // Длительности не больше периодов, поэтому k не больше a + b + 1
+        long fromK = -Math.floorDiv(secondDuration - 1 + offset, step);
+        long toK = Math.floorDiv(firstDuration - 1 - offset, step);
+        long inverse = a == 1 ? 0 : modInverse(b % a, a);
+        for (long k = fromK; k <= toK; k++) {
+            long j0 = Math.floorMod(Math.floorMod(k, a) * inverse, a);
+            long i0 = (j0 * b - k) / a;
+            // j = j0 + a * m >= 0 при m >= 0, поскольку 0 <= j0 < a
+            long lowest = Math.max(0, -Math.floorDiv(i0, b));
+            long highest = Long.MAX_VALUE;
+            if (secondLast != Long.MAX_VALUE) {
+                highest = Math.floorDiv(secondLast - j0, a);
+            }
+            if (firstLast != Long.MAX_VALUE) {
+                highest = Math.min(highest, Math.floorDiv(firstLast - i0, b));
+            }
+            if (lowest <= highest) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Повторения окна по возрастанию начала, вычисляемые по одному: для каждого правила хранится
+     * номер следующего повторения, а правила упорядочены в очереди по его началу. Следующее
+     * повторение стоит O(log R), где R — число правил.
+     */
+    static class Cursor {
+        private final PriorityQueue<Position> queue = new PriorityQueue<>();
+        private final LocalDateTime to;
+
+        Cursor(Collection<Task> recurring, LocalDateTime from, LocalDateTime to) {
+            this.to = to;
+            for (Task task : recurring) {
+                offer(task, from == null ? 0 : firstStartingAfter(task, from, true), lastIndex(task));
+            }
+        }
+
+        boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        /**
+         * Начинается ли следующее повторение раньше задачи {@code task} в порядке приоритета.
+         */
+        boolean isBefore(Task task) {
+            Position head = queue.peek();
+            return head != null && InMemoryTaskManager.PRIORITY_ORDER.compare(head.occurrence, task) < 0;
+        }
+
+        Task next() {
+            Position head = queue.poll();
+            offer(head.task, head.index + 1, head.last);
+            return head.occurrence;
+        }
+
+        private void offer(Task task, long index, long last) {
+            if (index > last) {
+                return;
+            }
+            LocalDateTime start = startOf(task, index);
+            if (to == null || start.isBefore(to)) {
+                queue.add(new Position(task, index, last, occurrence(task, start)));
+            }
+        }
+    }
+
+    private static class Position implements Comparable<Position> {
+        final Task task;
+        final long index;
+        final long last;
+        final Task occurrence;
+
+        Position(Task task, long index, long last, Task occurrence) {
+            this.task = task;
+            this.index = index;
+            this.last = last;
+            this.occurrence = occurrence;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            return InMemoryTaskManager.PRIORITY_ORDER.compare(occurrence, other.occurrence);
+        }
+    }
+
+    /**
+     * Вставляет повторения окна между обычными задачами, которые источник передаёт по порядку начала,
+     * и передаёт всё вместе {@code target}, пока тот возвращает {@code true}. Повторения вычисляются
+     * только по мере обхода, поэтому остановка {@code target} останавливает и их.
+     */
+    static class Merger implements Predicate<Task> {
+        private final Cursor cursor;
+        private final Predicate<Task> target;
+
+        Merger(Collection<Task> recurring, LocalDateTime from, LocalDateTime to, Predicate<Task> target) {
+            this.cursor = new Cursor(recurring, from, to);
+            this.target = target;
+        }
+
+        @Override
+        public boolean test(Task task) {
+            while (cursor.isBefore(task)) {
+                if (!target.test(cursor.next())) {
+                    return false;
+                }
+            }
+            return target.test(task);
+        }
+
+        /**
+         * Передаёт повторения, оставшиеся после последней обычной задачи.
+         */
+        void finish() {
+            boolean accepted = true;
+            while (accepted && cursor.hasNext()) {
+                accepted = target.test(cursor.next());
+            }
+        }
+    }
+
+    // Арифметика повторений
+
+    // Номер последнего повторения; Long.MAX_VALUE для бесконечного правила, -1, если повторений нет
+    static long lastIndex(Task task) {
+        Recurrence recurrence = task.getRecurrence();
+        if (recurrence.getCount() != null) {
+            return recurrence.getCount() - 1;
+        }
+        if (recurrence.getUntil() != null) {
+            if (recurrence.getUntil().isBefore(task.getStartTime())) {
+                return -1;
+            }
+            return firstStartingAfter(task, recurrence.getUntil(), false) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // Номер первого повторения с началом позже time (или не раньше time при inclusive)
+    static long firstStartingAfter(Task task, LocalDateTime time, boolean inclusive) {
+        long period = periodSeconds(task);
+        long index = Math.max(0, Math.floorDiv(Duration.between(task.getStartTime(), time).getSeconds(), period));
+        // Оценка по целым секундам может ошибиться на единицу в любую сторону
+        while (index > 0 && isAfter(startOf(task, index - 1), time, inclusive)) {
+            index--;
+        }
+        while (!isAfter(startOf(task, index), time, inclusive)) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isAfter(LocalDateTime start, LocalDateTime time, boolean inclusive) {
+        return inclusive ? !start.isBefore(time) : start.isAfter(time);
+    }
+
+    static LocalDateTime startOf(Task task, long index) {
+        return task.getStartTime().plus(task.getRecurrence().getPeriod().multipliedBy(index));
+    }
+
+    private static LocalDateTime endOf(Task task, LocalDateTime start) {
+        return start.plus(durationOf(task));
+    }
+
+    private static Duration durationOf(Task task) {
+        return task.getDuration() == null ? Duration.ZERO : task.getDuration();
+    }
+
+    private static long periodSeconds(Task task) {
+        return task.getRecurrence().getPeriod().getSeconds();
+    }
+
+    // x, при котором value * x ≡ 1 (mod modulus); value и modulus взаимно просты
+    private static long modInverse(long value, long modulus) {
+        long oldR = value;
+        long r = modulus;
+        long oldS = 1;
+        long s = 0;
+        while (r != 0) {
+            long quotient = oldR / r;
+            long next = oldR - quotient * r;
+            oldR = r;
+            r = next;
+            next = oldS - quotient * s;
+            oldS = s;
+            s = next;
+        }
+        return Math.floorMod(oldS, modulus);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    private static Task occurrence(Task task, LocalDateTime start) {
+        Task occurrence = new Task(task);
+        occurrence.setStartTime(start);
+        return occurrence;
+    }
+}
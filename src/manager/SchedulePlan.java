@@ -0,0 +1,76 @@
+package manager;
+
+import task.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Результат автопланирования: назначенное время задач в порядке начала и id задач, которые
+ * не поместились в окно или не имеют длительности.
+ */
+public final class SchedulePlan {
+    private final List<Assignment> assignments;
+    private final List<Integer> unscheduledIds;
+    private final boolean applied;
+
+    SchedulePlan(List<Assignment> assignments, List<Integer> unscheduledIds, boolean applied) {
+        this.assignments = assignments;
+        this.unscheduledIds = unscheduledIds;
+        this.applied = applied;
+    }
+
+    public List<Assignment> getAssignments() {
+        return assignments;
+    }
+
+    public List<Integer> getUnscheduledIds() {
+        return unscheduledIds;
+    }
+
+    /**
+     * @return {@code false} для пробного запуска: время задачам не назначено
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public static final class Assignment {
+        private final int taskId;
+        private final TaskType type;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final boolean late;
+
+        Assignment(int taskId, TaskType type, LocalDateTime start, LocalDateTime end, boolean late) {
+            this.taskId = taskId;
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.late = late;
+        }
+
+        public int getTaskId() {
+            return taskId;
+        }
+
+        public TaskType getType() {
+            return type;
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public LocalDateTime getEnd() {
+            return end;
+        }
+
+        /**
+         * @return {@code true}, если задача заканчивается позже своего срока
+         */
+        public boolean isLate() {
+            return late;
+        }
+    }
+}
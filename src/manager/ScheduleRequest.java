@@ -0,0 +1,77 @@
+package manager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры автопланирования: окно {@code [from, to)}, в которое раскладываются задачи и подзадачи
+ * без времени начала, и необязательные приоритеты и сроки по id задач. Задачи не хранят приоритет
+ * и срок, поэтому они передаются вместе с запросом.
+ */
+public class ScheduleRequest {
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final boolean dryRun;
+    private Duration defaultDuration;
+    private final Map<Integer, Integer> priorities = new HashMap<>();
+    private final Map<Integer, LocalDateTime> deadlines = new HashMap<>();
+
+    /**
+     * @param dryRun если {@code true}, план только рассчитывается, задачи не меняются
+     */
+    public ScheduleRequest(LocalDateTime from, LocalDateTime to, boolean dryRun) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Некорректное окно планирования: " + from + " — " + to);
+        }
+        this.from = from;
+        this.to = to;
+        this.dryRun = dryRun;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public Duration getDefaultDuration() {
+        return defaultDuration;
+    }
+
+    /**
+     * Длительность для задач без неё; если не задана, такие задачи не планируются.
+     */
+    public void setDefaultDuration(Duration defaultDuration) {
+        this.defaultDuration = defaultDuration;
+    }
+
+    /**
+     * Больший приоритет планируется раньше при равном сроке; по умолчанию 0.
+     */
+    public void setPriority(int taskId, int priority) {
+        priorities.put(taskId, priority);
+    }
+
+    public int getPriority(int taskId) {
+        return priorities.getOrDefault(taskId, 0);
+    }
+
+    public void setDeadline(int taskId, LocalDateTime deadline) {
+        deadlines.put(taskId, deadline);
+    }
+
+    /**
+     * @return срок задачи или {@code null}, если он не задан
+     */
+    public LocalDateTime getDeadline(int taskId) {
+        return deadlines.get(taskId);
+    }
+}
@@ -0,0 +1,178 @@
+package manager;
+
+import task.Task;
+import util.IntObjectMap;
+import util.IntOrderedSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Инвертированный индекс по названиям и описаниям задач. Слова — последовательности букв
+ * и цифр любого алфавита, приведённые к нижнему регистру; «ё» считается «е».
+ *
+ * <p>Задача находится, если каждое слово запроса встречается в её названии или описании;
+ * последнее слово запроса может быть началом слова, чтобы искать по мере ввода. Совпадения
+ * в названии весят больше, чем в описании.
+ */
+class SearchIndex {
+    private static final int TITLE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Слово -> id задач; упорядочено, чтобы искать по началу слова
+    private final TreeMap<String, IntOrderedSet> postings = new TreeMap<>();
+    private final IntObjectMap<Document> documents = new IntObjectMap<>();
+
+    private static class Document {
+        final Set<String> titleWords;
+        final Set<String> words;
+
+        Document(Set<String> titleWords, Set<String> words) {
+            this.titleWords = titleWords;
+            this.words = words;
+        }
+    }
+
+    private static class Match {
+        final int id;
+        final int score;
+
+        Match(int id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Индексирует задачу; прежние слова той же задачи удаляются.
+     */
+    void put(Task task) {
+        remove(task.getId());
+        Set<String> titleWords = tokenize(task.getTitle());
+        Set<String> words = new HashSet<>(titleWords);
+        words.addAll(tokenize(task.getDescription()));
+        documents.put(task.getId(), new Document(titleWords, words));
+        for (String word : words) {
+            postings.computeIfAbsent(word, key -> new IntOrderedSet()).add(task.getId());
+        }
+    }
+
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String word : document.words) {
+            IntOrderedSet ids = postings.get(word);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        documents.clear();
+    }
+
+    /**
+     * Id найденных задач: сначала с большим весом совпадений, при равном весе — по id.
+     */
+    List<Integer> search(String query, int limit) {
+        List<String> words = new ArrayList<>(tokenize(query));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String prefix = words.remove(words.size() - 1);
+
+        // Пересечение начинаем с самого короткого списка точных слов
+        IntOrderedSet smallest = null;
+        for (String word : words) {
+            IntOrderedSet ids = postings.get(word);
+            if (ids == null) {
+                return List.of();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        Map<String, IntOrderedSet> prefixed = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (prefixed.isEmpty()) {
+            return List.of();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        if (smallest != null) {
+            smallest.forEach(id -> collect(id, words, prefix, matches));
+        } else {
+            Set<Integer> seen = new HashSet<>();
+            for (IntOrderedSet ids : prefixed.values()) {
+                ids.forEach(id -> {
+                    if (seen.add(id)) {
+                        collect(id, words, prefix, matches);
+                    }
+                });
+            }
+        }
+        matches.sort(Comparator.comparingInt((Match match) -> -match.score).thenComparingInt(match -> match.id));
+
+        List<Integer> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            result.add(matches.get(i).id);
+        }
+        return result;
+    }
+
+    private void collect(int id, List<String> words, String prefix, List<Match> matches) {
+        Document document = documents.get(id);
+        int score = 0;
+        for (String word : words) {
+            if (!document.words.contains(word)) {
+                return;
+            }
+            score += document.titleWords.contains(word) ? TITLE_WEIGHT : DESCRIPTION_WEIGHT;
+        }
+        int prefixScore = 0;
+        for (String word : document.words) {
+            if (word.startsWith(prefix)) {
+                prefixScore = document.titleWords.contains(word) ? TITLE_WEIGHT : DESCRIPTION_WEIGHT;
+                if (prefixScore == TITLE_WEIGHT) {
+                    break;
+                }
+            }
+        }
+        if (prefixScore > 0) {
+            matches.add(new Match(id, score + prefixScore));
+        }
+    }
+
+    /**
+     * Разбивает текст на слова в порядке появления без повторов.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
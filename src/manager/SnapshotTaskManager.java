@@ -0,0 +1,589 @@
+package manager;
+
+import exceptions.NotFoundException;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+import task.TimeSlot;
+import util.PersistentIntMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Менеджер задач с многоверсионным чтением. Записи по одной выполняются в {@code delegate}, после
+ * каждой записи (или пакета записей, см. {@link #batch(Runnable)}) публикуется новый неизменяемый
+ * {@link TaskSnapshot}. Чтения берут текущий снимок и никогда не ждут писателей, а изменения
+ * видны им только целиком — например, эпик после {@code updateSubtask} виден сразу с новым
+ * статусом и временем.
+ *
+ * <p>Таблицы, приоритетный список и история снимка — неизменяемые деревья. При публикации из
+ * {@code delegate} перечитываются по id только изменённые задачи, и их копии вставляются в новую
+ * версию с копированием лишь путей к ним, поэтому запись k задач стоит O(k · log N), а остальные
+ * задачи и поддеревья разделяются с предыдущей версией. Целиком таблицы строятся заново только
+ * после массового удаления. Просмотр добавляет в историю версии одну запись, не копируя её.
+ *
+ * <p>Просмотр по id читает задачу из снимка, но запись в историю — это запись, поэтому она
+ * выполняется под блокировкой писателей. Поиск тоже идёт под ней: он использует индекс
+ * {@code delegate}, который соответствует последней опубликованной версии.
+ */
+public class SnapshotTaskManager implements TaskManager {
+    private final TaskManager delegate;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile TaskSnapshot snapshot;
+
+    // Изменения, накопленные с последней публикации; доступны только под writeLock
+    private final Map<TaskType, Set<Integer>> changedIds = new EnumMap<>(TaskType.class);
+    private final Set<TaskType> rewrittenTypes = EnumSet.noneOf(TaskType.class);
+    // Копии просмотренных задач в порядке просмотра
+    private final List<Task> views = new ArrayList<>();
+    // История delegate изменилась не только просмотрами и удалениями, её нужно перечитать целиком
+    private boolean historyRewritten;
+    private int batchDepth;
+
+    public SnapshotTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+        this.snapshot = TaskSnapshot.EMPTY;
+        writeLock.lock();
+        try {
+            // delegate может быть уже заполнен, например загружен из файла
+            rewrittenTypes.addAll(EnumSet.allOf(TaskType.class));
+            historyRewritten = true;
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Текущая опубликованная версия; все чтения из неё согласованы между собой.
+     */
+    public TaskSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Выполняет записи через этот менеджер и публикует их одной версией: читатели увидят либо
+     * состояние до пакета, либо после него целиком.
+     */
+    public void batch(Runnable writes) {
+        write(writes);
+    }
+
+    // Методы для задач
+    @Override
+    public List<Task> getAllTasks() {
+        return snapshot.getAllTasks();
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(() -> {
+            delegate.deleteAllTasks();
+            rewrite(TaskType.TASK);
+        });
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = snapshot.tasks().get(id);
+        if (task == null) {
+            throw new NotFoundException("Задача с id=" + id + " не найдена");
+        }
+        recordView(delegate::getTaskById, id);
+        return new Task(task);
+    }
+
+    @Override
+    public void createTask(Task task) {
+        write(() -> {
+            delegate.createTask(task);
+            changed(TaskType.TASK, task.getId());
+        });
+    }
+
+    @Override
+    public void createTasks(List<Task> tasks) {
+        write(() -> {
+            delegate.createTasks(tasks);
+            for (Task task : tasks) {
+                changed(TaskType.TASK, task.getId());
+            }
+        });
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> {
+            delegate.updateTask(task);
+            changed(TaskType.TASK, task.getId());
+        });
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        write(() -> {
+            delegate.deleteTask(id);
+            changed(TaskType.TASK, id);
+        });
+    }
+
+    // Методы для эпиков
+    @Override
+    public List<Epic> getAllEpics() {
+        return snapshot.getAllEpics();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(() -> {
+            delegate.deleteAllEpics();
+            rewrite(TaskType.EPIC);
+            rewrite(TaskType.SUBTASK);
+        });
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = snapshot.epics().get(id);
+        if (epic == null) {
+            throw new NotFoundException("Эпик с id=" + id + " не найдена");
+        }
+        recordView(delegate::getEpicById, id);
+        return new Epic(epic);
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        write(() -> {
+            delegate.createEpic(epic);
+            changed(TaskType.EPIC, epic.getId());
+        });
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> {
+            delegate.updateEpic(epic);
+            changed(TaskType.EPIC, epic.getId());
+        });
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        write(() -> {
+            Epic epic = snapshot.epics().get(id);
+            delegate.deleteEpic(id);
+            changed(TaskType.EPIC, id);
+            if (epic != null) {
+                for (int subtaskId : epic.getSubtaskIds()) {
+                    changed(TaskType.SUBTASK, subtaskId);
+                }
+            }
+        });
+    }
+
+    // Методы для подзадач
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return snapshot.getAllSubtasks();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(() -> {
+            delegate.deleteAllSubtasks();
+            rewrite(TaskType.SUBTASK);
+            rewrite(TaskType.EPIC);
+        });
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = snapshot.subtasks().get(id);
+        if (subtask == null) {
+            throw new NotFoundException("Подзадача с id=" + id + " не найдена");
+        }
+        recordView(delegate::getSubtaskById, id);
+        return new Subtask(subtask);
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        write(() -> {
+            delegate.createSubtask(subtask);
+            changed(TaskType.SUBTASK, subtask.getId());
+            changed(TaskType.EPIC, subtask.getEpicId());
+        });
+    }
+
+    @Override
+    public void createSubtasks(List<Subtask> subtasks) {
+        write(() -> {
+            delegate.createSubtasks(subtasks);
+            for (Subtask subtask : subtasks) {
+                changed(TaskType.SUBTASK, subtask.getId());
+                changed(TaskType.EPIC, subtask.getEpicId());
+            }
+        });
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> {
+            Subtask existing = snapshot.subtasks().get(subtask.getId());
+            delegate.updateSubtask(subtask);
+            changed(TaskType.SUBTASK, subtask.getId());
+            changed(TaskType.EPIC, subtask.getEpicId());
+            if (existing != null) {
+                changed(TaskType.EPIC, existing.getEpicId());
+            }
+        });
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        write(() -> {
+            Subtask existing = snapshot.subtasks().get(id);
+            delegate.deleteSubtask(id);
+            changed(TaskType.SUBTASK, id);
+            if (existing != null) {
+                changed(TaskType.EPIC, existing.getEpicId());
+            }
+        });
+    }
+
+    @Override
+    public void updateMany(List<? extends Task> updates) {
+        write(() -> {
+            Map<Integer, Integer> previousEpics = new HashMap<>();
+            for (Task update : updates) {
+                Subtask existing = snapshot.subtasks().get(update.getId());
+                if (update.getType() == TaskType.SUBTASK && existing != null) {
+                    previousEpics.put(existing.getId(), existing.getEpicId());
+                }
+            }
+            delegate.updateMany(updates);
+            for (Task update : updates) {
+                changed(update.getType(), update.getId());
+                if (update.getType() == TaskType.SUBTASK) {
+                    changed(TaskType.EPIC, ((Subtask) update).getEpicId());
+                    Integer previousEpic = previousEpics.get(update.getId());
+                    if (previousEpic != null) {
+                        changed(TaskType.EPIC, previousEpic);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Транзакция публикуется одной версией, как {@link #batch(Runnable)}; при откате публикуется
+     * состояние {@code delegate} после отката.
+     */
+    @Override
+    public void inTransaction(Consumer<TaskManager> transaction) {
+        write(() -> {
+            try {
+                delegate.inTransaction(tx -> transaction.accept(this));
+            } catch (RuntimeException | Error e) {
+                // Откат вернул delegate прежнюю историю
+                historyRewritten = true;
+                throw e;
+            }
+        });
+    }
+
+    // Дополнительные методы
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        return snapshot.getSubtasksByEpicId(epicId);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return snapshot.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return snapshot.getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return snapshot.getPrioritizedTasks(from, to, limit);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        return snapshot.findFreeSlots(duration, from, to, limit);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return snapshot.getTasksPage(afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return snapshot.getEpicsPage(afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return snapshot.getSubtasksPage(afterId, limit);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return snapshot.getTasksByStatus(status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return snapshot.getEpicsByStatus(status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return snapshot.getSubtasksByStatus(status);
+    }
+
+    /**
+     * Пробный запуск планирует по текущему снимку без блокировок; применение идёт через
+     * delegate и публикуется одной версией.
+     */
+    @Override
+    public SchedulePlan schedule(ScheduleRequest request) {
+        if (request.isDryRun()) {
+            return snapshot.schedule(request);
+        }
+        SchedulePlan[] plan = new SchedulePlan[1];
+        write(() -> {
+            plan[0] = delegate.schedule(request);
+            for (SchedulePlan.Assignment assignment : plan[0].getAssignments()) {
+                changed(assignment.getType(), assignment.getTaskId());
+                if (assignment.getType() == TaskType.SUBTASK) {
+                    changed(TaskType.EPIC, snapshot.subtasks().get(assignment.getTaskId()).getEpicId());
+                }
+            }
+        });
+        return plan[0];
+    }
+
+    // Зависимости не входят в снимок: изменения не публикуют новую версию, а чтения идут через delegate
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        write(() -> delegate.addDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        write(() -> delegate.removeDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        writeLock.lock();
+        try {
+            return delegate.getDependencies(taskId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public CriticalPath getCriticalPath(int epicId) {
+        writeLock.lock();
+        try {
+            return delegate.getCriticalPath(epicId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        writeLock.lock();
+        try {
+            List<Task> result = new ArrayList<>();
+            for (Task task : delegate.search(query, limit)) {
+                result.add(TaskSnapshot.copyOf(task));
+            }
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void recordView(Function<Integer, ? extends Task> view, int id) {
+        write(() -> {
+            try {
+                views.add(TaskSnapshot.copyOf(view.apply(id)));
+            } catch (NotFoundException e) {
+                // Задачу удалили после чтения снимка: читатель всё равно получает свою версию
+            }
+        });
+    }
+
+    private void changed(TaskType type, int id) {
+        changedIds.computeIfAbsent(type, key -> new HashSet<>()).add(id);
+    }
+
+    // Массовое удаление: таблица типа и история строятся заново
+    private void rewrite(TaskType type) {
+        rewrittenTypes.add(type);
+        historyRewritten = true;
+    }
+
+    private void write(Runnable action) {
+        writeLock.lock();
+        batchDepth++;
+        try {
+            action.run();
+        } finally {
+            batchDepth--;
+            try {
+                // Публикуем и при исключении: delegate мог успеть частично измениться
+                if (batchDepth == 0) {
+                    publish();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void publish() {
+        if (changedIds.isEmpty() && rewrittenTypes.isEmpty() && views.isEmpty() && !historyRewritten) {
+            return;
+        }
+        TaskSnapshot previous = snapshot;
+        PersistentIntMap<Task> tasks = rewrittenTypes.contains(TaskType.TASK)
+                ? table(delegate.getAllTasks()) : previous.tasks();
+        PersistentIntMap<Epic> epics = rewrittenTypes.contains(TaskType.EPIC)
+                ? table(delegate.getAllEpics()) : previous.epics();
+        PersistentIntMap<Subtask> subtasks = rewrittenTypes.contains(TaskType.SUBTASK)
+                ? table(delegate.getAllSubtasks()) : previous.subtasks();
+        boolean timelineRewritten = rewrittenTypes.contains(TaskType.TASK)
+                || rewrittenTypes.contains(TaskType.SUBTASK);
+        TaskTimeline prioritized = previous.prioritized();
+        PersistentIntMap<Task> recurring = previous.recurring();
+        ViewHistory history = previous.history();
+        for (Task view : views) {
+            history = history.viewed(view);
+        }
+
+        for (Map.Entry<TaskType, Set<Integer>> entry : changedIds.entrySet()) {
+            TaskType type = entry.getKey();
+            if (rewrittenTypes.contains(type)) {
+                continue;
+            }
+            for (int id : entry.getValue()) {
+                Task current = current(type, id);
+                Task copy = current == null ? null : TaskSnapshot.copyOf(current);
+                Task before;
+                switch (type) {
+                    case EPIC:
+                        before = epics.get(id);
+                        epics = copy == null ? epics.remove(id) : epics.put(id, (Epic) copy);
+                        break;
+                    case SUBTASK:
+                        before = subtasks.get(id);
+                        subtasks = copy == null ? subtasks.remove(id) : subtasks.put(id, (Subtask) copy);
+                        break;
+                    default:
+                        before = tasks.get(id);
+                        tasks = copy == null ? tasks.remove(id) : tasks.put(id, copy);
+                }
+                if (copy == null) {
+                    history = history.without(id);
+                }
+                if (type == TaskType.EPIC || timelineRewritten) {
+                    continue;
+                }
+                // Приоритетный список ссылается на те же копии, что и таблицы снимка
+                if (before != null && before.getRecurrence() != null) {
+                    recurring = recurring.remove(id);
+                } else if (before != null && before.getStartTime() != null) {
+                    prioritized = prioritized.without(before);
+                }
+                if (copy != null && copy.getRecurrence() != null) {
+                    recurring = recurring.put(id, copy);
+                } else if (copy != null && copy.getStartTime() != null) {
+                    prioritized = prioritized.with(copy);
+                }
+            }
+        }
+
+        if (timelineRewritten) {
+            List<Task> scheduled = new ArrayList<>();
+            recurring = PersistentIntMap.empty();
+            for (Collection<? extends Task> table : List.of(tasks.values(), subtasks.values())) {
+                for (Task task : table) {
+                    if (task.getRecurrence() != null) {
+                        recurring = recurring.put(task.getId(), task);
+                    } else if (task.getStartTime() != null) {
+                        scheduled.add(task);
+                    }
+                }
+            }
+            scheduled.sort(InMemoryTaskManager.PRIORITY_ORDER);
+            prioritized = TaskTimeline.of(scheduled);
+        }
+        if (historyRewritten) {
+            history = ViewHistory.of(delegate.getHistory());
+        }
+
+        snapshot = new TaskSnapshot(previous.getVersion() + 1, tasks, epics, subtasks, prioritized, recurring,
+                history);
+        changedIds.clear();
+        rewrittenTypes.clear();
+        views.clear();
+        historyRewritten = false;
+    }
+
+    // Текущее состояние задачи в delegate; постраничное чтение не записывает просмотр в историю
+    private Task current(TaskType type, int id) {
+        List<? extends Task> page;
+        switch (type) {
+            case EPIC:
+                page = delegate.getEpicsPage(id - 1, 1);
+                break;
+            case SUBTASK:
+                page = delegate.getSubtasksPage(id - 1, 1);
+                break;
+            default:
+                page = delegate.getTasksPage(id - 1, 1);
+        }
+        return page.isEmpty() || page.get(0).getId() != id ? null : page.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> PersistentIntMap<T> table(List<T> current) {
+        PersistentIntMap<T> result = PersistentIntMap.empty();
+        for (T task : current) {
+            result = result.put(task.getId(), (T) TaskSnapshot.copyOf(task));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package manager;
+
+import task.Status;
+import util.IntObjectMap;
+import util.IntOrderedSet;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Вторичный индекс id задач одного типа по статусу. Статус запоминается при индексации,
+ * поэтому задачу можно переложить в другой статус, даже если сам объект уже изменили.
+ */
+class StatusIndex {
+    private final Map<Status, IntOrderedSet> idsByStatus = new EnumMap<>(Status.class);
+    private final IntObjectMap<Status> statuses = new IntObjectMap<>();
+
+    StatusIndex() {
+        for (Status status : Status.values()) {
+            idsByStatus.put(status, new IntOrderedSet());
+        }
+    }
+
+    void put(int id, Status status) {
+        if (status == null) {
+            remove(id);
+            return;
+        }
+        Status previous = statuses.put(id, status);
+        if (previous == status) {
+            return;
+        }
+        if (previous != null) {
+            idsByStatus.get(previous).remove(id);
+        }
+        idsByStatus.get(status).add(id);
+    }
+
+    void remove(int id) {
+        Status previous = statuses.remove(id);
+        if (previous != null) {
+            idsByStatus.get(previous).remove(id);
+        }
+    }
+
+    void clear() {
+        statuses.clear();
+        idsByStatus.values().forEach(IntOrderedSet::clear);
+    }
+
+    /**
+     * Id задач в статусе {@code status} в порядке попадания в него.
+     */
+    IntOrderedSet ids(Status status) {
+        return idsByStatus.get(status);
+    }
+}
@@ -0,0 +1,22 @@
+package manager;
+
+/**
+ * Формат файла хранилища {@link FileBackedTaskManager}. При загрузке формат определяется
+ * по содержимому файла, поэтому смена формата вступает в силу со следующим полным сохранением.
+ */
+public enum StorageFormat {
+    /**
+     * Текстовый CSV: строка на задачу и строка истории в конце.
+     */
+    CSV,
+    /**
+     * Двоичный формат с записями фиксированной длины и кучей строк, читается через отображение
+     * файла в память без разбора текста.
+     */
+    BINARY,
+    /**
+     * Файл из слотов фиксированного размера: при сохранении перезаписываются только задачи,
+     * изменённые с прошлой записи, а удаление оставляет свободные слоты для новых задач.
+     */
+    SLOTTED
+}
@@ -0,0 +1,73 @@
+package manager;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Одно изменение состояния менеджера, которое нужно сохранить в {@link TaskStorage}.
+ */
+public final class StorageMutation {
+    public enum Kind {
+        PUT,
+        REMOVE,
+        CLEAR,
+        VIEW
+    }
+
+    private final Kind kind;
+    private final Task task;
+    private final int id;
+    private final TaskType type;
+    private final List<Integer> removedIds;
+
+    private StorageMutation(Kind kind, Task task, int id, TaskType type, List<Integer> removedIds) {
+        this.kind = kind;
+        this.task = task;
+        this.id = id;
+        this.type = type;
+        this.removedIds = removedIds;
+    }
+
+    public static StorageMutation put(Task task) {
+        return new StorageMutation(Kind.PUT, task, task.getId(), null, List.of());
+    }
+
+    /**
+     * @param removedIds id всех удалённых задач, включая подзадачи удалённого эпика
+     */
+    public static StorageMutation remove(int id, Collection<Integer> removedIds) {
+        return new StorageMutation(Kind.REMOVE, null, id, null, new ArrayList<>(removedIds));
+    }
+
+    public static StorageMutation clear(TaskType type, Collection<Integer> removedIds) {
+        return new StorageMutation(Kind.CLEAR, null, 0, type, new ArrayList<>(removedIds));
+    }
+
+    public static StorageMutation view(int id) {
+        return new StorageMutation(Kind.VIEW, null, id, null, List.of());
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public List<Integer> getRemovedIds() {
+        return removedIds;
+    }
+}
@@ -0,0 +1,49 @@
+package manager;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.List;
+
+/**
+ * Состояние менеджера, доступное {@link TaskStorage}: при загрузке хранилище восстанавливает
+ * через него задачи, а при записи снимает с него полный снимок или отдельные задачи.
+ */
+public interface StorageState {
+    // Восстановление
+
+    void put(Task task);
+
+    /**
+     * Удаляет задачу, а для эпика и его подзадачи.
+     *
+     * @return id всех удалённых задач
+     */
+    List<Integer> remove(int id);
+
+    /**
+     * @return id всех удалённых задач
+     */
+    List<Integer> clear(TaskType type);
+
+    void view(int id);
+
+    // Снимок
+
+    /**
+     * @param copy копировать задачи, чтобы снимок можно было записывать без блокировки
+     */
+    List<Task> rows(boolean copy);
+
+    /**
+     * @return задача с этим id или {@code null}, если её нет
+     */
+    Task get(int id, boolean copy);
+
+    List<Integer> history();
+
+    /**
+     * Монитор, под которым менеджер меняет состояние; фоновые записи снимают снимок под ним.
+     */
+    Object mutex();
+}
@@ -0,0 +1,277 @@
+package manager;
+
+import exceptions.ManagerSaveException;
+import task.Epic;
+import task.Recurrence;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Двоичный снимок хранилища, читаемый через отображение файла в память.
+ *
+ * <pre>
+ * заголовок   magic "TSKB", версия, число записей, длина истории, смещение кучи строк
+ * записи      по {@value #RECORD_SIZE} байт: id, тип, статус, флаги, секунды начала, epicId,
+ *             начало в минутах от эпохи (UTC), наносекунды начала, длительность в минутах,
+ *             смещения и длины названия, описания и правила повторения в куче
+ * история     id по 4 байта
+ * куча строк  названия, описания и правила повторения в UTF-8
+ * </pre>
+ *
+ * <p>i-я запись лежит по фиксированному смещению, поэтому любую задачу можно материализовать
+ * отдельно, не разбирая остальные. Коды типа и статуса — порядковые номера констант перечислений.
+ * Файлы первой версии, без правила повторения и с записями по {@value #V1_RECORD_SIZE} байт,
+ * по-прежнему читаются.
+ */
+class TaskBinaryFile {
+    static final int MAGIC = 0x54534B42;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 24;
+    static final int RECORD_SIZE = 56;
+    static final int V1_RECORD_SIZE = 48;
+
+    private static final int TYPE = 4;
+    private static final int STATUS = 5;
+    private static final int FLAGS = 6;
+    private static final int SECOND = 7;
+    private static final int EPIC_ID = 8;
+    private static final int START_MINUTES = 12;
+    private static final int NANO = 20;
+    private static final int DURATION = 24;
+    private static final int TITLE = 32;
+    private static final int DESCRIPTION = 40;
+    private static final int RECURRENCE = 48;
+
+    private static final byte HAS_DURATION = 1;
+    private static final byte HAS_START_TIME = 2;
+    private static final byte HAS_RECURRENCE = 4;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final ByteBuffer buffer;
+    private final int recordSize;
+    private final int recordCount;
+    private final int historyCount;
+    private final int heapOffset;
+
+    private TaskBinaryFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Файл не является двоичным хранилищем задач");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION && version != 1) {
+            throw new IllegalArgumentException("Неподдерживаемая версия двоичного хранилища: " + version);
+        }
+        this.recordSize = version == VERSION ? RECORD_SIZE : V1_RECORD_SIZE;
+        this.recordCount = buffer.getInt(8);
+        this.historyCount = buffer.getInt(12);
+        this.heapOffset = (int) buffer.getLong(16);
+        if (heapOffset != HEADER_SIZE + (long) recordCount * recordSize + (long) historyCount * Integer.BYTES
+                || heapOffset > buffer.limit()) {
+            throw new IllegalArgumentException("Повреждённый заголовок двоичного хранилища");
+        }
+    }
+
+    static boolean isBinary(File file) {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(magic, 0);
+            return magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения файла", e);
+        }
+    }
+
+    /**
+     * Отображает файл в память. Записи не разбираются, пока к ним не обратятся.
+     */
+    static TaskBinaryFile open(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Слишком большой файл двоичного хранилища: " + size);
+            }
+            // Отображение остаётся действительным и после закрытия канала
+            return new TaskBinaryFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения файла", e);
+        }
+    }
+
+    /**
+     * Материализует все записи параллельно в исходном порядке.
+     */
+    static ParallelSnapshotLoader.Result load(File file) {
+        TaskBinaryFile binaryFile = open(file);
+        List<Task> rows = IntStream.range(0, binaryFile.size())
+                .parallel()
+                .mapToObj(binaryFile::get)
+                .collect(Collectors.toList());
+        return new ParallelSnapshotLoader.Result(rows, binaryFile.historyIds());
+    }
+
+    int size() {
+        return recordCount;
+    }
+
+    int id(int index) {
+        return buffer.getInt(recordOffset(index));
+    }
+
+    TaskType type(int index) {
+        return TYPES[buffer.get(recordOffset(index) + TYPE)];
+    }
+
+    Task get(int index) {
+        int record = recordOffset(index);
+        int id = buffer.getInt(record);
+        Status status = STATUSES[buffer.get(record + STATUS)];
+        byte flags = buffer.get(record + FLAGS);
+        String title = readString(record + TITLE);
+        String description = readString(record + DESCRIPTION);
+        Duration duration = (flags & HAS_DURATION) != 0
+                ? Duration.ofMinutes(buffer.getLong(record + DURATION)) : null;
+        LocalDateTime startTime = null;
+        if ((flags & HAS_START_TIME) != 0) {
+            long epochSecond = buffer.getLong(record + START_MINUTES) * 60 + buffer.get(record + SECOND);
+            startTime = LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(record + NANO), ZoneOffset.UTC);
+        }
+
+        switch (type(index)) {
+            case TASK:
+                Task task = new Task(id, title, description, status, duration, startTime);
+                if ((flags & HAS_RECURRENCE) != 0) {
+                    task.setRecurrence(Recurrence.parse(readString(record + RECURRENCE)));
+                }
+                return task;
+            case EPIC:
+                return new Epic(id, title, description, status, duration, startTime);
+            case SUBTASK:
+                return new Subtask(id, title, description, status, buffer.getInt(record + EPIC_ID),
+                        duration, startTime);
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи");
+        }
+    }
+
+    List<Integer> historyIds() {
+        List<Integer> historyIds = new ArrayList<>(historyCount);
+        int offset = HEADER_SIZE + recordCount * recordSize;
+        for (int i = 0; i < historyCount; i++) {
+            historyIds.add(buffer.getInt(offset + i * Integer.BYTES));
+        }
+        return historyIds;
+    }
+
+    private int recordOffset(int index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Нет записи с индексом " + index);
+        }
+        return HEADER_SIZE + index * recordSize;
+    }
+
+    private String readString(int reference) {
+        int length = buffer.getInt(reference + Integer.BYTES);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(heapOffset + buffer.getInt(reference), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Запись
+
+    static void write(List<Task> rows, List<Integer> historyIds, OutputStream out) throws IOException {
+        // Размеры считаются в long и проверяются до выделения буферов, иначе int переполнится
+        long recordsSize = (long) rows.size() * RECORD_SIZE;
+        long heapOffset = HEADER_SIZE + recordsSize + (long) historyIds.size() * Integer.BYTES;
+        if (heapOffset > Integer.MAX_VALUE) {
+            throw new IOException("Снимок не помещается в двоичное хранилище");
+        }
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+        ByteBuffer records = ByteBuffer.allocate((int) recordsSize);
+        for (Task task : rows) {
+            writeRecord(task, records, heap);
+        }
+        if (heapOffset + heap.size() > Integer.MAX_VALUE) {
+            throw new IOException("Снимок не помещается в двоичное хранилище");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows.size()).putInt(historyIds.size()).putLong(heapOffset);
+        out.write(header.array());
+        out.write(records.array());
+        ByteBuffer history = ByteBuffer.allocate(historyIds.size() * Integer.BYTES);
+        for (int id : historyIds) {
+            history.putInt(id);
+        }
+        out.write(history.array());
+        heap.writeTo(out);
+    }
+
+    private static void writeRecord(Task task, ByteBuffer records, ByteArrayOutputStream heap) {
+        int record = records.position();
+        byte flags = 0;
+        records.putInt(record, task.getId());
+        records.put(record + TYPE, (byte) task.getType().ordinal());
+        records.put(record + STATUS, (byte) task.getStatus().ordinal());
+        if (task.getType() == TaskType.SUBTASK) {
+            records.putInt(record + EPIC_ID, ((Subtask) task).getEpicId());
+        }
+        if (task.getStartTime() != null) {
+            flags |= HAS_START_TIME;
+            long epochSecond = task.getStartTime().toEpochSecond(ZoneOffset.UTC);
+            records.putLong(record + START_MINUTES, Math.floorDiv(epochSecond, 60));
+            records.put(record + SECOND, (byte) Math.floorMod(epochSecond, 60));
+            records.putInt(record + NANO, task.getStartTime().getNano());
+        }
+        if (task.getDuration() != null) {
+            flags |= HAS_DURATION;
+            records.putLong(record + DURATION, task.getDuration().toMinutes());
+        }
+        if (task.getRecurrence() != null) {
+            flags |= HAS_RECURRENCE;
+        }
+        records.put(record + FLAGS, flags);
+        writeString(task.getTitle(), record + TITLE, records, heap);
+        writeString(task.getDescription(), record + DESCRIPTION, records, heap);
+        writeString(task.getRecurrence() == null ? null : task.getRecurrence().toString(), record + RECURRENCE,
+                records, heap);
+        records.position(record + RECORD_SIZE);
+    }
+
+    private static void writeString(String value, int reference, ByteBuffer records, ByteArrayOutputStream heap) {
+        if (value == null) {
+            records.putInt(reference + Integer.BYTES, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        records.putInt(reference, heap.size());
+        records.putInt(reference + Integer.BYTES, bytes.length);
+        heap.write(bytes, 0, bytes.length);
+    }
+}
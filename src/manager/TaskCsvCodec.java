@@ -0,0 +1,441 @@
+package manager;
+
+import task.Epic;
+import task.Recurrence;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Кодек строк хранилища {@code id,type,name,status,description,epic,duration,startTime,recurrence}.
+ * Правило повторения пишется только у повторяющихся задач.
+ *
+ * <p>Строки пишутся в переиспользуемый буфер без {@code String.format}, а разбираются курсором
+ * прямо по исходной строке без {@code split} и промежуточных массивов. Запятые, переводы строк
+ * и обратный слеш в названии и описании экранируются обратным слешем, поэтому каждая задача
+ * всегда занимает ровно одну строку файла или журнала.
+ *
+ * <p>Файлы с экранированием отмечены версией в заголовке ({@link #HEADER}). Прежние файлы писали
+ * текст как есть, поэтому для них кодек создаётся с {@code escaped = false}: обратный слеш
+ * читается как обычный символ, а поле заканчивается на первой запятой, как при {@code split}.
+ *
+ * <p>Экземпляр хранит состояние (буферы и позицию курсора) и не потокобезопасен.
+ */
+class TaskCsvCodec {
+    static final String HEADER = "id,type,name,status,description,epic,duration,startTime,recurrence;v2";
+
+    private static final String ESCAPED_VERSION = ";v2";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char ESCAPE = '\\';
+
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+    private final char[] chunk = new char[BUFFER_SIZE];
+    private final StringBuilder unescaped = new StringBuilder();
+    private final boolean escaped;
+    private String line;
+    private int lineStart;
+    private int position;
+    private int limit;
+
+    TaskCsvCodec() {
+        this(true);
+    }
+
+    /**
+     * @param escaped {@code false} — разбирать строки прежнего формата без экранирования;
+     *                запись всегда идёт с экранированием
+     */
+    TaskCsvCodec(boolean escaped) {
+        this.escaped = escaped;
+    }
+
+    /**
+     * Записан ли файл с этим заголовком с экранированием текста.
+     */
+    static boolean isEscapedHeader(String header) {
+        return header.endsWith(ESCAPED_VERSION);
+    }
+
+    // Запись
+
+    String encode(Task task) {
+        StringBuilder row = new StringBuilder(64);
+        append(task, row);
+        return row.toString();
+    }
+
+    /**
+     * Добавляет строку задачи в буфер; буфер сбрасывается в {@code out}, когда заполнится.
+     */
+    void write(Task task, Writer out) throws IOException {
+        append(task, buffer);
+        buffer.append('\n');
+        spillIfFull(out);
+    }
+
+    void writeLine(String value, Writer out) throws IOException {
+        buffer.append(value).append('\n');
+        spillIfFull(out);
+    }
+
+    void flush(Writer out) throws IOException {
+        int length = buffer.length();
+        int offset = 0;
+        while (offset < length) {
+            int count = Math.min(chunk.length, length - offset);
+            buffer.getChars(offset, offset + count, chunk, 0);
+            out.write(chunk, 0, count);
+            offset += count;
+        }
+        buffer.setLength(0);
+    }
+
+    private void spillIfFull(Writer out) throws IOException {
+        if (buffer.length() >= BUFFER_SIZE) {
+            flush(out);
+        }
+    }
+
+    static void append(Task task, StringBuilder out) {
+        TaskType type = task.getType();
+        out.append(task.getId()).append(',')
+                .append(type.name()).append(',');
+        appendEscaped(task.getTitle(), out);
+        out.append(',').append(task.getStatus().name()).append(',');
+        appendEscaped(task.getDescription(), out);
+        out.append(',');
+        if (type == TaskType.SUBTASK) {
+            out.append(((Subtask) task).getEpicId());
+        }
+        out.append(',');
+        if (task.getDuration() != null) {
+            out.append(task.getDuration().toMinutes());
+        }
+        out.append(',');
+        if (task.getStartTime() != null) {
+            appendDateTime(task.getStartTime(), out);
+        }
+        if (task.getRecurrence() != null) {
+            out.append(',').append(task.getRecurrence());
+        }
+    }
+
+    private static void appendEscaped(String value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        int first = firstSpecialChar(value);
+        if (first < 0) {
+            out.append(value);
+            return;
+        }
+        out.append(value, 0, first);
+        for (int i = first; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case ',':
+                case ESCAPE:
+                    out.append(ESCAPE).append(c);
+                    break;
+                case '\n':
+                    out.append(ESCAPE).append('n');
+                    break;
+                case '\r':
+                    out.append(ESCAPE).append('r');
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+
+    private static int firstSpecialChar(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == ESCAPE || c == '\n' || c == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Тот же формат, что у LocalDateTime.toString(), но без промежуточных строк
+    private static void appendDateTime(LocalDateTime dateTime, StringBuilder out) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            out.append(dateTime);
+            return;
+        }
+        appendPadded(year, 4, out);
+        out.append('-');
+        appendPadded(dateTime.getMonthValue(), 2, out);
+        out.append('-');
+        appendPadded(dateTime.getDayOfMonth(), 2, out);
+        out.append('T');
+        appendPadded(dateTime.getHour(), 2, out);
+        out.append(':');
+        appendPadded(dateTime.getMinute(), 2, out);
+
+        int second = dateTime.getSecond();
+        int nano = dateTime.getNano();
+        if (second == 0 && nano == 0) {
+            return;
+        }
+        out.append(':');
+        appendPadded(second, 2, out);
+        if (nano == 0) {
+            return;
+        }
+        out.append('.');
+        if (nano % 1_000_000 == 0) {
+            appendPadded(nano / 1_000_000, 3, out);
+        } else if (nano % 1_000 == 0) {
+            appendPadded(nano / 1_000, 6, out);
+        } else {
+            appendPadded(nano, 9, out);
+        }
+    }
+
+    private static void appendPadded(int value, int width, StringBuilder out) {
+        for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        out.append(value);
+    }
+
+    // Чтение
+
+    Task decode(String value) {
+        return decode(value, 0, value.length());
+    }
+
+    /**
+     * Разбирает строку задачи, начиная с позиции {@code from} (например, после префикса записи журнала).
+     */
+    Task decode(String value, int from) {
+        return decode(value, from, value.length());
+    }
+
+    /**
+     * Разбирает строку задачи, занимающую отрезок {@code [from, to)} большего текста,
+     * например куска файла с множеством строк.
+     */
+    Task decode(String value, int from, int to) {
+        line = value;
+        lineStart = from;
+        position = from;
+        limit = to;
+        try {
+            int id = (int) readLong();
+            TaskType type = readType();
+            String title = readText();
+            Status status = readStatus();
+            String description = readText();
+            boolean hasEpic = !isFieldEmpty();
+            int epicId = hasEpic ? (int) readLong() : skipField();
+            Duration duration = isFieldEmpty() ? skipDuration() : Duration.ofMinutes(readLong());
+            LocalDateTime startTime = isFieldEmpty() ? skipDateTime() : readDateTime();
+            Recurrence recurrence = position < limit ? Recurrence.parse(line.substring(position, limit)) : null;
+
+            switch (type) {
+                case TASK:
+                    Task task = new Task(id, title, description, status, duration, startTime);
+                    task.setRecurrence(recurrence);
+                    return task;
+                case EPIC:
+                    return new Epic(id, title, description, status, duration, startTime);
+                case SUBTASK:
+                    if (!hasEpic) {
+                        throw invalidLine();
+                    }
+                    return new Subtask(id, title, description, status, epicId, duration, startTime);
+                default:
+                    throw new IllegalArgumentException("Неизвестный тип задачи");
+            }
+        } finally {
+            line = null;
+        }
+    }
+
+    private boolean isFieldEmpty() {
+        return position >= limit || line.charAt(position) == ',';
+    }
+
+    private int skipField() {
+        position++;
+        return 0;
+    }
+
+    private Duration skipDuration() {
+        position++;
+        return null;
+    }
+
+    private LocalDateTime skipDateTime() {
+        position++;
+        return null;
+    }
+
+    private long readLong() {
+        int length = limit;
+        boolean negative = position < length && line.charAt(position) == '-';
+        if (negative) {
+            position++;
+        }
+        int start = position;
+        long result = 0;
+        while (position < length && line.charAt(position) != ',') {
+            char c = line.charAt(position++);
+            if (c < '0' || c > '9') {
+                throw invalidLine();
+            }
+            result = result * 10 + (c - '0');
+        }
+        if (position == start) {
+            throw invalidLine();
+        }
+        position++;
+        return negative ? -result : result;
+    }
+
+    private TaskType readType() {
+        TaskType type;
+        if (matchField("TASK")) {
+            type = TaskType.TASK;
+        } else if (matchField("EPIC")) {
+            type = TaskType.EPIC;
+        } else if (matchField("SUBTASK")) {
+            type = TaskType.SUBTASK;
+        } else {
+            throw invalidLine();
+        }
+        return type;
+    }
+
+    private Status readStatus() {
+        Status status;
+        if (matchField("NEW")) {
+            status = Status.NEW;
+        } else if (matchField("IN_PROGRESS")) {
+            status = Status.IN_PROGRESS;
+        } else if (matchField("DONE")) {
+            status = Status.DONE;
+        } else {
+            throw invalidLine();
+        }
+        return status;
+    }
+
+    // Сравнивает поле с константой на месте и сдвигает курсор за разделитель
+    private boolean matchField(String expected) {
+        int end = position + expected.length();
+        if (end > limit || !line.startsWith(expected, position) || (end < limit && line.charAt(end) != ',')) {
+            return false;
+        }
+        position = end + 1;
+        return true;
+    }
+
+    private String readText() {
+        int length = limit;
+        int start = position;
+        while (position < length) {
+            char c = line.charAt(position);
+            if (c == ',') {
+                String text = line.substring(start, position);
+                position++;
+                return text;
+            }
+            if (c == ESCAPE && escaped) {
+                return readEscapedText(start);
+            }
+            position++;
+        }
+        return line.substring(start, limit);
+    }
+
+    private String readEscapedText(int start) {
+        unescaped.setLength(0);
+        unescaped.append(line, start, position);
+        int length = limit;
+        while (position < length) {
+            char c = line.charAt(position++);
+            if (c == ',') {
+                return unescaped.toString();
+            }
+            if (c == ESCAPE && position < length) {
+                char escaped = line.charAt(position++);
+                unescaped.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    // yyyy-MM-ddTHH:mm[:ss[.n{1,9}]]; всё остальное разбирается стандартным парсером
+    private LocalDateTime readDateTime() {
+        int start = position;
+        int end = line.indexOf(',', start);
+        if (end < 0 || end > limit) {
+            end = limit;
+        }
+        position = end + 1;
+
+        if (end - start < 16 || line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-'
+                || line.charAt(start + 10) != 'T' || line.charAt(start + 13) != ':') {
+            return LocalDateTime.parse(line.substring(start, end));
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        int second = 0;
+        int nano = 0;
+        int cursor = start + 16;
+        if (cursor < end) {
+            if (line.charAt(cursor) != ':' || end - cursor < 3) {
+                throw invalidLine();
+            }
+            second = digits(cursor + 1, 2);
+            cursor += 3;
+            if (cursor < end) {
+                if (line.charAt(cursor) != '.' || end - cursor > 10) {
+                    throw invalidLine();
+                }
+                int fractionDigits = end - cursor - 1;
+                nano = digits(cursor + 1, fractionDigits);
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private int digits(int from, int count) {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalidLine();
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private IllegalArgumentException invalidLine() {
+        return new IllegalArgumentException("Некорректная строка хранилища: " + line.substring(lineStart, limit));
+    }
+}
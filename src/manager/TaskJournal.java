@@ -0,0 +1,348 @@
+package manager;
+
+import exceptions.ManagerSaveException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Журнал изменений (write-ahead log) для {@link FileBackedTaskManager}.
+ * Каждая мутация дописывается в конец файла одной строкой, поэтому стоимость записи
+ * не зависит от количества задач. При загрузке журнал проигрывается поверх снимка.
+ *
+ * <p>Формат записей:
+ * <pre>
+ * PUT2,&lt;строка задачи в формате CSV с экранированием&gt;
+ * DEL,&lt;id&gt;
+ * CLR,&lt;TASK|EPIC|SUBTASK&gt;
+ * VIEW,&lt;id&gt;
+ * </pre>
+ * Записи VIEW больше не пишутся (история ведётся в отдельном журнале), но по-прежнему читаются.
+ * Так же читаются записи PUT прежнего формата, где текст задачи записан без экранирования.
+ *
+ * <p>При компактизации текущий файл журнала «запечатывается» (переименовывается в {@code <file>.log.1}),
+ * а новые записи идут в свежий {@code <file>.log}. Запечатанный сегмент удаляется после того,
+ * как снимок с его изменениями записан на диск.
+ *
+ * <p>Момент записи на диск определяется {@link DurabilityPolicy}. При фоновых политиках записи
+ * копятся в памяти и сбрасываются отдельным потоком одной пачкой с одним fsync.
+ */
+class TaskJournal implements Closeable {
+    static final String PUT = "PUT2";
+    static final String LEGACY_PUT = "PUT";
+    static final String DELETE = "DEL";
+    static final String CLEAR = "CLR";
+    static final String VIEW = "VIEW";
+
+    private final File file;
+    private final DurabilityPolicy policy;
+    private final Object pendingLock = new Object();
+    private List<String> pending = new ArrayList<>();
+    private FileOutputStream output;
+    private Writer writer;
+    private ScheduledExecutorService flusher;
+    private volatile ManagerSaveException flushFailure;
+    private int recordCount;
+    private long size = -1;
+
+    TaskJournal(File file) {
+        this(file, DurabilityPolicy.WRITE_THROUGH);
+    }
+
+    TaskJournal(File file, DurabilityPolicy policy) {
+        this.file = file;
+        this.policy = policy;
+    }
+
+    static File journalFileFor(File storageFile) {
+        return new File(storageFile.getPath() + ".log");
+    }
+
+    static File sealedFileFor(File storageFile) {
+        return new File(storageFile.getPath() + ".log.1");
+    }
+
+    static File historyFileFor(File storageFile) {
+        return new File(storageFile.getPath() + ".history");
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    // Количество записей, добавленных с момента открытия или последней ротации
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    // Приблизительный размер журнала (в символах) с учётом ещё не записанных записей
+    long getSize() {
+        return Math.max(size, 0);
+    }
+
+    void append(String record) {
+        appendAll(List.of(record));
+    }
+
+    /**
+     * Дописывает записи одной записью в файл; при фоновых политиках они попадают в одну пачку.
+     */
+    void appendAll(List<String> records) {
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+        if (size < 0) {
+            size = file.length();
+        }
+        for (String record : records) {
+            recordCount++;
+            size += record.length() + 1;
+        }
+
+        if (!policy.isBackground()) {
+            write(records);
+            return;
+        }
+        boolean flushNow;
+        synchronized (pendingLock) {
+            pending.addAll(records);
+            flushNow = pending.size() >= policy.getMaxPendingRecords();
+        }
+        ScheduledExecutorService executor = startFlusher();
+        if (flushNow) {
+            executor.execute(this::flushInBackground);
+        }
+    }
+
+    /**
+     * Записывает на диск все накопленные записи.
+     */
+    synchronized void flush() {
+        List<String> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        write(batch);
+    }
+
+    private synchronized void write(List<String> records) {
+        try {
+            if (writer == null) {
+                output = new FileOutputStream(file, true);
+                writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            }
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+            writer.flush();
+            if (policy != DurabilityPolicy.WRITE_THROUGH) {
+                output.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи журнала", e);
+        }
+    }
+
+    private ScheduledExecutorService startFlusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground, policy.getFlushIntervalMillis(),
+                    policy.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        return flusher;
+    }
+
+    // Ошибку фоновой записи нельзя бросить вызывающему, поэтому она откладывается до следующего append
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            flushFailure = e;
+        }
+    }
+
+    /**
+     * Проигрывает все записи журнала по порядку. Отсутствующий файл считается пустым журналом.
+     *
+     * <p>Последняя запись могла быть оборвана сбоем посреди записи: строка без завершающего
+     * перевода строки или запись, которую не удалось разобрать, считается незаписанной и
+     * отрезается от файла, чтобы следующие записи не склеились с её остатком. Ошибка в любой
+     * другой записи означает повреждение журнала и пробрасывается дальше.
+     */
+    static void replay(File file, Consumer<String> consumer) {
+        if (!file.exists()) {
+            return;
+        }
+        String last = null;
+        long lastStart = 0;
+        long validLength = 0;
+        boolean tornTail;
+        try (InputStream input = new FileInputStream(file)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            long offset = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    line.write(buffer, from, i - from);
+                    from = i + 1;
+                    long lineEnd = offset + i + 1;
+                    if (line.size() == 0) {
+                        validLength = lineEnd;
+                        continue;
+                    }
+                    // Запись применяется, только когда за ней есть следующая: последняя обрабатывается отдельно
+                    if (last != null) {
+                        consumer.accept(last);
+                    }
+                    last = line.toString(StandardCharsets.UTF_8);
+                    lastStart = validLength;
+                    validLength = lineEnd;
+                    line.reset();
+                }
+                line.write(buffer, from, read - from);
+                offset += read;
+            }
+            tornTail = line.size() > 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала", e);
+        }
+
+        if (last != null) {
+            if (tornTail) {
+                // Оборвана строка после last, значит сама last записана полностью
+                consumer.accept(last);
+            } else {
+                try {
+                    consumer.accept(last);
+                } catch (RuntimeException e) {
+                    System.out.println("Последняя запись журнала " + file + " не разобрана и отброшена: "
+                            + e.getMessage());
+                    validLength = lastStart;
+                }
+            }
+        }
+        if (tornTail) {
+            System.out.println("Последняя запись журнала " + file + " оборвана и отброшена");
+        }
+        if (validLength < file.length()) {
+            cutTail(file, validLength);
+        }
+    }
+
+    private static void cutTail(File file, long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+            raf.getChannel().force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи журнала", e);
+        }
+    }
+
+    /**
+     * Переименовывает текущий журнал в {@code sealedFile}; следующие записи пойдут в новый файл.
+     *
+     * @return {@code false}, если предыдущий запечатанный сегмент ещё не удалён
+     */
+    boolean seal(File sealedFile) {
+        if (sealedFile.exists()) {
+            return false;
+        }
+        close();
+        if (file.exists() && !file.renameTo(sealedFile)) {
+            throw new ManagerSaveException("Не удалось запечатать журнал " + file, null);
+        }
+        recordCount = 0;
+        size = 0;
+        return true;
+    }
+
+    /**
+     * Атомарно заменяет содержимое журнала переданными записями.
+     */
+    void rewrite(List<String> records) {
+        close();
+        File tempFile = new File(file.getPath() + ".tmp");
+        long newSize = 0;
+        try (Writer tempWriter = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            for (String record : records) {
+                tempWriter.write(record);
+                tempWriter.write('\n');
+                newSize += record.length() + 1;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи журнала", e);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи журнала", e);
+        }
+        recordCount = records.size();
+        size = newSize;
+    }
+
+    // Удаляет журнал целиком: все его записи уже попали в снимок
+    void truncate() {
+        close();
+        deleteIfExists(file);
+        recordCount = 0;
+        size = 0;
+    }
+
+    static void deleteIfExists(File file) {
+        if (file.exists() && !file.delete()) {
+            throw new ManagerSaveException("Не удалось удалить журнал " + file, null);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flush();
+        synchronized (this) {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка закрытия журнала", e);
+            } finally {
+                writer = null;
+                output = null;
+            }
+        }
+    }
+}
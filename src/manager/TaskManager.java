@@ -1,9 +1,14 @@
 package manager;
 
 import task.Epic;
+import task.Status;
 import task.Subtask;
 import task.Task;
+import task.TimeSlot;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TaskManager {
     // Методы для задач
@@ -15,6 +20,9 @@ public interface TaskManager {
 
     void createTask(Task task);
 
+    // Пакет создаётся целиком или не создаётся вовсе; время проверяется сразу для всего пакета
+    void createTasks(List<Task> tasks);
+
     void updateTask(Task task);
 
     void deleteTask(int id);
@@ -41,14 +49,66 @@ public interface TaskManager {
 
     void createSubtask(Subtask subtask);
 
+    void createSubtasks(List<Subtask> subtasks);
+
     void updateSubtask(Subtask subtask);
 
     void deleteSubtask(int id);
 
+    // Обновляет задачи, эпики и подзадачи одним пакетом: либо все, либо ни одной
+    void updateMany(List<? extends Task> updates);
+
+    // Выполняет изменения transaction как одно целое: при исключении ни одно из них не остаётся
+    void inTransaction(Consumer<TaskManager> transaction);
+
     // Дополнительные методы
     List<Subtask> getSubtasksByEpicId(int epicId);
 
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    // Задачи с началом в [from, to) по приоритету, не больше limit; null — граница не задана.
+    // Повторяющаяся задача входит каждым повторением окна — копией с тем же id и началом повторения
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    default List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return getPrioritizedTasks(from, to, Integer.MAX_VALUE);
+    }
+
+    // Страницы по возрастанию id: не больше limit записей с id больше afterId.
+    // Следующую страницу запрашивают с id последней записи текущей
+    List<Task> getTasksPage(int afterId, int limit);
+
+    List<Epic> getEpicsPage(int afterId, int limit);
+
+    List<Subtask> getSubtasksPage(int afterId, int limit);
+
+    // Свободные промежутки в [from, to) длиной не меньше duration по возрастанию времени, не больше limit
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit);
+
+    // Назначает время задачам и подзадачам без него в окне запроса; при dryRun только возвращает план
+    SchedulePlan schedule(ScheduleRequest request);
+
+    // Зависимости: taskId не может начаться раньше окончания dependsOnId. Связываются задачи и подзадачи;
+    // зависимость, замыкающая цикл, отклоняется с IllegalArgumentException. Хранятся только в памяти
+    void addDependency(int taskId, int dependsOnId);
+
+    void removeDependency(int taskId, int dependsOnId);
+
+    // Id задач и подзадач, от которых зависит taskId
+    List<Integer> getDependencies(int taskId);
+
+    // Порядок, ранние начала и критический путь подзадач эпика по их зависимостям
+    CriticalPath getCriticalPath(int epicId);
+
+    // Выборки по статусу: время пропорционально размеру результата, а не числу задач
+    List<Task> getTasksByStatus(Status status);
+
+    List<Epic> getEpicsByStatus(Status status);
+
+    List<Subtask> getSubtasksByStatus(Status status);
+
+    // Поиск по словам в названии и описании задач, эпиков и подзадач; не больше limit результатов
+    List<Task> search(String query, int limit);
 }
\ No newline at end of file
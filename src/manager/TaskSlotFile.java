@@ -0,0 +1,318 @@
+package manager;
+
+import exceptions.ManagerSaveException;
+import task.Task;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Хранилище из слотов фиксированного размера, в котором задачи перезаписываются по одной.
+ *
+ * <pre>
+ * заголовок  magic "TSKS", версия, размер слота
+ * слоты      по {@value #SLOT_SIZE} байт; задача занимает один или несколько подряд идущих слотов:
+ *            длина строки (0 — свободный участок), число слотов, номер записи, строка задачи в UTF-8
+ * </pre>
+ *
+ * <p>Изменённая задача перезаписывается на месте, если помещается в свои слоты, иначе пишется
+ * в свободный участок или в конец файла, а прежние слоты освобождаются. Удаление оставляет
+ * свободный участок, который занимают следующие записи. Номер записи растёт монотонно: если сбой
+ * случился между записью задачи на новое место и освобождением старого, при открытии остаётся
+ * более поздняя копия.
+ *
+ * <p>Экземпляр не потокобезопасен, вызовы должны быть упорядочены снаружи.
+ */
+class TaskSlotFile implements Closeable {
+    static final int MAGIC = 0x54534B53;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int SLOT_SIZE = 128;
+    static final int SLOT_HEADER_SIZE = 16;
+
+    private final File file;
+    private final DurabilityPolicy policy;
+    private final FileChannel channel;
+    private final TaskCsvCodec codec = new TaskCsvCodec();
+    // id задачи -> её участок
+    private final Map<Integer, Extent> extents = new HashMap<>();
+    // Свободные участки по длине в слотах
+    private final TreeMap<Integer, ArrayDeque<Integer>> freeExtents = new TreeMap<>();
+    private int slotCount;
+    private long sequence;
+    private List<Task> loadedRows = new ArrayList<>();
+
+    private static class Extent {
+        final int start;
+        final int length;
+        final long sequence;
+
+        Extent(int start, int length, long sequence) {
+            this.start = start;
+            this.length = length;
+            this.sequence = sequence;
+        }
+    }
+
+    private TaskSlotFile(File file, DurabilityPolicy policy, FileChannel channel) {
+        this.file = file;
+        this.policy = policy;
+        this.channel = channel;
+    }
+
+    static boolean isSlotted(File file) {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(magic, 0);
+            return magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения файла", e);
+        }
+    }
+
+    /**
+     * Открывает файл слотов и читает все задачи; их можно забрать через {@link #takeLoadedRows()}.
+     */
+    static TaskSlotFile open(File file, DurabilityPolicy policy) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            TaskSlotFile slotFile = new TaskSlotFile(file, policy, channel);
+            slotFile.scan();
+            return slotFile;
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(channel);
+            if (e instanceof IOException) {
+                throw new ManagerSaveException("Ошибка чтения файла", e);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * Записывает новый файл слотов с заданными задачами через временный файл и атомарно
+     * подменяет им {@code file}.
+     */
+    static TaskSlotFile create(File file, List<Task> rows, DurabilityPolicy policy) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            TaskSlotFile slotFile = new TaskSlotFile(tempFile, policy, channel);
+            slotFile.writeHeader();
+            slotFile.apply(rows, List.of());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения файла", e);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения файла", e);
+        }
+        TaskSlotFile slotFile = open(file, policy);
+        slotFile.loadedRows = null;
+        return slotFile;
+    }
+
+    List<Task> takeLoadedRows() {
+        List<Task> rows = loadedRows;
+        loadedRows = null;
+        return rows;
+    }
+
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    int getFreeSlotCount() {
+        int free = 0;
+        for (Map.Entry<Integer, ArrayDeque<Integer>> entry : freeExtents.entrySet()) {
+            free += entry.getKey() * entry.getValue().size();
+        }
+        return free;
+    }
+
+    /**
+     * Записывает изменённые задачи и освобождает слоты удалённых. Затрагиваются только их слоты.
+     */
+    void apply(List<Task> puts, List<Integer> removals) {
+        try {
+            for (Task task : puts) {
+                put(task);
+            }
+            for (int id : removals) {
+                Extent extent = extents.remove(id);
+                if (extent != null) {
+                    release(extent.start, extent.length);
+                }
+            }
+            if (policy != DurabilityPolicy.WRITE_THROUGH && (!puts.isEmpty() || !removals.isEmpty())) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения файла " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия файла", e);
+        }
+    }
+
+    private void put(Task task) throws IOException {
+        byte[] payload = codec.encode(task).getBytes(StandardCharsets.UTF_8);
+        int length = slotsFor(payload.length);
+        Extent current = extents.get(task.getId());
+        if (current != null && current.length >= length) {
+            writeRecord(task.getId(), current.start, current.length, payload);
+            return;
+        }
+        int start = allocate(length);
+        writeRecord(task.getId(), start, length, payload);
+        if (current != null) {
+            release(current.start, current.length);
+        }
+    }
+
+    private void writeRecord(int id, int start, int length, byte[] payload) throws IOException {
+        // Участок пишется целиком, чтобы файл всегда заканчивался на границе слота
+        ByteBuffer record = ByteBuffer.allocate(length * SLOT_SIZE);
+        record.putInt(payload.length).putInt(length).putLong(++sequence).put(payload);
+        record.clear();
+        writeFully(record, offsetOf(start));
+        extents.put(id, new Extent(start, length, sequence));
+    }
+
+    // Первый подходящий свободный участок; остаток снова становится свободным
+    private int allocate(int length) throws IOException {
+        Map.Entry<Integer, ArrayDeque<Integer>> entry = freeExtents.ceilingEntry(length);
+        if (entry == null) {
+            int start = slotCount;
+            slotCount += length;
+            return start;
+        }
+        int start = entry.getValue().poll();
+        if (entry.getValue().isEmpty()) {
+            freeExtents.remove(entry.getKey());
+        }
+        if (entry.getKey() > length) {
+            release(start + length, entry.getKey() - length);
+        }
+        return start;
+    }
+
+    private void release(int start, int length) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SLOT_HEADER_SIZE);
+        header.putInt(0).putInt(length).putLong(0);
+        header.flip();
+        writeFully(header, offsetOf(start));
+        freeExtents.computeIfAbsent(length, key -> new ArrayDeque<>()).add(start);
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(SLOT_SIZE).putInt(0);
+        header.flip();
+        writeFully(header, 0);
+    }
+
+    private void scan() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Слишком большой файл слотов: " + size);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Файл не является хранилищем слотов");
+        }
+        if (buffer.getInt(4) != VERSION || buffer.getInt(8) != SLOT_SIZE) {
+            throw new IllegalArgumentException("Неподдерживаемый формат хранилища слотов");
+        }
+        int totalSlots = (int) ((size - HEADER_SIZE) / SLOT_SIZE);
+        Map<Integer, Task> latest = new HashMap<>();
+        int start = 0;
+        while (start < totalSlots) {
+            int offset = (int) offsetOf(start);
+            int payloadLength = buffer.getInt(offset);
+            int length = buffer.getInt(offset + Integer.BYTES);
+            if (length <= 0 || payloadLength < 0 || slotsFor(payloadLength) > length) {
+                throw new IllegalArgumentException("Повреждённый слот " + start + " в файле " + file.getName());
+            }
+            if (start + length > totalSlots) {
+                // Недописанная последняя запись: отбрасываем её
+                break;
+            }
+            if (payloadLength == 0) {
+                freeExtents.computeIfAbsent(length, key -> new ArrayDeque<>()).add(start);
+            } else {
+                long recordSequence = buffer.getLong(offset + 2 * Integer.BYTES);
+                byte[] payload = new byte[payloadLength];
+                buffer.get(offset + SLOT_HEADER_SIZE, payload);
+                Task task = codec.decode(new String(payload, StandardCharsets.UTF_8));
+                Extent previous = extents.get(task.getId());
+                if (previous == null || previous.sequence < recordSequence) {
+                    if (previous != null) {
+                        release(previous.start, previous.length);
+                    }
+                    extents.put(task.getId(), new Extent(start, length, recordSequence));
+                    latest.put(task.getId(), task);
+                } else {
+                    release(start, length);
+                }
+                sequence = Math.max(sequence, recordSequence);
+            }
+            start += length;
+        }
+        slotCount = start;
+        if (offsetOf(slotCount) < size) {
+            channel.truncate(offsetOf(slotCount));
+        }
+        loadedRows = new ArrayList<>(latest.values());
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int slotsFor(int payloadLength) {
+        return (SLOT_HEADER_SIZE + payloadLength + SLOT_SIZE - 1) / SLOT_SIZE;
+    }
+
+    private static long offsetOf(int slot) {
+        return HEADER_SIZE + (long) slot * SLOT_SIZE;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Исходная ошибка важнее
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package manager;
+
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TimeSlot;
+import util.PersistentIntMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемое состояние {@link SnapshotTaskManager} на момент публикации версии. Все методы
+ * снимка согласованы между собой: эпик, его подзадачи и приоритетный список относятся к одной версии.
+ *
+ * <p>Таблицы, приоритетный список и история — неизменяемые деревья, которые следующая версия
+ * получает, копируя лишь пути к изменённым задачам. Задачи снимка разделяются между версиями и
+ * наружу не отдаются — методы возвращают копии.
+ */
+public final class TaskSnapshot {
+    static final TaskSnapshot EMPTY = new TaskSnapshot(0, PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentIntMap.empty(), TaskTimeline.EMPTY, PersistentIntMap.empty(), ViewHistory.EMPTY);
+
+    private final long version;
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+    // Задачи со временем, кроме повторяющихся, в порядке начала
+    private final TaskTimeline prioritized;
+    // Повторяющиеся задачи по id; повторения вычисляются при запросе
+    private final PersistentIntMap<Task> recurring;
+    private final ViewHistory history;
+    // Выборки по статусу и повторяющиеся задачи по началу строятся при первом запросе к версии
+    private volatile StatusLists statusLists;
+    private volatile List<Task> recurringByStart;
+
+    TaskSnapshot(long version, PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                 PersistentIntMap<Subtask> subtasks, TaskTimeline prioritized, PersistentIntMap<Task> recurring,
+                 ViewHistory history) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritized = prioritized;
+        this.recurring = recurring;
+        this.history = history;
+    }
+
+    /**
+     * Номер версии; растёт на единицу с каждой опубликованной записью или пакетом записей.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Task> getAllTasks() {
+        return copyAll(tasks.values());
+    }
+
+    public List<Epic> getAllEpics() {
+        return copyAll(epics.values());
+    }
+
+    public List<Subtask> getAllSubtasks() {
+        return copyAll(subtasks.values());
+    }
+
+    /**
+     * @return копия задачи, эпика или подзадачи с этим id либо {@code null}
+     */
+    public Task get(int id) {
+        Task task = find(id);
+        return task == null ? null : copyOf(task);
+    }
+
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return new ArrayList<>();
+        }
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskIds().size());
+        for (int subtaskId : epic.getSubtaskIds()) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                result.add(new Subtask(subtask));
+            }
+        }
+        return result;
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        if (recurring.isEmpty()) {
+            return copyAll(prioritized.toList());
+        }
+        return RecurringTasks.merge(copyAll(prioritized.toList()), copyAll(recurringByStart()), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Задачи с началом в {@code [from, to)}: поддеревья вне диапазона не обходятся,
+     * повторения вычисляются только для этого окна.
+     */
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        List<Task> result = copyAll(prioritized.range(from, to, limit));
+        if (recurring.isEmpty()) {
+            return result;
+        }
+        return RecurringTasks.merge(result, RecurringTasks.occurrences(recurring.values(), from, to, limit), limit);
+    }
+
+    /**
+     * Свободные промежутки версии: занятость до {@code from} берётся из наибольших концов
+     * поддеревьев за O(log N), остальное — обходом дерева по порядку, в который по ходу
+     * вставляются повторения.
+     */
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        FreeSlotCollector.checkArguments(duration, from, to);
+        Collection<Task> recurringTasks = recurring.values();
+        FreeSlotCollector collector = new FreeSlotCollector(duration, from, to, limit,
+                RecurringTasks.busyUntil(recurringTasks, from, prioritized.busyUntil(from)));
+        RecurringTasks.Merger merger = new RecurringTasks.Merger(recurringTasks, from, to, collector::accept);
+        if (limit > 0 && prioritized.visitRange(from, to, merger)) {
+            merger.finish();
+        }
+        return collector.finish();
+    }
+
+    /**
+     * План автопланирования по версии; снимок не меняется, поэтому запрос должен быть пробным.
+     */
+    public SchedulePlan schedule(ScheduleRequest request) {
+        if (!request.isDryRun()) {
+            throw new IllegalArgumentException("Снимок нельзя изменить: план можно только рассчитать");
+        }
+        List<Task> candidates = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (task.getStartTime() == null) {
+                candidates.add(task);
+            }
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (subtask.getStartTime() == null) {
+                candidates.add(subtask);
+            }
+        }
+        List<TimeSlot> gaps = findFreeSlots(AutoScheduler.MIN_GAP, request.getFrom(), request.getTo(),
+                Integer.MAX_VALUE);
+        return AutoScheduler.plan(candidates, gaps, request);
+    }
+
+    private List<Task> recurringByStart() {
+        List<Task> sorted = recurringByStart;
+        if (sorted == null) {
+            sorted = new ArrayList<>(recurring.values());
+            sorted.sort(InMemoryTaskManager.PRIORITY_ORDER);
+            recurringByStart = sorted;
+        }
+        return sorted;
+    }
+
+    public List<Task> getHistory() {
+        return copyAll(history.toList());
+    }
+
+    // Таблицы упорядочены по id, поэтому страница находится спуском по дереву
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return copyAll(tasks.valuesAfter(afterId, limit));
+    }
+
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return copyAll(epics.valuesAfter(afterId, limit));
+    }
+
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return copyAll(subtasks.valuesAfter(afterId, limit));
+    }
+
+    public List<Task> getTasksByStatus(Status status) {
+        return copyAll(statusLists().tasks.get(status));
+    }
+
+    public List<Epic> getEpicsByStatus(Status status) {
+        return copyAll(statusLists().epics.get(status));
+    }
+
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return copyAll(statusLists().subtasks.get(status));
+    }
+
+    private StatusLists statusLists() {
+        StatusLists lists = statusLists;
+        if (lists == null) {
+            // Гонка безопасна: два потока построят одинаковые списки
+            lists = new StatusLists(this);
+            statusLists = lists;
+        }
+        return lists;
+    }
+
+    private static class StatusLists {
+        final Map<Status, List<Task>> tasks;
+        final Map<Status, List<Epic>> epics;
+        final Map<Status, List<Subtask>> subtasks;
+
+        StatusLists(TaskSnapshot snapshot) {
+            tasks = group(snapshot.tasks.values());
+            epics = group(snapshot.epics.values());
+            subtasks = group(snapshot.subtasks.values());
+        }
+
+        private static <T extends Task> Map<Status, List<T>> group(Collection<T> values) {
+            Map<Status, List<T>> groups = new EnumMap<>(Status.class);
+            for (Status status : Status.values()) {
+                groups.put(status, new ArrayList<>());
+            }
+            for (T task : values) {
+                if (task.getStatus() != null) {
+                    groups.get(task.getStatus()).add(task);
+                }
+            }
+            return groups;
+        }
+    }
+
+    Task find(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    PersistentIntMap<Task> tasks() {
+        return tasks;
+    }
+
+    PersistentIntMap<Epic> epics() {
+        return epics;
+    }
+
+    PersistentIntMap<Subtask> subtasks() {
+        return subtasks;
+    }
+
+    TaskTimeline prioritized() {
+        return prioritized;
+    }
+
+    PersistentIntMap<Task> recurring() {
+        return recurring;
+    }
+
+    ViewHistory history() {
+        return history;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> List<T> copyAll(Collection<T> tasks) {
+        List<T> copies = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            copies.add((T) copyOf(task));
+        }
+        return copies;
+    }
+
+    static Task copyOf(Task task) {
+        switch (task.getType()) {
+            case EPIC:
+                return new Epic((Epic) task);
+            case SUBTASK:
+                return new Subtask((Subtask) task);
+            default:
+                return new Task(task);
+        }
+    }
+}
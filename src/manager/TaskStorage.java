@@ -0,0 +1,47 @@
+package manager;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Хранилище, в которое {@link FileBackedTaskManager} сохраняет своё состояние. Реализации
+ * различаются стоимостью записи и тем, какие сбои переживают данные, а менеджер от выбора не зависит.
+ *
+ * <p>Все методы, кроме {@link #close()}, менеджер вызывает под своей блокировкой
+ * ({@link StorageState#mutex()}).
+ */
+public interface TaskStorage extends Closeable {
+    /**
+     * Восстанавливает сохранённое состояние через {@code state}.
+     *
+     * @return {@code true}, если восстановленное состояние нужно сразу записать через {@link #flush},
+     * например после прерванной записи или смены формата
+     */
+    boolean load(StorageState state);
+
+    /**
+     * Сохраняет одно изменение, уже применённое к {@code state}.
+     */
+    void apply(StorageMutation mutation, StorageState state);
+
+    /**
+     * Сохраняет пакет изменений, уже применённых к {@code state}. Реализации могут записать его
+     * одной операцией; по умолчанию изменения сохраняются по одному.
+     */
+    default void applyAll(List<StorageMutation> mutations, StorageState state) {
+        for (StorageMutation mutation : mutations) {
+            apply(mutation, state);
+        }
+    }
+
+    /**
+     * Синхронно записывает всё накопленное: после возврата состояние переживает перезапуск.
+     */
+    void flush(StorageState state);
+
+    /**
+     * Дожидается фоновых записей и освобождает файлы.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,354 @@
+package manager;
+
+import task.Task;
+import task.TimeSlot;
+import util.IntObjectMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Индекс задач по времени: AVL-дерево по ключу (начало, id), в каждом узле которого хранится
+ * наибольший конец интервала в поддереве.
+ *
+ * <p>Интервал задачи полуоткрытый — {@code [start, start + duration)}, задача без длительности
+ * занимает точку {@code [start, start)}. Проверка пересечения с любым интервалом выполняется
+ * за O(log N + K), где K — число найденных пересечений; обход дерева по порядку даёт задачи,
+ * отсортированные по началу.
+ *
+ * <p>Узлы запоминают начало и конец задачи на момент добавления, поэтому задачу можно убрать
+ * по id, даже если её время уже изменили.
+ */
+class TaskTimeIndex {
+    private Node root;
+    private final IntObjectMap<Node> nodesById = new IntObjectMap<>();
+
+    private static class Node {
+        final Task task;
+        final int id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        LocalDateTime maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.end = endOf(task);
+            this.maxEnd = end;
+        }
+    }
+
+    static LocalDateTime endOf(Task task) {
+        return task.getDuration() == null ? task.getStartTime() : task.getStartTime().plus(task.getDuration());
+    }
+
+    int size() {
+        return nodesById.size();
+    }
+
+    boolean contains(int id) {
+        return nodesById.containsKey(id);
+    }
+
+    /**
+     * Добавляет задачу с заданным началом; прежняя запись с тем же id заменяется.
+     */
+    void add(Task task) {
+        remove(task.getId());
+        Node node = new Node(task);
+        root = insert(root, node);
+        nodesById.put(node.id, node);
+    }
+
+    boolean remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node.start, node.id);
+        return true;
+    }
+
+    void clear() {
+        root = null;
+        nodesById.clear();
+    }
+
+    /**
+     * Заменяет содержимое задачами, уже отсортированными по (начало, id), строя сбалансированное
+     * дерево за линейное время.
+     */
+    void rebuild(List<Task> sorted) {
+        clear();
+        for (Task task : sorted) {
+            nodesById.put(task.getId(), new Node(task));
+        }
+        if (nodesById.size() != sorted.size()) {
+            throw new IllegalArgumentException("Повторяющиеся id в индексе времени");
+        }
+        Node[] nodes = new Node[sorted.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = nodesById.get(sorted.get(i).getId());
+        }
+        root = build(nodes, 0, nodes.length - 1);
+    }
+
+    /**
+     * Задачи, интервалы которых пересекаются с {@code [start, end)}, кроме задачи {@code excludeId},
+     * в порядке начала.
+     */
+    List<Task> findOverlaps(LocalDateTime start, LocalDateTime end, int excludeId) {
+        List<Task> overlaps = new ArrayList<>();
+        collectOverlaps(root, start, end, excludeId, overlaps);
+        return overlaps;
+    }
+
+    /**
+     * Задачи с началом в {@code [from, to)} в порядке начала, не больше {@code limit}; границы
+     * {@code null} не ограничивают. Поддеревья вне диапазона не обходятся, поэтому время —
+     * O(log N + k), где k — размер результата.
+     */
+    List<Task> range(LocalDateTime from, LocalDateTime to, int limit) {
+        List<Task> result = new ArrayList<>();
+        collectRange(root, from, to, limit, result);
+        return result;
+    }
+
+    /**
+     * Свободные промежутки в {@code [from, to)} длиной не меньше {@code duration}, не больше
+     * {@code limit}. Занятость задачами, начавшимися до {@code from}, находится по maxEnd за O(log N),
+     * затем задачи диапазона обходятся по порядку до тех пор, пока не найдено {@code limit} промежутков.
+     */
+    List<TimeSlot> freeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        FreeSlotCollector collector = new FreeSlotCollector(duration, from, to, limit, busyUntil(from));
+        if (limit > 0) {
+            visitRange(root, from, to, collector::accept);
+        }
+        return collector.finish();
+    }
+
+    /**
+     * Передаёт {@code visitor} задачи с началом в {@code [from, to)} в порядке начала, пока он
+     * возвращает {@code true}.
+     *
+     * @return {@code false}, если обход остановил {@code visitor}
+     */
+    boolean visitRange(LocalDateTime from, LocalDateTime to, Predicate<Task> visitor) {
+        return visitRange(root, from, to, visitor);
+    }
+
+    // Наибольший конец среди задач, начавшихся раньше time
+    LocalDateTime busyUntil(LocalDateTime time) {
+        LocalDateTime result = null;
+        Node node = root;
+        while (node != null) {
+            if (node.start.isBefore(time)) {
+                result = later(result, node.end);
+                if (node.left != null) {
+                    result = later(result, node.left.maxEnd);
+                }
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    private static LocalDateTime later(LocalDateTime first, LocalDateTime second) {
+        return first == null || second.isAfter(first) ? second : first;
+    }
+
+    // Обходит задачи с началом в [from, to) по порядку; false — обход остановлен
+    private static boolean visitRange(Node node, LocalDateTime from, LocalDateTime to, Predicate<Task> visitor) {
+        if (node == null) {
+            return true;
+        }
+        boolean afterFrom = !node.start.isBefore(from);
+        boolean beforeTo = node.start.isBefore(to);
+        if (afterFrom && !visitRange(node.left, from, to, visitor)) {
+            return false;
+        }
+        if (afterFrom && beforeTo && !visitor.test(node.task)) {
+            return false;
+        }
+        return !beforeTo || visitRange(node.right, from, to, visitor);
+    }
+
+    /**
+     * Все задачи в порядке начала.
+     */
+    List<Task> toList() {
+        List<Task> result = new ArrayList<>(size());
+        collect(root, result);
+        return result;
+    }
+
+    private static void collectOverlaps(Node node, LocalDateTime start, LocalDateTime end, int excludeId,
+                                        List<Task> overlaps) {
+        // Ни один интервал поддерева не заканчивается позже начала запроса
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+        collectOverlaps(node.left, start, end, excludeId, overlaps);
+        // Правое поддерево начинается не раньше узла: если узел начинается после конца запроса, дальше искать нечего
+        if (!node.start.isBefore(end)) {
+            return;
+        }
+        if (node.id != excludeId && node.end.isAfter(start)) {
+            overlaps.add(node.task);
+        }
+        collectOverlaps(node.right, start, end, excludeId, overlaps);
+    }
+
+    private static void collectRange(Node node, LocalDateTime from, LocalDateTime to, int limit,
+                                     List<Task> result) {
+        if (node == null || result.size() >= limit) {
+            return;
+        }
+        boolean afterFrom = from == null || !node.start.isBefore(from);
+        boolean beforeTo = to == null || node.start.isBefore(to);
+        // Левое поддерево начинается не позже узла, правое — не раньше
+        if (afterFrom) {
+            collectRange(node.left, from, to, limit, result);
+        }
+        if (afterFrom && beforeTo && result.size() < limit) {
+            result.add(node.task);
+        }
+        if (beforeTo) {
+            collectRange(node.right, from, to, limit, result);
+        }
+    }
+
+    private static void collect(Node node, List<Task> result) {
+        if (node == null) {
+            return;
+        }
+        collect(node.left, result);
+        result.add(node.task);
+        collect(node.right, result);
+    }
+
+    private static Node build(Node[] nodes, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodes[middle];
+        node.left = build(nodes, from, middle - 1);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private static int compare(LocalDateTime start, int id, Node node) {
+        int byStart = start.compareTo(node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compare(inserted.start, inserted.id, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
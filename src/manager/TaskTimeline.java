@@ -0,0 +1,219 @@
+package manager;
+
+import task.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Неизменяемый вариант {@link TaskTimeIndex} для снимков: AVL-дерево по ключу (начало, id) с
+ * наибольшим концом интервала в каждом поддереве. {@link #with} и {@link #without} копируют только
+ * путь до изменённого узла и возвращают новую версию за O(log N); остальные узлы общие с прежней.
+ *
+ * <p>Узел запоминает начало и конец задачи при добавлении, поэтому задачи дерева менять нельзя —
+ * в снимках они и так не меняются.
+ */
+final class TaskTimeline {
+    static final TaskTimeline EMPTY = new TaskTimeline(null);
+
+    private final Node root;
+
+    private static final class Node {
+        final Task task;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final LocalDateTime maxEnd;
+        final Node left;
+        final Node right;
+        final int height;
+
+        Node(Task task, LocalDateTime start, LocalDateTime end, Node left, Node right) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            LocalDateTime max = end;
+            if (left != null && left.maxEnd.isAfter(max)) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(max)) {
+                max = right.maxEnd;
+            }
+            this.maxEnd = max;
+        }
+
+        Node(Node node, Node left, Node right) {
+            this(node.task, node.start, node.end, left, right);
+        }
+    }
+
+    private TaskTimeline(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Дерево из задач, уже отсортированных по (начало, id), за линейное время.
+     */
+    static TaskTimeline of(List<Task> sorted) {
+        return new TaskTimeline(build(sorted, 0, sorted.size() - 1));
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    TaskTimeline with(Task task) {
+        return new TaskTimeline(insert(root, task));
+    }
+
+    /**
+     * Убирает задачу, добавленную раньше; ключ берётся из её начала, поэтому это должен быть
+     * тот же неизменённый объект.
+     */
+    TaskTimeline without(Task task) {
+        return new TaskTimeline(delete(root, task.getStartTime(), task.getId()));
+    }
+
+    /**
+     * Задачи с началом в {@code [from, to)} в порядке начала, не больше {@code limit}; границы
+     * {@code null} не ограничивают.
+     */
+    List<Task> range(LocalDateTime from, LocalDateTime to, int limit) {
+        List<Task> result = new ArrayList<>();
+        if (limit > 0) {
+            visitRange(root, from, to, task -> {
+                result.add(task);
+                return result.size() < limit;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Передаёт {@code visitor} задачи с началом в {@code [from, to)} в порядке начала, пока он
+     * возвращает {@code true}.
+     *
+     * @return {@code false}, если обход остановил {@code visitor}
+     */
+    boolean visitRange(LocalDateTime from, LocalDateTime to, Predicate<Task> visitor) {
+        return visitRange(root, from, to, visitor);
+    }
+
+    // Наибольший конец среди задач, начавшихся раньше time
+    LocalDateTime busyUntil(LocalDateTime time) {
+        LocalDateTime result = null;
+        Node node = root;
+        while (node != null) {
+            if (node.start.isBefore(time)) {
+                result = later(result, node.end);
+                if (node.left != null) {
+                    result = later(result, node.left.maxEnd);
+                }
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    List<Task> toList() {
+        return range(null, null, Integer.MAX_VALUE);
+    }
+
+    private static LocalDateTime later(LocalDateTime first, LocalDateTime second) {
+        return first == null || second.isAfter(first) ? second : first;
+    }
+
+    private static boolean visitRange(Node node, LocalDateTime from, LocalDateTime to, Predicate<Task> visitor) {
+        if (node == null) {
+            return true;
+        }
+        boolean afterFrom = from == null || !node.start.isBefore(from);
+        boolean beforeTo = to == null || node.start.isBefore(to);
+        if (afterFrom && !visitRange(node.left, from, to, visitor)) {
+            return false;
+        }
+        if (afterFrom && beforeTo && !visitor.test(node.task)) {
+            return false;
+        }
+        return !beforeTo || visitRange(node.right, from, to, visitor);
+    }
+
+    private static Node build(List<Task> sorted, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Task task = sorted.get(middle);
+        return new Node(task, task.getStartTime(), TaskTimeIndex.endOf(task),
+                build(sorted, from, middle - 1), build(sorted, middle + 1, to));
+    }
+
+    private static int compare(LocalDateTime start, int id, Node node) {
+        int byStart = start.compareTo(node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.task.getId());
+    }
+
+    private static Node insert(Node node, Task task) {
+        if (node == null) {
+            return new Node(task, task.getStartTime(), TaskTimeIndex.endOf(task), null, null);
+        }
+        if (compare(task.getStartTime(), task.getId(), node) < 0) {
+            return balance(node, insert(node.left, task), node.right);
+        }
+        return balance(node, node.left, insert(node.right, task));
+    }
+
+    private static Node delete(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            return balance(node, delete(node.left, start, id), node.right);
+        }
+        if (comparison > 0) {
+            return balance(node, node.left, delete(node.right, start, id));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor, node.left, delete(node.right, successor.start, successor.task.getId()));
+    }
+
+    // Копия узла с новыми потомками; при перекосе высот больше чем на один выполняются повороты
+    private static Node balance(Node node, Node left, Node right) {
+        int factor = height(left) - height(right);
+        if (factor > 1) {
+            if (height(left.left) < height(left.right)) {
+                Node pivot = left.right;
+                return new Node(pivot, new Node(left, left.left, pivot.left), new Node(node, pivot.right, right));
+            }
+            return new Node(left, left.left, new Node(node, left.right, right));
+        }
+        if (factor < -1) {
+            if (height(right.right) < height(right.left)) {
+                Node pivot = right.left;
+                return new Node(pivot, new Node(node, left, pivot.left), new Node(right, pivot.right, right.right));
+            }
+            return new Node(right, new Node(node, left, right.left), right.right);
+        }
+        return new Node(node, left, right);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
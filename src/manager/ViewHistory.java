@@ -0,0 +1,62 @@
+package manager;
+
+import task.Task;
+import util.PersistentIntMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Неизменяемая история просмотров для {@link TaskSnapshot}. Просмотры пронумерованы по порядку:
+ * одна таблица ведёт номер к задаче, другая — id к номеру её последнего просмотра, поэтому
+ * повторный просмотр или удаление задачи дают новую версию за O(log N), не копируя историю.
+ */
+final class ViewHistory {
+    static final ViewHistory EMPTY = new ViewHistory(PersistentIntMap.empty(), PersistentIntMap.empty(), 0);
+
+    private final PersistentIntMap<Task> views;
+    private final PersistentIntMap<Integer> positions;
+    private final int nextPosition;
+
+    private ViewHistory(PersistentIntMap<Task> views, PersistentIntMap<Integer> positions, int nextPosition) {
+        this.views = views;
+        this.positions = positions;
+        this.nextPosition = nextPosition;
+    }
+
+    /**
+     * История с задачами в порядке просмотра, от давних к последним.
+     */
+    static ViewHistory of(List<Task> history) {
+        ViewHistory result = EMPTY;
+        for (Task task : history) {
+            result = result.viewed(task);
+        }
+        return result;
+    }
+
+    /**
+     * Ставит задачу в конец истории; прежний просмотр той же задачи убирается.
+     */
+    ViewHistory viewed(Task task) {
+        if (nextPosition == Integer.MAX_VALUE) {
+            // Номера кончились: история перенумеровывается с нуля
+            return of(toList()).viewed(task);
+        }
+        ViewHistory remaining = without(task.getId());
+        return new ViewHistory(remaining.views.put(nextPosition, task),
+                remaining.positions.put(task.getId(), nextPosition), nextPosition + 1);
+    }
+
+    ViewHistory without(int id) {
+        Integer position = positions.get(id);
+        if (position == null) {
+            return this;
+        }
+        return new ViewHistory(views.remove(position), positions.remove(id), nextPosition);
+    }
+
+    List<Task> toList() {
+        return new ArrayList<>(views.values());
+    }
+}
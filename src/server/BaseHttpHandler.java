@@ -2,11 +2,22 @@ package server;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import task.Status;
+import task.Task;
 import java.io.IOException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class BaseHttpHandler {
     protected static final Gson GSON = GsonFactory.createGson();
+    protected static final int DEFAULT_PAGE_LIMIT = 100;
+    protected static final int MAX_PAGE_LIMIT = 1000;
+    // Заголовок с курсором следующей страницы: id последней записи текущей
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-After";
 
     protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
         byte[] response = text.getBytes(StandardCharsets.UTF_8);
@@ -34,6 +45,11 @@ public class BaseHttpHandler {
         sendText(exchange, response, 406);
     }
 
+    protected void sendHasOverlaps(HttpExchange exchange, String message, List<Task> conflicts) throws IOException {
+        String response = GSON.toJson(new OverlapResponse(message, conflicts));
+        sendText(exchange, response, 406);
+    }
+
     protected void sendBadRequest(HttpExchange exchange, String message) throws IOException {
         String response = GSON.toJson(new ErrorResponse(message));
         sendText(exchange, response, 400);
@@ -48,6 +64,85 @@ public class BaseHttpHandler {
         return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
     }
 
+    protected Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * @return статус по имени без учёта регистра или {@code null}, если такого статуса нет
+     */
+    protected Status parseStatus(String value) {
+        try {
+            return Status.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return положительное число или {@code null}, если значение не число или не больше нуля
+     */
+    protected Integer parsePositiveInt(String value) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return запрошена ли страница, то есть задан ли {@code limit} или {@code after}
+     */
+    protected boolean isPageRequest(Map<String, String> params) {
+        return params.containsKey("limit") || params.containsKey("after");
+    }
+
+    /**
+     * Разбирает {@code ?limit=&after=}: limit по умолчанию {@value #DEFAULT_PAGE_LIMIT}, не больше
+     * {@value #MAX_PAGE_LIMIT}; after по умолчанию 0, то есть с начала.
+     *
+     * @return параметры страницы или {@code null}, если они некорректны
+     */
+    protected PageRequest parsePageRequest(Map<String, String> params) {
+        Integer limit = params.containsKey("limit")
+                ? parsePositiveInt(params.get("limit")) : Integer.valueOf(DEFAULT_PAGE_LIMIT);
+        if (limit == null || limit > MAX_PAGE_LIMIT) {
+            return null;
+        }
+        int after = 0;
+        if (params.containsKey("after")) {
+            Integer parsed = parsePositiveInt(params.get("after"));
+            if (parsed == null) {
+                return null;
+            }
+            after = parsed;
+        }
+        return new PageRequest(after, limit);
+    }
+
+    /**
+     * Отправляет страницу; если она заполнена целиком, добавляет курсор следующей.
+     */
+    protected void sendPage(HttpExchange exchange, String json, List<? extends Task> page, PageRequest request)
+            throws IOException {
+        if (!page.isEmpty() && page.size() == request.limit) {
+            exchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        sendSuccess(exchange, json);
+    }
+
     protected Integer extractId(String path) {
         try {
             String[] parts = path.split("/");
@@ -57,6 +152,16 @@ public class BaseHttpHandler {
         }
     }
 
+    protected static class PageRequest {
+        final int after;
+        final int limit;
+
+        PageRequest(int after, int limit) {
+            this.after = after;
+            this.limit = limit;
+        }
+    }
+
     private static class ErrorResponse {
         private final String error;
 
@@ -68,4 +173,14 @@ public class BaseHttpHandler {
             return error;
         }
     }
-}
\ No newline at end of file
+
+    private static class OverlapResponse {
+        private final String error;
+        private final List<Task> conflicts;
+
+        public OverlapResponse(String error, List<Task> conflicts) {
+            this.error = error;
+            this.conflicts = conflicts;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import exceptions.ManagerValidationException;
+import exceptions.NotFoundException;
+import manager.TaskManager;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакетное создание и обновление: {@code POST /batch} с телом
+ * <pre>{"createTasks": [...], "createSubtasks": [...],
+ *  "updateTasks": [...], "updateSubtasks": [...], "updateEpics": [...]}</pre>
+ * Любой раздел можно опустить. Сначала одним пакетом применяются обновления, затем создаются
+ * задачи и подзадачи; весь запрос выполняется в одной транзакции, целиком или никак.
+ */
+public class BatchHandler extends BaseHttpHandler implements HttpHandler {
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public BatchHandler(TaskManager taskManager, Gson gson) {
+        this.taskManager = taskManager;
+        this.gson = gson;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        System.out.println("=== BatchHandler ===");
+        System.out.println("Метод: " + exchange.getRequestMethod());
+        System.out.println("Путь: " + exchange.getRequestURI().getPath());
+
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendBadRequest(exchange, "Неподдерживаемый метод: " + exchange.getRequestMethod());
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/batch")) {
+                sendNotFound(exchange, "Ресурс не найден");
+                return;
+            }
+            handlePost(exchange);
+        } catch (Exception e) {
+            System.out.println("Ошибка в BatchHandler: " + e.getMessage());
+            e.printStackTrace();
+            sendInternalError(exchange, "Внутренняя ошибка сервера: " + e.getMessage());
+        }
+    }
+
+    private void handlePost(HttpExchange exchange) throws IOException {
+        try {
+            BatchRequest request = gson.fromJson(readRequestBody(exchange), BatchRequest.class);
+            if (request == null) {
+                sendBadRequest(exchange, "Пустой пакет");
+                return;
+            }
+
+            List<Task> updates = new ArrayList<>();
+            updates.addAll(orEmpty(request.updateTasks));
+            updates.addAll(orEmpty(request.updateSubtasks));
+            updates.addAll(orEmpty(request.updateEpics));
+            List<Task> createdTasks = orEmpty(request.createTasks);
+            List<Subtask> createdSubtasks = orEmpty(request.createSubtasks);
+            taskManager.inTransaction(tx -> {
+                if (!updates.isEmpty()) {
+                    tx.updateMany(updates);
+                }
+                if (!createdTasks.isEmpty()) {
+                    tx.createTasks(createdTasks);
+                }
+                if (!createdSubtasks.isEmpty()) {
+                    tx.createSubtasks(createdSubtasks);
+                }
+            });
+
+            System.out.println("Пакет: обновлено " + updates.size() + ", создано задач " + createdTasks.size()
+                    + ", подзадач " + createdSubtasks.size());
+            sendCreated(exchange, gson.toJson(new BatchResponse(createdTasks, createdSubtasks, updates.size())));
+        } catch (JsonSyntaxException e) {
+            System.out.println("Ошибка парсинга JSON: " + e.getMessage());
+            sendBadRequest(exchange, "Некорректный JSON: " + e.getMessage());
+        } catch (ManagerValidationException e) {
+            System.out.println("Ошибка валидации: " + e.getMessage());
+            sendHasOverlaps(exchange, e.getMessage(), e.getConflicts());
+        } catch (NotFoundException e) {
+            sendNotFound(exchange, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? new ArrayList<>() : list;
+    }
+
+    private static class BatchRequest {
+        private List<Task> createTasks;
+        private List<Subtask> createSubtasks;
+        private List<Task> updateTasks;
+        private List<Subtask> updateSubtasks;
+        private List<Epic> updateEpics;
+    }
+
+    private static class BatchResponse {
+        private final List<Task> tasks;
+        private final List<Subtask> subtasks;
+        private final int updated;
+
+        BatchResponse(List<Task> tasks, List<Subtask> subtasks, int updated) {
+            this.tasks = tasks;
+            this.subtasks = subtasks;
+            this.updated = updated;
+        }
+    }
+}
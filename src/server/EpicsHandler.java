@@ -4,12 +4,15 @@ import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import manager.CriticalPath;
 import manager.TaskManager;
 import exceptions.NotFoundException;
 import task.Epic;
+import task.Status;
 import task.Subtask;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager taskManager;
@@ -54,7 +57,35 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
         System.out.println("Обработка GET для пути: " + path);
 
         if (path.equals("/epics")) {
-            List<Epic> epics = taskManager.getAllEpics();
+            Map<String, String> params = queryParams(exchange);
+            String statusParam = params.get("status");
+            if (isPageRequest(params)) {
+                PageRequest page = parsePageRequest(params);
+                if (page == null) {
+                    sendBadRequest(exchange, "Некорректные параметры страницы: limit от 1 до " + MAX_PAGE_LIMIT
+                            + ", after — положительный id");
+                    return;
+                }
+                if (statusParam != null) {
+                    sendBadRequest(exchange, "Фильтр по статусу не поддерживает постраничное чтение");
+                    return;
+                }
+                List<Epic> epics = taskManager.getEpicsPage(page.after, page.limit);
+                System.out.println("Страница эпиков: " + epics.size());
+                sendPage(exchange, gson.toJson(epics), epics, page);
+                return;
+            }
+            List<Epic> epics;
+            if (statusParam == null) {
+                epics = taskManager.getAllEpics();
+            } else {
+                Status status = parseStatus(statusParam);
+                if (status == null) {
+                    sendBadRequest(exchange, "Некорректный статус: " + statusParam);
+                    return;
+                }
+                epics = taskManager.getEpicsByStatus(status);
+            }
             System.out.println("Найдено эпиков: " + epics.size());
             String response = gson.toJson(epics);
             sendSuccess(exchange, response);
@@ -72,6 +103,17 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
             } catch (NotFoundException e) {
                 sendNotFound(exchange, e.getMessage());
             }
+        } else if (path.matches("/epics/\\d+/critical-path")) {
+            try {
+                int epicId = Integer.parseInt(path.split("/")[2]);
+                CriticalPath criticalPath = taskManager.getCriticalPath(epicId);
+                System.out.println("Критический путь эпика " + epicId + ": " + criticalPath.getPath());
+                sendSuccess(exchange, gson.toJson(criticalPath));
+            } catch (NumberFormatException e) {
+                sendBadRequest(exchange, "Некорректный ID эпика");
+            } catch (NotFoundException e) {
+                sendNotFound(exchange, e.getMessage());
+            }
         } else if (path.matches("/epics/\\d+/subtasks")) {
             String[] pathParts = path.split("/");
             if (pathParts.length < 4) {
@@ -2,6 +2,8 @@ package server;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import task.Recurrence;
+import util.IntOrderedSet;
 import java.time.Duration;
 import java.time.LocalDateTime;
 
@@ -10,6 +12,8 @@ public class GsonFactory {
         return new GsonBuilder()
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
                 .registerTypeAdapter(Duration.class, new DurationAdapter())
+                .registerTypeAdapter(IntOrderedSet.class, new IntOrderedSetAdapter())
+                .registerTypeAdapter(Recurrence.class, new RecurrenceAdapter())
                 .setPrettyPrinting()
                 .create();
     }
@@ -2,6 +2,7 @@ package server;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpServer;
+import manager.ConcurrentTaskManager;
 import manager.Managers;
 import manager.TaskManager;
 import task.Epic;
@@ -11,10 +12,13 @@ import task.Status;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
     private static final int PORT = 8080;
     private final HttpServer server;
+    private final ExecutorService executor;
     private final TaskManager taskManager;
     private final Gson gson;
 
@@ -27,9 +31,14 @@ public class HttpTaskServer {
     }
 
     public HttpTaskServer(TaskManager taskManager, boolean addTestData) throws IOException {
-        this.taskManager = taskManager;
+        // Запросы обрабатываются пулом потоков, поэтому менеджер оборачивается в потокобезопасный
+        this.taskManager = taskManager instanceof ConcurrentTaskManager
+                ? taskManager
+                : new ConcurrentTaskManager(taskManager);
         this.gson = GsonFactory.createGson();
         this.server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
 
         if (addTestData) {
             addTestData();
@@ -94,6 +103,10 @@ public class HttpTaskServer {
         server.createContext("/epics", new EpicsHandler(taskManager, gson));
         server.createContext("/history", new HistoryHandler(taskManager, gson));
         server.createContext("/prioritized", new PrioritizedHandler(taskManager, gson));
+        server.createContext("/search", new SearchHandler(taskManager, gson));
+        server.createContext("/batch", new BatchHandler(taskManager, gson));
+        server.createContext("/slots", new SlotsHandler(taskManager, gson));
+        server.createContext("/schedule", new ScheduleHandler(taskManager, gson));
 
         System.out.println("✅ Маршруты настроены");
     }
@@ -104,19 +117,26 @@ public class HttpTaskServer {
         System.out.println("🚀 HTTP Task Server запущен на порту " + PORT);
         System.out.println("==================================================");
         System.out.println("Доступные эндпоинты:");
-        System.out.println("• GET  http://localhost:8080/tasks");
+        System.out.println("• GET  http://localhost:8080/tasks[?limit=...&after=...]");
         System.out.println("• GET  http://localhost:8080/tasks/{id}");
         System.out.println("• POST http://localhost:8080/tasks");
         System.out.println("• DELETE http://localhost:8080/tasks/{id}");
-        System.out.println("• GET  http://localhost:8080/epics");
+        System.out.println("• GET  http://localhost:8080/epics[?limit=...&after=...]");
         System.out.println("• GET  http://localhost:8080/epics/{id}/subtasks");
+        System.out.println("• GET  http://localhost:8080/epics/{id}/critical-path");
+        System.out.println("• POST|DELETE http://localhost:8080/subtasks/{id}/dependencies/{dependsOnId}");
         System.out.println("• GET  http://localhost:8080/history");
-        System.out.println("• GET  http://localhost:8080/prioritized");
+        System.out.println("• GET  http://localhost:8080/prioritized[?from=...&to=...&limit=...]");
+        System.out.println("• GET  http://localhost:8080/search?q=...");
+        System.out.println("• POST http://localhost:8080/batch");
+        System.out.println("• GET  http://localhost:8080/slots?duration=...&from=...&to=...");
+        System.out.println("• POST http://localhost:8080/schedule[?dryRun=true]");
         System.out.println("==================================================");
     }
 
     public void stop() {
         server.stop(0);
+        executor.shutdown();
         System.out.println("🛑 HTTP Task Server остановлен");
     }
 
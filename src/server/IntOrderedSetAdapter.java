@@ -0,0 +1,38 @@
+package server;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import util.IntOrderedSet;
+import java.io.IOException;
+
+public class IntOrderedSetAdapter extends TypeAdapter<IntOrderedSet> {
+    @Override
+    public void write(JsonWriter out, IntOrderedSet value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int id : value.toArray()) {
+            out.value(id);
+        }
+        out.endArray();
+    }
+
+    @Override
+    public IntOrderedSet read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        IntOrderedSet value = new IntOrderedSet();
+        in.beginArray();
+        while (in.hasNext()) {
+            value.add(in.nextInt());
+        }
+        in.endArray();
+        return value;
+    }
+}
@@ -6,9 +6,15 @@ import com.sun.net.httpserver.HttpHandler;
 import manager.TaskManager;
 import task.Task;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
+    // Ограничение ответа, если задан диапазон, но не задан limit
+    private static final int DEFAULT_LIMIT = 1000;
+
     private final TaskManager taskManager;
     private final Gson gson;
 
@@ -29,7 +35,27 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
                 return;
             }
 
-            List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+            Map<String, String> params = queryParams(exchange);
+            List<Task> prioritizedTasks;
+            if (params.containsKey("from") || params.containsKey("to") || params.containsKey("limit")) {
+                LocalDateTime from;
+                LocalDateTime to;
+                try {
+                    from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null;
+                    to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null;
+                } catch (DateTimeParseException e) {
+                    sendBadRequest(exchange, "Некорректная граница диапазона: " + e.getParsedString());
+                    return;
+                }
+                Integer limit = params.containsKey("limit") ? parsePositiveInt(params.get("limit")) : Integer.valueOf(DEFAULT_LIMIT);
+                if (limit == null) {
+                    sendBadRequest(exchange, "Некорректный limit: " + params.get("limit"));
+                    return;
+                }
+                prioritizedTasks = taskManager.getPrioritizedTasks(from, to, limit);
+            } else {
+                prioritizedTasks = taskManager.getPrioritizedTasks();
+            }
             System.out.println("Приоритетных задач: " + prioritizedTasks.size());
             String response = gson.toJson(prioritizedTasks);
             sendSuccess(exchange, response);
@@ -0,0 +1,37 @@
+package server;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import task.Recurrence;
+import java.io.IOException;
+
+// Правило повторения передаётся строкой вида "FREQ=DAILY;INTERVAL=1;COUNT=10"
+public class RecurrenceAdapter extends TypeAdapter<Recurrence> {
+    @Override
+    public void write(JsonWriter out, Recurrence value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.toString());
+        }
+    }
+
+    @Override
+    public Recurrence read(JsonReader in) throws IOException {
+        if (in.peek() == com.google.gson.stream.JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String value = in.nextString();
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Recurrence.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import exceptions.ManagerValidationException;
+import manager.SchedulePlan;
+import manager.ScheduleRequest;
+import manager.TaskManager;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Автопланирование: {@code POST /schedule[?dryRun=true]} с телом
+ * <pre>{"from": "...", "to": "...", "defaultDuration": 30,
+ *  "priorities": {"12": 5}, "deadlines": {"12": "2025-01-10T18:00:00"}}</pre>
+ * Задачам и подзадачам без времени начала назначается время в окне {@code [from, to)}.
+ * С {@code dryRun=true} возвращается только план, задачи не меняются.
+ */
+public class ScheduleHandler extends BaseHttpHandler implements HttpHandler {
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public ScheduleHandler(TaskManager taskManager, Gson gson) {
+        this.taskManager = taskManager;
+        this.gson = gson;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        System.out.println("=== ScheduleHandler ===");
+        System.out.println("Метод: " + exchange.getRequestMethod());
+        System.out.println("Путь: " + exchange.getRequestURI().getPath());
+
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendBadRequest(exchange, "Неподдерживаемый метод: " + exchange.getRequestMethod());
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/schedule")) {
+                sendNotFound(exchange, "Ресурс не найден");
+                return;
+            }
+            handlePost(exchange);
+        } catch (Exception e) {
+            System.out.println("Ошибка в ScheduleHandler: " + e.getMessage());
+            e.printStackTrace();
+            sendInternalError(exchange, "Внутренняя ошибка сервера: " + e.getMessage());
+        }
+    }
+
+    private void handlePost(HttpExchange exchange) throws IOException {
+        String dryRunParam = queryParams(exchange).get("dryRun");
+        if (dryRunParam != null && !dryRunParam.equals("true") && !dryRunParam.equals("false")) {
+            sendBadRequest(exchange, "Некорректный dryRun: " + dryRunParam);
+            return;
+        }
+        boolean dryRun = "true".equals(dryRunParam);
+
+        try {
+            ScheduleBody body = gson.fromJson(readRequestBody(exchange), ScheduleBody.class);
+            if (body == null || body.from == null || body.to == null) {
+                sendBadRequest(exchange, "Не задано окно планирования from и to");
+                return;
+            }
+            ScheduleRequest request = new ScheduleRequest(body.from, body.to, dryRun);
+            request.setDefaultDuration(body.defaultDuration);
+            if (body.priorities != null) {
+                body.priorities.forEach(request::setPriority);
+            }
+            if (body.deadlines != null) {
+                body.deadlines.forEach(request::setDeadline);
+            }
+
+            SchedulePlan plan = taskManager.schedule(request);
+            System.out.println("План: назначено " + plan.getAssignments().size() + ", не поместилось "
+                    + plan.getUnscheduledIds().size() + (dryRun ? " (пробный запуск)" : ""));
+            if (plan.isApplied()) {
+                sendCreated(exchange, gson.toJson(plan));
+            } else {
+                sendSuccess(exchange, gson.toJson(plan));
+            }
+        } catch (JsonSyntaxException e) {
+            System.out.println("Ошибка парсинга JSON: " + e.getMessage());
+            sendBadRequest(exchange, "Некорректный JSON: " + e.getMessage());
+        } catch (ManagerValidationException e) {
+            System.out.println("Ошибка валидации: " + e.getMessage());
+            sendHasOverlaps(exchange, e.getMessage(), e.getConflicts());
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
+    }
+
+    private static class ScheduleBody {
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private Duration defaultDuration;
+        private Map<Integer, Integer> priorities;
+        private Map<Integer, LocalDateTime> deadlines;
+    }
+}
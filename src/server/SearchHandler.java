@@ -0,0 +1,61 @@
+package server;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import manager.TaskManager;
+import task.Task;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class SearchHandler extends BaseHttpHandler implements HttpHandler {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public SearchHandler(TaskManager taskManager, Gson gson) {
+        this.taskManager = taskManager;
+        this.gson = gson;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        System.out.println("=== SearchHandler ===");
+        System.out.println("Метод: " + exchange.getRequestMethod());
+        System.out.println("Путь: " + exchange.getRequestURI().getPath());
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendBadRequest(exchange, "Неподдерживаемый метод: " + exchange.getRequestMethod());
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/search")) {
+                sendNotFound(exchange, "Ресурс не найден");
+                return;
+            }
+
+            Map<String, String> params = queryParams(exchange);
+            String query = params.get("q");
+            if (query == null || query.isBlank()) {
+                sendBadRequest(exchange, "Не задан поисковый запрос q");
+                return;
+            }
+            Integer limit = params.containsKey("limit") ? parsePositiveInt(params.get("limit")) : Integer.valueOf(DEFAULT_LIMIT);
+            if (limit == null) {
+                sendBadRequest(exchange, "Некорректный limit: " + params.get("limit"));
+                return;
+            }
+
+            List<Task> found = taskManager.search(query, limit);
+            System.out.println("Найдено по запросу \"" + query + "\": " + found.size());
+            sendSuccess(exchange, gson.toJson(found));
+
+        } catch (Exception e) {
+            System.out.println("Ошибка в SearchHandler: " + e.getMessage());
+            e.printStackTrace();
+            sendInternalError(exchange, "Внутренняя ошибка сервера: " + e.getMessage());
+        }
+    }
+}
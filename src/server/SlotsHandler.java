@@ -0,0 +1,88 @@
+package server;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import manager.TaskManager;
+import task.TimeSlot;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /slots?duration=&from=&to=&limit=} — свободные промежутки расписания, в которые
+ * помещается задача длительностью {@code duration} минут.
+ */
+public class SlotsHandler extends BaseHttpHandler implements HttpHandler {
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final TaskManager taskManager;
+    private final Gson gson;
+
+    public SlotsHandler(TaskManager taskManager, Gson gson) {
+        this.taskManager = taskManager;
+        this.gson = gson;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        System.out.println("=== SlotsHandler ===");
+        System.out.println("Метод: " + exchange.getRequestMethod());
+        System.out.println("Путь: " + exchange.getRequestURI().getPath());
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendBadRequest(exchange, "Неподдерживаемый метод: " + exchange.getRequestMethod());
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/slots")) {
+                sendNotFound(exchange, "Ресурс не найден");
+                return;
+            }
+
+            Map<String, String> params = queryParams(exchange);
+            Integer minutes = params.containsKey("duration") ? parsePositiveInt(params.get("duration")) : null;
+            if (minutes == null) {
+                sendBadRequest(exchange, "Не задана или некорректна длительность duration (в минутах)");
+                return;
+            }
+            if (!params.containsKey("from") || !params.containsKey("to")) {
+                sendBadRequest(exchange, "Не задан диапазон поиска from и to");
+                return;
+            }
+            LocalDateTime from;
+            LocalDateTime to;
+            try {
+                from = LocalDateTime.parse(params.get("from"));
+                to = LocalDateTime.parse(params.get("to"));
+            } catch (DateTimeParseException e) {
+                sendBadRequest(exchange, "Некорректная граница диапазона: " + e.getParsedString());
+                return;
+            }
+            Integer limit = params.containsKey("limit")
+                    ? parsePositiveInt(params.get("limit")) : Integer.valueOf(DEFAULT_LIMIT);
+            if (limit == null) {
+                sendBadRequest(exchange, "Некорректный limit: " + params.get("limit"));
+                return;
+            }
+
+            List<TimeSlot> slots;
+            try {
+                slots = taskManager.findFreeSlots(Duration.ofMinutes(minutes), from, to, limit);
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, e.getMessage());
+                return;
+            }
+            System.out.println("Свободных промежутков: " + slots.size());
+            sendSuccess(exchange, gson.toJson(slots));
+
+        } catch (Exception e) {
+            System.out.println("Ошибка в SlotsHandler: " + e.getMessage());
+            e.printStackTrace();
+            sendInternalError(exchange, "Внутренняя ошибка сервера: " + e.getMessage());
+        }
+    }
+}
@@ -7,11 +7,15 @@ import com.sun.net.httpserver.HttpHandler;
 import manager.TaskManager;
 import exceptions.ManagerValidationException;
 import exceptions.NotFoundException;
+import task.Status;
 import task.Subtask;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
         public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
+            private static final String DEPENDENCY_PATH = "/subtasks/\\d+/dependencies/\\d+";
+
             private final TaskManager taskManager;
             private final Gson gson;
 
@@ -35,10 +39,18 @@ import java.util.List;
                             handleGet(exchange, path);
                             break;
                         case "POST":
-                            handlePost(exchange);
+                            if (path.matches(DEPENDENCY_PATH)) {
+                                handleDependency(exchange, path, true);
+                            } else {
+                                handlePost(exchange);
+                            }
                             break;
                         case "DELETE":
-                            handleDelete(exchange, path);
+                            if (path.matches(DEPENDENCY_PATH)) {
+                                handleDependency(exchange, path, false);
+                            } else {
+                                handleDelete(exchange, path);
+                            }
                             break;
                         default:
                             sendBadRequest(exchange, "Неподдерживаемый метод: " + method);
@@ -54,10 +66,47 @@ import java.util.List;
                 System.out.println("Обработка GET для пути: " + path);
 
                 if (path.equals("/subtasks")) {
-                    List<Subtask> subtasks = taskManager.getAllSubtasks();
+                    Map<String, String> params = queryParams(exchange);
+                    String statusParam = params.get("status");
+                    if (isPageRequest(params)) {
+                        PageRequest page = parsePageRequest(params);
+                        if (page == null) {
+                            sendBadRequest(exchange, "Некорректные параметры страницы: limit от 1 до " + MAX_PAGE_LIMIT
+                                    + ", after — положительный id");
+                            return;
+                        }
+                        if (statusParam != null) {
+                            sendBadRequest(exchange, "Фильтр по статусу не поддерживает постраничное чтение");
+                            return;
+                        }
+                        List<Subtask> subtasks = taskManager.getSubtasksPage(page.after, page.limit);
+                        System.out.println("Страница подзадач: " + subtasks.size());
+                        sendPage(exchange, gson.toJson(subtasks), subtasks, page);
+                        return;
+                    }
+                    List<Subtask> subtasks;
+                    if (statusParam == null) {
+                        subtasks = taskManager.getAllSubtasks();
+                    } else {
+                        Status status = parseStatus(statusParam);
+                        if (status == null) {
+                            sendBadRequest(exchange, "Некорректный статус: " + statusParam);
+                            return;
+                        }
+                        subtasks = taskManager.getSubtasksByStatus(status);
+                    }
                     System.out.println("Найдено подзадач: " + subtasks.size());
                     String response = gson.toJson(subtasks);
                     sendSuccess(exchange, response);
+                } else if (path.matches("/subtasks/\\d+/dependencies")) {
+                    try {
+                        List<Integer> dependencies = taskManager.getDependencies(Integer.parseInt(path.split("/")[2]));
+                        sendSuccess(exchange, gson.toJson(dependencies));
+                    } catch (NumberFormatException e) {
+                        sendBadRequest(exchange, "Некорректный ID подзадачи");
+                    } catch (NotFoundException e) {
+                        sendNotFound(exchange, e.getMessage());
+                    }
                 } else if (path.matches("/subtasks/\\d+")) {
                     Integer id = extractId(path);
                     if (id == null) {
@@ -100,13 +149,38 @@ import java.util.List;
                     sendBadRequest(exchange, "Некорректный JSON: " + e.getMessage());
                 } catch (ManagerValidationException e) {
                     System.out.println("Ошибка валидации: " + e.getMessage());
-                    sendHasOverlaps(exchange, e.getMessage());
+                    sendHasOverlaps(exchange, e.getMessage(), e.getConflicts());
                 } catch (NotFoundException | IllegalArgumentException e) {
                     System.out.println("Подзадача не найдена: " + e.getMessage());
                     sendNotFound(exchange, e.getMessage());
                 }
             }
 
+            // POST и DELETE /subtasks/{id}/dependencies/{dependsOnId}: подзадача id не начнётся раньше dependsOnId
+            private void handleDependency(HttpExchange exchange, String path, boolean add) throws IOException {
+                String[] parts = path.split("/");
+                try {
+                    int id = Integer.parseInt(parts[2]);
+                    int dependsOnId = Integer.parseInt(parts[4]);
+                    if (add) {
+                        taskManager.addDependency(id, dependsOnId);
+                        System.out.println("Подзадача " + id + " зависит от " + dependsOnId);
+                        sendCreated(exchange, "Зависимость добавлена");
+                    } else {
+                        taskManager.removeDependency(id, dependsOnId);
+                        System.out.println("Подзадача " + id + " больше не зависит от " + dependsOnId);
+                        sendSuccess(exchange, "Зависимость удалена");
+                    }
+                } catch (NumberFormatException e) {
+                    sendBadRequest(exchange, "Некорректный ID задачи");
+                } catch (NotFoundException e) {
+                    sendNotFound(exchange, e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Зависимость отклонена: " + e.getMessage());
+                    sendBadRequest(exchange, e.getMessage());
+                }
+            }
+
             private void handleDelete(HttpExchange exchange, String path) throws IOException {
                 System.out.println("Обработка DELETE для пути: " + path);
 
@@ -7,9 +7,11 @@ import com.sun.net.httpserver.HttpHandler;
 import manager.TaskManager;
 import exceptions.ManagerValidationException;
 import exceptions.NotFoundException;
+import task.Status;
 import task.Task;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class TasksHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager taskManager;
@@ -54,7 +56,35 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
         System.out.println("Обработка GET для пути: " + path);
 
         if (path.equals("/tasks")) {
-            List<Task> tasks = taskManager.getAllTasks();
+            Map<String, String> params = queryParams(exchange);
+            String statusParam = params.get("status");
+            if (isPageRequest(params)) {
+                PageRequest page = parsePageRequest(params);
+                if (page == null) {
+                    sendBadRequest(exchange, "Некорректные параметры страницы: limit от 1 до " + MAX_PAGE_LIMIT
+                            + ", after — положительный id");
+                    return;
+                }
+                if (statusParam != null) {
+                    sendBadRequest(exchange, "Фильтр по статусу не поддерживает постраничное чтение");
+                    return;
+                }
+                List<Task> tasks = taskManager.getTasksPage(page.after, page.limit);
+                System.out.println("Страница задач: " + tasks.size());
+                sendPage(exchange, gson.toJson(tasks), tasks, page);
+                return;
+            }
+            List<Task> tasks;
+            if (statusParam == null) {
+                tasks = taskManager.getAllTasks();
+            } else {
+                Status status = parseStatus(statusParam);
+                if (status == null) {
+                    sendBadRequest(exchange, "Некорректный статус: " + statusParam);
+                    return;
+                }
+                tasks = taskManager.getTasksByStatus(status);
+            }
             System.out.println("Найдено задач: " + tasks.size());
             String response = gson.toJson(tasks);
             sendSuccess(exchange, response);
@@ -100,10 +130,13 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
             sendBadRequest(exchange, "Некорректный JSON: " + e.getMessage());
         } catch (ManagerValidationException e) {
             System.out.println("Ошибка валидации: " + e.getMessage());
-            sendHasOverlaps(exchange, e.getMessage());
+            sendHasOverlaps(exchange, e.getMessage(), e.getConflicts());
         } catch (NotFoundException e) {
             System.out.println("Задача не найдена: " + e.getMessage());
             sendNotFound(exchange, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Задача отклонена: " + e.getMessage());
+            sendBadRequest(exchange, e.getMessage());
         }
     }
 
@@ -1,12 +1,13 @@
 package task;
 
+import util.IntOrderedSet;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 public class Epic extends Task {
-    private final List<Integer> subtaskIds = new ArrayList<>();
+    private final IntOrderedSet subtaskIds = new IntOrderedSet();
     private LocalDateTime endTime;
 
     public Epic(String title, String description) {
@@ -28,8 +29,11 @@ public class Epic extends Task {
         this.endTime = original.endTime;
     }
 
+    /**
+     * Id подзадач в порядке добавления; список только для чтения.
+     */
     public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+        return subtaskIds.asList();
     }
 
     public void addSubtaskId(int id) {
@@ -37,7 +41,7 @@ public class Epic extends Task {
     }
 
     public void removeSubtaskId(int id) {
-        subtaskIds.remove(Integer.valueOf(id));
+        subtaskIds.remove(id);
     }
 
     public void clearSubtaskIds() {
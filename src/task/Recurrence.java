@@ -0,0 +1,151 @@
+package task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Правило повторения задачи в духе RRULE: {@code FREQ=DAILY|WEEKLY;INTERVAL=n} и необязательно
+ * {@code COUNT=n} или {@code UNTIL=дата-время}. Первое повторение начинается во время начала задачи,
+ * каждое следующее — через период, без пропусков. {@code UNTIL} ограничивает начало повторений
+ * включительно. Правило без {@code COUNT} и {@code UNTIL} повторяется бесконечно.
+ *
+ * <p>{@code COUNT}, {@code INTERVAL} и {@code UNTIL} ограничены сверху, чтобы номера повторений
+ * и разности их начал оставались небольшими.
+ */
+public final class Recurrence {
+    public static final int MAX_COUNT = 100_000;
+    public static final int MAX_INTERVAL = 1_000;
+    public static final LocalDateTime MAX_UNTIL = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public enum Frequency {
+        DAILY(Duration.ofDays(1)),
+        WEEKLY(Duration.ofDays(7));
+
+        private final Duration period;
+
+        Frequency(Duration period) {
+            this.period = period;
+        }
+    }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Integer count;
+    private final LocalDateTime until;
+
+    /**
+     * @param count число повторений или {@code null}
+     * @param until последнее возможное начало повторения или {@code null}; не вместе с {@code count}
+     */
+    public Recurrence(Frequency frequency, int interval, Integer count, LocalDateTime until) {
+        if (frequency == null) {
+            throw new IllegalArgumentException("Не задана частота повторения");
+        }
+        if (interval < 1 || interval > MAX_INTERVAL) {
+            throw new IllegalArgumentException("Интервал повторения должен быть от 1 до " + MAX_INTERVAL + ": "
+                    + interval);
+        }
+        if (count != null && (count < 1 || count > MAX_COUNT)) {
+            throw new IllegalArgumentException("Число повторений должно быть от 1 до " + MAX_COUNT + ": " + count);
+        }
+        if (until != null && until.isAfter(MAX_UNTIL)) {
+            throw new IllegalArgumentException("UNTIL не может быть позже " + MAX_UNTIL + ": " + until);
+        }
+        if (count != null && until != null) {
+            throw new IllegalArgumentException("COUNT и UNTIL нельзя задавать вместе");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+    }
+
+    /**
+     * Разбирает правило вида {@code FREQ=WEEKLY;INTERVAL=2;COUNT=10}; части идут в любом порядке,
+     * {@code INTERVAL} по умолчанию равен 1.
+     */
+    public static Recurrence parse(String rule) {
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDateTime until = null;
+        try {
+            for (String part : rule.split(";")) {
+                int separator = part.indexOf('=');
+                String value = part.substring(separator + 1);
+                switch (separator < 0 ? part : part.substring(0, separator)) {
+                    case "FREQ":
+                        frequency = Frequency.valueOf(value);
+                        break;
+                    case "INTERVAL":
+                        interval = Integer.parseInt(value);
+                        break;
+                    case "COUNT":
+                        count = Integer.parseInt(value);
+                        break;
+                    case "UNTIL":
+                        until = LocalDateTime.parse(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Неизвестная часть правила: " + part);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректное правило повторения: " + rule, e);
+        }
+        return new Recurrence(frequency, interval, count, until);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    public Duration getPeriod() {
+        return frequency.period.multipliedBy(interval);
+    }
+
+    public boolean isBounded() {
+        return count != null || until != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Recurrence that = (Recurrence) o;
+        return interval == that.interval && frequency == that.frequency
+                && Objects.equals(count, that.count) && Objects.equals(until, that.until);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, interval, count, until);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency.name())
+                .append(";INTERVAL=").append(interval);
+        if (count != null) {
+            rule.append(";COUNT=").append(count);
+        }
+        if (until != null) {
+            rule.append(";UNTIL=").append(until);
+        }
+        return rule.toString();
+    }
+}
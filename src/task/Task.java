@@ -11,6 +11,8 @@ public class Task {
     private Status status;
     private Duration duration;
     private LocalDateTime startTime;
+    // Правило повторения; null — обычная задача
+    private Recurrence recurrence;
 
     public Task(String title, String description) {
         this.title = title;
@@ -38,6 +40,7 @@ public class Task {
     public Task(Task original) {
         this(original.id, original.title, original.description, original.status,
                 original.duration, original.startTime);
+        this.recurrence = original.recurrence;
     }
 
     public int getId() {
@@ -88,6 +91,18 @@ public class Task {
         this.startTime = startTime;
     }
 
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Повторяющаяся задача хранится одна: время начала — первое повторение, остальные
+     * вычисляются по правилу.
+     */
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
     public LocalDateTime getEndTime() {
         if (startTime == null || duration == null) {
             return null;
@@ -0,0 +1,345 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество {@code int}, сохраняющее порядок добавления. Значения лежат подряд в массиве,
+ * позиции значений — в хеш-таблице с открытой адресацией, поэтому проверка и удаление по
+ * значению занимают O(1) без упаковки. Пока значений не больше {@value #SCAN_LIMIT}, таблицы
+ * нет и значение ищется проходом по массиву: так небольшие множества (обычный эпик) занимают
+ * меньше памяти, чем {@code ArrayList<Integer>}.
+ *
+ * <p>Удаление оставляет дыру на месте значения; когда дыр становится больше, чем значений,
+ * массив уплотняется. Чтение не меняет структуру, поэтому одновременные чтения безопасны,
+ * если никто не пишет. Не потокобезопасно.
+ */
+public class IntOrderedSet {
+    private static final int[] EMPTY = new int[0];
+    private static final long[] NO_BITS = new long[0];
+    private static final int SCAN_LIMIT = 16;
+
+    private int[] elements = EMPTY;
+    // Бит i установлен, если elements[i] — действующее значение, а не дыра
+    private long[] live = NO_BITS;
+    private int end;
+    private int size;
+    // Позиция значения в elements плюс один; ноль — пустой слот
+    private int[] table = EMPTY;
+
+    public IntOrderedSet() {
+    }
+
+    public IntOrderedSet(IntOrderedSet original) {
+        // Копируются массивы целиком, без повторной вставки каждого значения
+        elements = original.elements.length == 0 ? EMPTY : original.elements.clone();
+        live = original.live.length == 0 ? NO_BITS : original.live.clone();
+        end = original.end;
+        size = original.size;
+        table = original.table.length == 0 ? EMPTY : original.table.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return positionOf(value) >= 0;
+    }
+
+    /**
+     * @return {@code false}, если значение уже есть
+     */
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+        if (end == elements.length) {
+            grow();
+        }
+        elements[end] = value;
+        live[end >>> 6] |= 1L << end;
+        if (table.length > 0) {
+            insert(value, end);
+        }
+        end++;
+        size++;
+        return true;
+    }
+
+    public void addAll(IntOrderedSet other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * Удаляет значение (не позицию).
+     *
+     * @return {@code false}, если значения не было
+     */
+    public boolean remove(int value) {
+        int position = positionOf(value);
+        if (position < 0) {
+            return false;
+        }
+        if (table.length > 0) {
+            removeSlot(slotOf(value));
+        }
+        live[position >>> 6] &= ~(1L << position);
+        size--;
+        if (position == end - 1) {
+            // Удаление с конца дыры не оставляет
+            while (end > 0 && !isLive(end - 1)) {
+                end--;
+            }
+        } else if (end - size > size) {
+            compact();
+        }
+        return true;
+    }
+
+    public void clear() {
+        elements = EMPTY;
+        live = NO_BITS;
+        table = EMPTY;
+        end = 0;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < end; i++) {
+            if (isLive(i)) {
+                action.accept(elements[i]);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (isLive(i)) {
+                result[count++] = elements[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Неизменяемое представление в порядке добавления; отражает последующие изменения множества.
+     */
+    public List<Integer> asList() {
+        return new ListView();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntOrderedSet)) return false;
+        return asList().equals(((IntOrderedSet) o).asList());
+    }
+
+    @Override
+    public int hashCode() {
+        return asList().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+    private boolean isLive(int position) {
+        return (live[position >>> 6] & (1L << position)) != 0;
+    }
+
+    private int index(int value) {
+        return (value * 0x9E3779B9) & (table.length - 1);
+    }
+
+    private int positionOf(int value) {
+        if (table.length == 0) {
+            for (int i = 0; i < end; i++) {
+                if (elements[i] == value && isLive(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int slot = slotOf(value);
+        return slot < 0 ? -1 : table[slot] - 1;
+    }
+
+    private int slotOf(int value) {
+        int mask = table.length - 1;
+        int slot = index(value);
+        while (table[slot] != 0) {
+            if (elements[table[slot] - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int value, int position) {
+        int mask = table.length - 1;
+        int slot = index(value);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position + 1;
+    }
+
+    private void removeSlot(int slot) {
+        int mask = table.length - 1;
+        int gap = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            if (table[current] == 0) {
+                break;
+            }
+            int home = index(elements[table[current] - 1]);
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                table[gap] = table[current];
+                gap = current;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private void grow() {
+        int capacity = Math.max(4, elements.length * 2);
+        int[] grown = new int[capacity];
+        System.arraycopy(elements, 0, grown, 0, end);
+        elements = grown;
+        long[] grownLive = new long[(capacity + 63) >>> 6];
+        System.arraycopy(live, 0, grownLive, 0, live.length);
+        live = grownLive;
+        if (capacity > SCAN_LIMIT) {
+            // Таблица заполнена не больше чем наполовину
+            table = new int[capacity * 2];
+            for (int i = 0; i < end; i++) {
+                if (isLive(i)) {
+                    insert(elements[i], i);
+                }
+            }
+        }
+    }
+
+    private void compact() {
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (isLive(i)) {
+                elements[count++] = elements[i];
+            }
+        }
+        end = count;
+        Arrays.fill(live, 0L);
+        Arrays.fill(table, 0);
+        for (int i = 0; i < end; i++) {
+            live[i >>> 6] |= 1L << i;
+            if (table.length > 0) {
+                insert(elements[i], i);
+            }
+        }
+    }
+
+    private class ListView extends AbstractList<Integer> {
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            if (end == size) {
+                return elements[index];
+            }
+            for (int i = 0; i < end; i++) {
+                if (isLive(i) && index-- == 0) {
+                    return elements[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && IntOrderedSet.this.contains((Integer) o);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (!contains(o)) {
+                return -1;
+            }
+            int value = (Integer) o;
+            int index = 0;
+            for (int i = 0; i < end; i++) {
+                if (isLive(i)) {
+                    if (elements[i] == value) {
+                        return index;
+                    }
+                    index++;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < end && !isLive(from)) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public Integer next() {
+                    if (next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    int value = elements[next];
+                    next = advance(next + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof List)) return false;
+            List<?> other = (List<?>) o;
+            if (other.size() != size) return false;
+            Iterator<?> otherIterator = other.iterator();
+            for (Integer value : this) {
+                if (!value.equals(otherIterator.next())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
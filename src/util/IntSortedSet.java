@@ -0,0 +1,255 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Множество {@code int} в порядке возрастания, хранимое AVL-деревом с размерами поддеревьев.
+ * Узлы лежат в параллельных массивах (ключ, потомки, размер, высота), поэтому значения не
+ * упаковываются. Добавление, удаление, поиск, а также позиция значения и значение по позиции
+ * занимают O(log N) — в том числе вставка в середину при откате транзакции. Освобождённые
+ * узлы переиспользуются.
+ *
+ * <p>Чтение не меняет структуру, поэтому одновременные чтения безопасны, если никто не пишет.
+ * Не потокобезопасно.
+ */
+public class IntSortedSet {
+    private static final int[] EMPTY = new int[0];
+    private static final byte[] NO_HEIGHTS = new byte[0];
+    // Узел 0 — пустое поддерево: нулевые размер и высота
+    private static final int NIL = 0;
+
+    private int[] keys = EMPTY;
+    private int[] left = EMPTY;
+    private int[] right = EMPTY;
+    private int[] sizes = EMPTY;
+    private byte[] heights = NO_HEIGHTS;
+    private int root = NIL;
+    // Список освобождённых узлов, связанный через left
+    private int free = NIL;
+    private int allocated = 1;
+
+    public int size() {
+        return sizeOf(root);
+    }
+
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    public boolean contains(int value) {
+        int node = root;
+        while (node != NIL) {
+            if (value < keys[node]) {
+                node = left[node];
+            } else if (value > keys[node]) {
+                node = right[node];
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code false}, если значение уже есть
+     */
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+        root = insert(root, value);
+        return true;
+    }
+
+    /**
+     * @return {@code false}, если значения не было
+     */
+    public boolean remove(int value) {
+        if (!contains(value)) {
+            return false;
+        }
+        root = delete(root, value);
+        return true;
+    }
+
+    public void clear() {
+        keys = EMPTY;
+        left = EMPTY;
+        right = EMPTY;
+        sizes = EMPTY;
+        heights = NO_HEIGHTS;
+        root = NIL;
+        free = NIL;
+        allocated = 1;
+    }
+
+    /**
+     * Значение на позиции {@code index} в порядке возрастания.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        int node = root;
+        while (true) {
+            int leftSize = sizeOf(left[node]);
+            if (index < leftSize) {
+                node = left[node];
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = right[node];
+            } else {
+                return keys[node];
+            }
+        }
+    }
+
+    /**
+     * @return позиция первого значения строго больше {@code value}; {@link #size()}, если такого нет
+     */
+    public int indexAfter(int value) {
+        int position = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] <= value) {
+                position += sizeOf(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return position;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size()];
+        int count = 0;
+        int[] stack = new int[heightOf(root)];
+        int depth = 0;
+        int node = root;
+        while (node != NIL || depth > 0) {
+            while (node != NIL) {
+                stack[depth++] = node;
+                node = left[node];
+            }
+            node = stack[--depth];
+            result[count++] = keys[node];
+            node = right[node];
+        }
+        return result;
+    }
+
+    private int insert(int node, int value) {
+        if (node == NIL) {
+            return allocate(value);
+        }
+        // Вставка может заменить массивы при расширении, поэтому ссылка на потомка присваивается после неё
+        if (value < keys[node]) {
+            int child = insert(left[node], value);
+            left[node] = child;
+        } else {
+            int child = insert(right[node], value);
+            right[node] = child;
+        }
+        return balance(node);
+    }
+
+    private int delete(int node, int value) {
+        if (value < keys[node]) {
+            left[node] = delete(left[node], value);
+        } else if (value > keys[node]) {
+            right[node] = delete(right[node], value);
+        } else if (left[node] == NIL || right[node] == NIL) {
+            int child = left[node] == NIL ? right[node] : left[node];
+            release(node);
+            return child;
+        } else {
+            // Узел с двумя потомками принимает наименьшее значение правого поддерева
+            int successor = right[node];
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+            keys[node] = keys[successor];
+            right[node] = delete(right[node], keys[successor]);
+        }
+        return balance(node);
+    }
+
+    private int balance(int node) {
+        update(node);
+        int skew = heightOf(left[node]) - heightOf(right[node]);
+        if (skew > 1) {
+            if (heightOf(left[left[node]]) < heightOf(right[left[node]])) {
+                left[node] = rotateLeft(left[node]);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (heightOf(right[right[node]]) < heightOf(left[right[node]])) {
+                right[node] = rotateRight(right[node]);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(int node) {
+        sizes[node] = sizes[left[node]] + sizes[right[node]] + 1;
+        heights[node] = (byte) (Math.max(heights[left[node]], heights[right[node]]) + 1);
+    }
+
+    private int sizeOf(int node) {
+        return node == NIL ? 0 : sizes[node];
+    }
+
+    private int heightOf(int node) {
+        return node == NIL ? 0 : heights[node];
+    }
+
+    private int allocate(int value) {
+        int node = free;
+        if (node != NIL) {
+            free = left[node];
+        } else {
+            if (allocated >= keys.length) {
+                int capacity = Math.max(8, allocated + (allocated >>> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+            }
+            node = allocated++;
+        }
+        keys[node] = value;
+        left[node] = NIL;
+        right[node] = NIL;
+        sizes[node] = 1;
+        heights[node] = 1;
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = free;
+        right[node] = NIL;
+        free = node;
+    }
+}
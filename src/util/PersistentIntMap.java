@@ -0,0 +1,223 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Неизменяемая таблица с ключами {@code int}: AVL-дерево, которое при изменении копирует только
+ * путь от корня до изменённого узла. {@link #put} и {@link #remove} возвращают новую версию за
+ * O(log N), а все нетронутые поддеревья остаются общими с прежней, поэтому старые версии можно
+ * читать одновременно с созданием новых.
+ *
+ * <p>Значения обходятся в порядке возрастания ключей. Значения {@code null} не допускаются.
+ */
+public final class PersistentIntMap<V> {
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null);
+
+    private final Node<V> root;
+
+    private static final class Node<V> {
+        final int key;
+        final V value;
+        final Node<V> left;
+        final Node<V> right;
+        final int size;
+        final int height;
+
+        Node(int key, V value, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private PersistentIntMap(Node<V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public V get(int key) {
+        Node<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return версия, в которой ключу соответствует {@code value}; эта версия не меняется
+     */
+    public PersistentIntMap<V> put(int key, V value) {
+        Objects.requireNonNull(value);
+        return new PersistentIntMap<>(insert(root, key, value));
+    }
+
+    /**
+     * @return версия без ключа; эта же версия, если ключа не было
+     */
+    public PersistentIntMap<V> remove(int key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        return new PersistentIntMap<>(delete(root, key));
+    }
+
+    /**
+     * Значения в порядке возрастания ключей. Представление только для чтения.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root, null);
+            }
+
+            @Override
+            public int size() {
+                return PersistentIntMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Не больше {@code limit} значений с ключами строго больше {@code key} в порядке возрастания
+     * ключей, за O(log N + limit).
+     */
+    public List<V> valuesAfter(int key, int limit) {
+        List<V> result = new ArrayList<>(Math.min(Math.max(limit, 0), size()));
+        Iterator<V> values = new ValueIterator<>(root, key);
+        while (result.size() < limit && values.hasNext()) {
+            result.add(values.next());
+        }
+        return result;
+    }
+
+    // Обход по порядку со стеком пройденных узлов; after — нижняя граница ключей (не включая)
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final List<Node<V>> stack = new ArrayList<>();
+
+        ValueIterator(Node<V> root, Integer after) {
+            Node<V> node = root;
+            while (node != null) {
+                if (after != null && node.key <= after) {
+                    node = node.right;
+                } else {
+                    stack.add(node);
+                    node = node.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public V next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<V> node = stack.remove(stack.size() - 1);
+            for (Node<V> next = node.right; next != null; next = next.left) {
+                stack.add(next);
+            }
+            return node.value;
+        }
+    }
+
+    private static <V> Node<V> insert(Node<V> node, int key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        if (key < node.key) {
+            return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        }
+        if (key > node.key) {
+            return balance(node.key, node.value, node.left, insert(node.right, key, value));
+        }
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    private static <V> Node<V> delete(Node<V> node, int key) {
+        if (key < node.key) {
+            return balance(node.key, node.value, delete(node.left, key), node.right);
+        }
+        if (key > node.key) {
+            return balance(node.key, node.value, node.left, delete(node.right, key));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, delete(node.right, successor.key));
+    }
+
+    // Новый узел с заданными потомками; при перекосе высот больше чем на один выполняются повороты
+    private static <V> Node<V> balance(int key, V value, Node<V> left, Node<V> right) {
+        int factor = height(left) - height(right);
+        if (factor > 1) {
+            if (height(left.left) < height(left.right)) {
+                Node<V> pivot = left.right;
+                return new Node<>(pivot.key, pivot.value,
+                        new Node<>(left.key, left.value, left.left, pivot.left),
+                        new Node<>(key, value, pivot.right, right));
+            }
+            return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+        }
+        if (factor < -1) {
+            if (height(right.right) < height(right.left)) {
+                Node<V> pivot = right.left;
+                return new Node<>(pivot.key, pivot.value,
+                        new Node<>(key, value, left, pivot.left),
+                        new Node<>(right.key, right.value, pivot.right, right.right));
+            }
+            return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
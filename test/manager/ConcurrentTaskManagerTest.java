@@ -0,0 +1,89 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @BeforeEach
+    public void setUp() {
+        manager = new ConcurrentTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    @Override
+    protected void shouldCalculateEpicStatus() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+
+        Subtask subtask1 = new Subtask("Subtask 1", "Description", epic.getId());
+        subtask1.setStatus(Status.DONE);
+        manager.createSubtask(subtask1);
+        assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus());
+
+        Subtask subtask2 = new Subtask("Subtask 2", "Description", epic.getId());
+        manager.createSubtask(subtask2);
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    public void shouldReturnCopiesFromReads() {
+        Task task = new Task("Task", "Description");
+        manager.createTask(task);
+
+        Task read = manager.getTaskById(task.getId());
+        read.setTitle("Changed");
+
+        assertEquals("Task", manager.getAllTasks().get(0).getTitle());
+    }
+
+    @Test
+    public void shouldKeepEpicsConsistentUnderConcurrentWrites() throws Exception {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        int threads = 8;
+        int perThread = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+                        manager.createSubtask(subtask);
+                        manager.createTask(new Task("Task", "Description"));
+                        manager.getEpicById(epic.getId());
+                        assertFalse(manager.getSubtasksByEpicId(epic.getId()).isEmpty());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Subtask> subtasks = manager.getAllSubtasks();
+        List<Task> tasks = manager.getAllTasks();
+        assertEquals(threads * perThread, subtasks.size());
+        assertEquals(threads * perThread, tasks.size());
+        assertEquals(subtasks.size(), manager.getEpicById(epic.getId()).getSubtaskIds().size());
+        long distinctIds = subtasks.stream().mapToInt(Task::getId).distinct().count()
+                + tasks.stream().mapToInt(Task::getId).distinct().count();
+        assertEquals(2L * threads * perThread, distinctIds, "id не должны повторяться");
+    }
+}
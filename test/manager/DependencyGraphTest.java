@@ -0,0 +1,70 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Subtask;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphTest {
+    private static final int EPIC_ID = 1;
+
+    private static Subtask subtask(int id, int minutes) {
+        Subtask subtask = new Subtask("Subtask " + id, "Description", EPIC_ID);
+        subtask.setId(id);
+        subtask.setDuration(Duration.ofMinutes(minutes));
+        return subtask;
+    }
+
+    @Test
+    void shouldRejectCycles() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.add(1, 2);
+        graph.add(2, 3);
+
+        IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class, () -> graph.add(3, 1));
+        assertTrue(cycle.getMessage().contains("[1, 2, 3, 1]"), cycle.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> graph.add(2, 2));
+        assertFalse(graph.contains(3, 1));
+
+        graph.removeNode(2);
+        assertFalse(graph.hasEdges(1));
+        assertDoesNotThrow(() -> graph.add(3, 1));
+    }
+
+    @Test
+    void shouldUpdateIncrementallyLikeFullRecomputation() {
+        Random random = new Random(42);
+        int count = 200;
+        DependencyGraph graph = new DependencyGraph();
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            subtasks.add(subtask(id, random.nextInt(120)));
+        }
+        // Рёбра только от меньшего id к большему: граф заведомо ацикличен
+        for (int edge = 0; edge < 3 * count; edge++) {
+            int before = 1 + random.nextInt(count - 1);
+            int after = before + 1 + random.nextInt(count - before);
+            if (!graph.contains(before, after)) {
+                graph.add(before, after);
+            }
+        }
+        graph.criticalPath(EPIC_ID, subtasks);
+
+        for (int round = 0; round < 100; round++) {
+            Subtask changed = subtasks.get(random.nextInt(count));
+            changed.setDuration(Duration.ofMinutes(random.nextInt(120)));
+            graph.durationChanged(changed);
+
+            CriticalPath incremental = graph.criticalPath(EPIC_ID, subtasks);
+            graph.invalidate(EPIC_ID);
+            CriticalPath full = graph.criticalPath(EPIC_ID, subtasks);
+            assertEquals(full.getEarliestStarts(), incremental.getEarliestStarts(), "Раунд " + round);
+            assertEquals(full.getLength(), incremental.getLength(), "Раунд " + round);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package manager;
+
+import task.Status;
+import task.Task;
+import util.IntObjectMap;
+import util.IntOrderedSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сравнение занимаемой кучи: {@code HashMap<Integer, Task>} и {@code ArrayList<Integer>} с id
+ * подзадач против {@link IntObjectMap} и {@link IntOrderedSet}. Сами задачи общие и в замер
+ * не входят. Запускается вручную: {@code java manager.EntityMapMemoryBenchmark [rows]}.
+ */
+public class EntityMapMemoryBenchmark {
+    private static final int SUBTASKS_PER_EPIC = 10;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Task> tasks = new ArrayList<>(rows);
+        for (int id = 1; id <= rows; id++) {
+            tasks.add(new Task(id, "Task " + id, "Description", Status.NEW));
+        }
+
+        long baseline = usedMemory();
+        Map<Integer, Task> boxed = new HashMap<>();
+        for (Task task : tasks) {
+            boxed.put(task.getId(), task);
+        }
+        long boxedMap = usedMemory() - baseline;
+
+        baseline = usedMemory();
+        IntObjectMap<Task> primitive = new IntObjectMap<>();
+        for (Task task : tasks) {
+            primitive.put(task.getId(), task);
+        }
+        long primitiveMap = usedMemory() - baseline;
+
+        // id подзадач: по списку на каждый эпик из SUBTASKS_PER_EPIC подзадач
+        int epics = rows / SUBTASKS_PER_EPIC;
+        baseline = usedMemory();
+        List<List<Integer>> boxedIds = new ArrayList<>(epics);
+        for (int e = 0; e < epics; e++) {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < SUBTASKS_PER_EPIC; i++) {
+                ids.add(1_000 + e * SUBTASKS_PER_EPIC + i);
+            }
+            boxedIds.add(ids);
+        }
+        long boxedLists = usedMemory() - baseline;
+
+        baseline = usedMemory();
+        List<IntOrderedSet> primitiveIds = new ArrayList<>(epics);
+        for (int e = 0; e < epics; e++) {
+            IntOrderedSet ids = new IntOrderedSet();
+            for (int i = 0; i < SUBTASKS_PER_EPIC; i++) {
+                ids.add(1_000 + e * SUBTASKS_PER_EPIC + i);
+            }
+            primitiveIds.add(ids);
+        }
+        long primitiveSets = usedMemory() - baseline;
+
+        System.out.printf("%d tasks: HashMap<Integer, Task> %d MB -> IntObjectMap %d MB%n",
+                rows, boxedMap >> 20, primitiveMap >> 20);
+        System.out.printf("%d epics x %d subtasks: ArrayList<Integer> %d MB -> IntOrderedSet %d MB%n",
+                epics, SUBTASKS_PER_EPIC, boxedLists >> 20, primitiveSets >> 20);
+        System.out.println(boxed.size() + primitive.size() + boxedIds.size() + primitiveIds.size());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,16 +1,20 @@
 package manager;
 
+import exceptions.ManagerValidationException;
 import exceptions.NotFoundException;
 import java.io.IOException;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import task.Epic;
+import task.Recurrence;
 import task.Status;
 import task.Subtask;
 import task.Task;
@@ -75,6 +79,9 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         Epic loadedEpic = loadedManager.getEpicById(epic.getId());
         assertEquals(Status.DONE, loadedEpic.getStatus(),
                 "Статус эпика после загрузки из файла должен остаться DONE");
+        assertEquals(1, loadedManager.getEpicsByStatus(Status.DONE).size(),
+                "Индекс статусов должен строиться при загрузке");
+        assertEquals(2, loadedManager.getSubtasksByStatus(Status.DONE).size());
     }
 
     @Test
@@ -212,4 +219,411 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertTrue(loadedManager.getAllSubtasks().isEmpty());
         assertTrue(loadedManager.getHistory().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRestoreStateFromJournal() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true);
+
+        Task task = new Task("Task", "Description");
+        task.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        journaled.createTask(task);
+
+        Task removed = new Task("Removed", "Description");
+        journaled.createTask(removed);
+
+        Epic epic = new Epic("Epic", "Description");
+        journaled.createEpic(epic);
+
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        journaled.createSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        journaled.updateSubtask(subtask);
+
+        journaled.deleteTask(removed.getId());
+        journaled.getTaskById(task.getId());
+        journaled.close();
+
+        assertFalse(testFile.exists(), "В режиме журнала полный файл не должен перезаписываться");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true);
+
+        assertEquals(1, loadedManager.getAllTasks().size());
+        assertEquals(task.getStartTime(), loadedManager.getAllTasks().get(0).getStartTime());
+        assertEquals(Status.DONE, loadedManager.getAllEpics().get(0).getStatus());
+        assertEquals(1, loadedManager.getHistory().size());
+        assertEquals(task.getId(), loadedManager.getHistory().get(0).getId());
+        assertEquals(1, loadedManager.getPrioritizedTasks().size());
+        loadedManager.close();
+    }
+
+    @Test
+    public void shouldReplayJournalDeletionOfEpicWithSubtasks() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true);
+
+        Epic epic = new Epic("Epic", "Description");
+        journaled.createEpic(epic);
+        journaled.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        journaled.deleteEpic(epic.getId());
+
+        Task task = new Task("Task", "Description");
+        journaled.createTask(task);
+        journaled.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true);
+
+        assertTrue(loadedManager.getAllEpics().isEmpty());
+        assertTrue(loadedManager.getAllSubtasks().isEmpty());
+        assertEquals(1, loadedManager.getAllTasks().size());
+
+        Task next = new Task("Next", "Description");
+        loadedManager.createTask(next);
+        assertTrue(next.getId() > task.getId(), "Новые id не должны пересекаться с id из журнала");
+        loadedManager.close();
+    }
+
+    @Test
+    public void shouldPersistBatchWithSingleStorageCall() {
+        List<Integer> batchSizes = new ArrayList<>();
+        FileBackedTaskManager recorded = new FileBackedTaskManager(new NoopTaskStorage() {
+            @Override
+            public void apply(StorageMutation mutation, StorageState state) {
+                batchSizes.add(1);
+            }
+
+            @Override
+            public void applyAll(List<StorageMutation> mutations, StorageState state) {
+                batchSizes.add(mutations.size());
+            }
+        });
+        Epic epic = new Epic("Epic", "Description");
+        recorded.createEpic(epic);
+        batchSizes.clear();
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(new Task("Task " + i, "Description"));
+        }
+        recorded.createTasks(tasks);
+        recorded.createSubtasks(List.of(new Subtask("First", "Description", epic.getId()),
+                new Subtask("Second", "Description", epic.getId())));
+        recorded.updateMany(List.of(tasks.get(0), tasks.get(1)));
+
+        assertEquals(List.of(50, 2, 2), batchSizes);
+    }
+
+    @Test
+    public void shouldPersistTransactionOnceAndNothingOnRollback() {
+        List<Integer> batchSizes = new ArrayList<>();
+        FileBackedTaskManager recorded = new FileBackedTaskManager(new NoopTaskStorage() {
+            @Override
+            public void apply(StorageMutation mutation, StorageState state) {
+                batchSizes.add(1);
+            }
+
+            @Override
+            public void applyAll(List<StorageMutation> mutations, StorageState state) {
+                batchSizes.add(mutations.size());
+            }
+        });
+        Epic epic = new Epic("Epic", "Description");
+        recorded.createEpic(epic);
+        batchSizes.clear();
+
+        recorded.inTransaction(tx -> {
+            tx.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+            tx.createTask(new Task("Task", "Description"));
+            tx.createTasks(List.of(new Task("First", "Description"), new Task("Second", "Description")));
+        });
+        assertEquals(List.of(4), batchSizes);
+
+        assertThrows(IllegalArgumentException.class, () -> recorded.inTransaction(tx -> {
+            tx.createTask(new Task("Lost", "Description"));
+            tx.createSubtask(new Subtask("Orphan", "Description", 999));
+        }));
+        assertEquals(List.of(4), batchSizes, "Откаченная транзакция не должна сохраняться");
+        assertEquals(3, recorded.getAllTasks().size());
+    }
+
+    @Test
+    public void shouldReloadCommittedTransaction() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        manager.inTransaction(tx -> {
+            tx.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+            tx.deleteEpic(epic.getId());
+            tx.createTask(new Task("Task", "Description"));
+        });
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
+        assertTrue(loadedManager.getAllEpics().isEmpty());
+        assertTrue(loadedManager.getAllSubtasks().isEmpty());
+        assertEquals(1, loadedManager.getAllTasks().size());
+    }
+
+    @Test
+    public void shouldReplayJournaledBatch() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true);
+        Epic epic = new Epic("Epic", "Description");
+        journaled.createEpic(epic);
+        journaled.createTasks(List.of(new Task("First", "Description"), new Task("Second", "Description")));
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        journaled.createSubtasks(List.of(subtask));
+        Subtask done = new Subtask(subtask.getId(), "Subtask", "Description", Status.DONE, epic.getId());
+        journaled.updateMany(List.of(done));
+        journaled.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true);
+        assertEquals(2, loadedManager.getAllTasks().size());
+        assertEquals(Status.DONE, loadedManager.getEpicById(epic.getId()).getStatus());
+        loadedManager.close();
+    }
+
+    @Test
+    public void shouldCompactJournalIntoSnapshot() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true);
+        journaled.setCompactionThreshold(3, Long.MAX_VALUE);
+
+        for (int i = 0; i < 10; i++) {
+            journaled.createTask(new Task("Task " + i, "Description"));
+        }
+        journaled.deleteTask(1);
+        journaled.close();
+
+        assertTrue(testFile.exists(), "После компактизации должен появиться снимок");
+        assertFalse(new File(testFile.getPath() + ".log.1").exists());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true);
+        assertEquals(9, loadedManager.getAllTasks().size());
+        assertThrows(NotFoundException.class, () -> loadedManager.getTaskById(1));
+        loadedManager.close();
+    }
+
+    @Test
+    public void shouldRecoverFromInterruptedCompaction() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true);
+        Task first = new Task("First", "Description");
+        journaled.createTask(first);
+        journaled.close();
+
+        // Эмулируем сбой: журнал запечатан, а снимок так и не записан
+        File journalFile = new File(testFile.getPath() + ".log");
+        File sealedFile = new File(testFile.getPath() + ".log.1");
+        assertTrue(journalFile.renameTo(sealedFile));
+
+        Files.writeString(journalFile.toPath(), "PUT,2,TASK,Second,NEW,Description,,,\n");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true);
+        assertEquals(2, loadedManager.getAllTasks().size());
+        assertFalse(sealedFile.exists(), "Запечатанный сегмент должен быть удалён после восстановления");
+        assertTrue(testFile.exists());
+        loadedManager.close();
+    }
+
+    @Test
+    public void shouldNotRewriteStorageOnRead() throws IOException {
+        Task task = new Task("Task", "Description");
+        manager.createTask(task);
+        String storageBefore = Files.readString(testFile.toPath());
+
+        manager.getTaskById(task.getId());
+
+        assertEquals(storageBefore, Files.readString(testFile.toPath()),
+                "Чтение задачи не должно перезаписывать файл хранилища");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(1, loadedManager.getHistory().size(), "История должна восстанавливаться из своего файла");
+    }
+
+    @Test
+    public void shouldPersistJournalWithEveryDurabilityPolicy() {
+        for (DurabilityPolicy policy : DurabilityPolicy.values()) {
+            File storage = tempDir.resolve(policy + ".csv").toFile();
+            FileBackedTaskManager journaled = new FileBackedTaskManager(storage, true, policy);
+            for (int i = 0; i < 2_500; i++) {
+                journaled.createTask(new Task("Task " + i, "Description"));
+            }
+            journaled.getTaskById(1);
+            journaled.close();
+
+            FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storage, true, policy);
+            assertEquals(2_500, loadedManager.getAllTasks().size(), "Политика " + policy);
+            assertEquals(1, loadedManager.getHistory().size(), "Политика " + policy);
+            loadedManager.close();
+        }
+    }
+
+    @Test
+    public void shouldSaveInBackgroundFromSnapshot() {
+        FileBackedTaskManager background = new FileBackedTaskManager(testFile, false, DurabilityPolicy.GROUP_COMMIT);
+        Epic epic = new Epic("Epic", "Description");
+        background.createEpic(epic);
+        for (int i = 0; i < 1_000; i++) {
+            Subtask subtask = new Subtask("Subtask " + i, "Description", epic.getId());
+            subtask.setStatus(Status.DONE);
+            background.createSubtask(subtask);
+        }
+        background.close();
+
+        assertFalse(new File(testFile.getPath() + ".tmp").exists(), "Временный файл должен быть переименован");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(1_000, loadedManager.getAllSubtasks().size());
+        assertEquals(Status.DONE, loadedManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    public void shouldSaveAndLoadBinaryStorage() {
+        manager.createTask(new Task(0, "Task, with comma", "Описание", Status.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 10, 0, 15)));
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        manager.getTaskById(1);
+
+        // Хранилище в CSV переводится в двоичный формат при первом сохранении
+        FileBackedTaskManager binary = FileBackedTaskManager.loadFromFile(testFile, false,
+                DurabilityPolicy.WRITE_THROUGH, StorageFormat.BINARY);
+        binary.createTask(new Task("Another task", "Description"));
+        assertTrue(TaskBinaryFile.isBinary(testFile), "Снимок должен быть записан в двоичном формате");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(2, loadedManager.getAllTasks().size());
+        assertEquals("Task, with comma", loadedManager.getTaskById(1).getTitle());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0, 15), loadedManager.getTaskById(1).getStartTime());
+        assertEquals(List.of(3), loadedManager.getEpicById(2).getSubtaskIds());
+        assertEquals(1, loadedManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    public void shouldPersistOnlyChangedTasksInSlots() {
+        manager.createTask(new Task("Task", "Description"));
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+
+        // Существующее хранилище переводится в слоты при загрузке
+        FileBackedTaskManager slotted = FileBackedTaskManager.loadFromFile(testFile, false,
+                DurabilityPolicy.WRITE_THROUGH, StorageFormat.SLOTTED);
+        assertTrue(TaskSlotFile.isSlotted(testFile));
+        long size = testFile.length();
+
+        Task task = slotted.getTaskById(1);
+        task.setStatus(Status.DONE);
+        slotted.updateTask(task);
+        assertEquals(size, testFile.length(), "Обновление должно перезаписать слот задачи на месте");
+
+        slotted.deleteEpic(epic.getId());
+        slotted.createTask(new Task("New task", "Description"));
+        slotted.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, false,
+                DurabilityPolicy.WRITE_THROUGH, StorageFormat.SLOTTED);
+        assertEquals(Status.DONE, loadedManager.getTaskById(1).getStatus());
+        assertTrue(loadedManager.getAllEpics().isEmpty());
+        assertTrue(loadedManager.getAllSubtasks().isEmpty(), "Подзадачи удалённого эпика не должны вернуться");
+        assertEquals(2, loadedManager.getAllTasks().size());
+        assertEquals(1, loadedManager.getHistory().size());
+        loadedManager.close();
+    }
+
+    @Test
+    public void shouldFlushJournalIntoSlotsOnCheckpoint() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true,
+                DurabilityPolicy.GROUP_COMMIT, StorageFormat.SLOTTED);
+        for (int i = 0; i < 100; i++) {
+            journaled.createTask(new Task("Task " + i, "Description"));
+        }
+        journaled.close();
+
+        // Изменения из журнала после перезапуска должны попасть в слоты до обрезки журнала
+        FileBackedTaskManager restarted = FileBackedTaskManager.loadFromFile(testFile, true,
+                DurabilityPolicy.GROUP_COMMIT, StorageFormat.SLOTTED);
+        restarted.deleteTask(1);
+        restarted.checkpoint();
+        restarted.close();
+        assertFalse(TaskJournal.journalFileFor(testFile).exists() && TaskJournal.journalFileFor(testFile).length() > 0);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true,
+                DurabilityPolicy.GROUP_COMMIT, StorageFormat.SLOTTED);
+        assertEquals(99, loadedManager.getAllTasks().size());
+        loadedManager.close();
+    }
+
+    @Test
+    public void shouldRestoreRecurringTasksAfterLoad() {
+        LocalDateTime day = LocalDateTime.of(2030, 6, 1, 9, 0);
+        Task standup = new Task("Standup", "Description");
+        standup.setStartTime(day);
+        standup.setDuration(Duration.ofMinutes(15));
+        standup.setRecurrence(Recurrence.parse("FREQ=DAILY;INTERVAL=1;COUNT=3"));
+        manager.createTask(standup);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile);
+
+        assertEquals(standup.getRecurrence(), loadedManager.getTaskById(standup.getId()).getRecurrence());
+        assertEquals(3, loadedManager.getPrioritizedTasks(day, day.plusDays(10), 100).size());
+        Task clash = new Task("Clash", "Description");
+        clash.setStartTime(day.plusDays(2));
+        clash.setDuration(Duration.ofMinutes(10));
+        assertThrows(ManagerValidationException.class, () -> loadedManager.createTask(clash));
+    }
+
+    @Test
+    public void shouldLoadBaselineFilesWithBackslashesVerbatim() throws IOException {
+        Files.writeString(testFile.toPath(), "id,type,name,status,description,epic,duration,startTime\n"
+                + "1,TASK,C:\\new,NEW,a\\,,,\n\n");
+        Files.writeString(TaskJournal.journalFileFor(testFile).toPath(), "PUT,2,TASK,Путь\\n,NEW,x\\y,,,\n");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true);
+
+        assertEquals("C:\\new", loadedManager.getTaskById(1).getTitle());
+        assertEquals("a\\", loadedManager.getTaskById(1).getDescription());
+        assertEquals("Путь\\n", loadedManager.getTaskById(2).getTitle());
+        assertEquals("x\\y", loadedManager.getTaskById(2).getDescription());
+        loadedManager.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(testFile, true);
+        assertEquals("C:\\new", reloaded.getTaskById(1).getTitle());
+        assertEquals("Путь\\n", reloaded.getTaskById(2).getTitle());
+        reloaded.close();
+    }
+
+    @Test
+    public void shouldDropTornLastJournalRecord() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true);
+        journaled.createTask(new Task("First", "Description"));
+        journaled.close();
+        File journalFile = TaskJournal.journalFileFor(testFile);
+        String written = Files.readString(journalFile.toPath());
+
+        for (String tail : List.of("PU", "PUT2,2,TASK,Sec", "PUT2,2,TASK,Sec\n")) {
+            Files.writeString(journalFile.toPath(), written + tail);
+
+            FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(testFile, true);
+            assertEquals(1, loadedManager.getAllTasks().size(), "Оборванная запись не должна применяться: " + tail);
+            assertEquals(written, Files.readString(journalFile.toPath()), "Оборванный хвост должен быть отрезан");
+
+            Task second = new Task("Second", "Description");
+            loadedManager.createTask(second);
+            loadedManager.close();
+            FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(testFile, true);
+            assertEquals(2, reloaded.getAllTasks().size());
+            reloaded.deleteTask(second.getId());
+            reloaded.close();
+            written = Files.readString(journalFile.toPath());
+        }
+    }
+
+    @Test
+    public void shouldFailOnCorruptedJournalRecordInTheMiddle() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(testFile, true);
+        journaled.createTask(new Task("First", "Description"));
+        journaled.close();
+        File journalFile = TaskJournal.journalFileFor(testFile);
+        String written = Files.readString(journalFile.toPath());
+        Files.writeString(journalFile.toPath(), written + "PU\nPUT2,2,TASK,Second,NEW,Description,,,\n");
+
+        assertThrows(IllegalArgumentException.class, () -> FileBackedTaskManager.loadFromFile(testFile, true));
+    }
+}
@@ -7,6 +7,7 @@ import task.Epic;
 import task.Status;
 import task.Subtask;
 import task.Task;
+import java.util.ArrayList;
 import java.util.List;
 
 import java.time.Duration;
@@ -113,4 +114,31 @@ public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager
                 "Получение подзадач для несуществующего эпика должно возвращать пустой список");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldScheduleHundredThousandTasks() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        int count = 100_000;
+        List<Task> busy = new ArrayList<>(count / 2);
+        for (int i = 0; i < count / 2; i++) {
+            Task task = new Task("Busy " + i, "Description");
+            task.setStartTime(start.plusMinutes(2L * i));
+            task.setDuration(Duration.ofMinutes(1));
+            busy.add(task);
+        }
+        List<Task> open = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task task = new Task("Open " + i, "Description");
+            task.setDuration(Duration.ofMinutes(1));
+            open.add(task);
+        }
+        manager.createTasks(busy);
+        manager.createTasks(open);
+
+        SchedulePlan plan = manager.schedule(new ScheduleRequest(start, start.plusMinutes(2L * count), false));
+
+        assertEquals(count, plan.getAssignments().size());
+        assertTrue(plan.getUnscheduledIds().isEmpty());
+        assertEquals(start.plusMinutes(1), plan.getAssignments().get(0).getStart(), "Первый промежуток — между занятыми");
+        assertEquals(count + count / 2, manager.getPrioritizedTasks().size());
+    }
+}
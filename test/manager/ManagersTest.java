@@ -0,0 +1,89 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Task;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ManagersTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Properties config(String storage, File file) {
+        Properties config = new Properties();
+        config.setProperty(Managers.STORAGE_PROPERTY, storage);
+        config.setProperty(Managers.STORAGE_FILE_PROPERTY, file.getPath());
+        return config;
+    }
+
+    @Test
+    public void shouldSelectStorageFromConfiguration() {
+        File file = tempDir.resolve("storage.csv").toFile();
+
+        assertInstanceOf(NoopTaskStorage.class, Managers.getStorage(config("memory", file)));
+        for (String storage : new String[]{"csv", "journal", "binary", "slotted"}) {
+            TaskStorage selected = Managers.getStorage(config(storage, file));
+            assertInstanceOf(FileTaskStorage.class, selected, storage);
+            selected.close();
+        }
+        assertThrows(IllegalArgumentException.class, () -> Managers.getStorage(config("cloud", file)));
+    }
+
+    @Test
+    public void shouldKeepMemoryStorageOutOfFileSystem() {
+        File file = tempDir.resolve("storage.csv").toFile();
+        TaskManager manager = Managers.getDefault(config("memory", file));
+        manager.createTask(new Task("Task", "Description"));
+        manager.getTaskById(1);
+
+        assertEquals(1, manager.getAllTasks().size());
+        assertFalse(file.exists(), "Хранилище memory не должно создавать файлы");
+    }
+
+    @Test
+    public void shouldPersistThroughJournalStorage() {
+        File file = tempDir.resolve("storage.csv").toFile();
+        Properties config = config("journal", file);
+        config.setProperty(Managers.DURABILITY_PROPERTY, "group_commit");
+
+        FileBackedTaskManager manager = (FileBackedTaskManager) Managers.getDefault(config);
+        manager.createTask(new Task("Task", "Description"));
+        manager.close();
+        assertTrue(TaskJournal.journalFileFor(file).exists(), "Изменения должны попасть в журнал");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.load(Managers.getStorage(config));
+        assertEquals("Task", loaded.getTaskById(1).getTitle());
+        loaded.close();
+    }
+
+    @Test
+    public void shouldRestoreSavedTasksOnRestart() {
+        for (String storage : new String[]{"csv", "journal"}) {
+            Properties config = config(storage, tempDir.resolve(storage + ".csv").toFile());
+            FileBackedTaskManager manager = (FileBackedTaskManager) Managers.getDefault(config);
+            manager.createTask(new Task("old1", "Description"));
+            manager.createTask(new Task("old2", "Description"));
+            manager.close();
+
+            FileBackedTaskManager restarted = (FileBackedTaskManager) Managers.getDefault(config);
+            assertEquals(2, restarted.getAllTasks().size(), storage);
+            Task created = new Task("new1", "Description");
+            restarted.createTask(created);
+            assertEquals(3, created.getId(), "Новые id продолжают нумерацию: " + storage);
+            restarted.close();
+
+            FileBackedTaskManager reloaded = FileBackedTaskManager.load(Managers.getStorage(config));
+            assertEquals(List.of("old1", "old2", "new1"), reloaded.getAllTasks().stream()
+                    .sorted(Comparator.comparingInt(Task::getId)).map(Task::getTitle).toList(), storage);
+            reloaded.close();
+        }
+    }
+}
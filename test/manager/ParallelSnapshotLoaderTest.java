@@ -0,0 +1,71 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSnapshotLoaderTest {
+
+    private File write(String content) throws IOException {
+        File file = File.createTempFile("snapshot", ".csv");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void shouldLoadAllRowsSplitIntoSmallChunks() throws IOException {
+        TaskCsvCodec codec = new TaskCsvCodec();
+        StringBuilder content = new StringBuilder(TaskCsvCodec.HEADER).append('\n');
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int id = 1; id <= 1_000; id++) {
+            Task task = id % 2 == 0
+                    ? new Task(id, "Задача, " + id, "Описание\nзадачи", Status.NEW,
+                    Duration.ofMinutes(15), start.plusMinutes(id * 15L))
+                    : new Subtask(id, "Подзадача " + id, "Описание", Status.DONE, 2, null, null);
+            content.append(codec.encode(task)).append('\n');
+        }
+        content.append('\n').append("1,2,3");
+
+        ParallelSnapshotLoader.Result result = ParallelSnapshotLoader.load(write(content.toString()), 256);
+
+        assertEquals(1_000, result.rows.size());
+        for (int i = 0; i < result.rows.size(); i++) {
+            assertEquals(i + 1, result.rows.get(i).getId(), "Порядок строк должен сохраняться");
+        }
+        assertEquals("Задача, 2", result.rows.get(1).getTitle());
+        assertEquals("Описание\nзадачи", result.rows.get(1).getDescription());
+        assertEquals(List.of(1, 2, 3), result.historyIds);
+    }
+
+    @Test
+    public void shouldLoadFilesWithoutHeaderOrHistory() throws IOException {
+        ParallelSnapshotLoader.Result result = ParallelSnapshotLoader.load(
+                write("1,TASK,Task,NEW,Description\n2,EPIC,Epic,NEW,Description,,,\n"), 16);
+
+        assertEquals(2, result.rows.size());
+        assertInstanceOf(Epic.class, result.rows.get(1));
+        assertTrue(result.historyIds.isEmpty());
+    }
+
+    @Test
+    public void shouldLoadEmptySnapshots() throws IOException {
+        assertTrue(ParallelSnapshotLoader.load(write("")).rows.isEmpty());
+
+        ParallelSnapshotLoader.Result result = ParallelSnapshotLoader.load(write(TaskCsvCodec.HEADER + "\n\n"));
+        assertTrue(result.rows.isEmpty());
+        assertTrue(result.historyIds.isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Recurrence;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurringTasksTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private static Task recurring(int id, LocalDateTime start, int minutes, String rule) {
+        Task task = new Task("Task " + id, "Description");
+        task.setId(id);
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(minutes));
+        task.setRecurrence(Recurrence.parse(rule));
+        return task;
+    }
+
+    @Test
+    void shouldExpandOnlyRequestedWindow() {
+        Task daily = recurring(1, START.plusHours(9), 30, "FREQ=DAILY;INTERVAL=2");
+        Task weekly = recurring(2, START.plusHours(10), 60, "FREQ=WEEKLY;INTERVAL=1;COUNT=2");
+
+        List<Task> window = RecurringTasks.occurrences(List.of(daily, weekly), START.plusDays(4), START.plusDays(9), 100);
+
+        assertEquals(List.of(START.plusDays(4).plusHours(9), START.plusDays(6).plusHours(9),
+                        START.plusDays(7).plusHours(10), START.plusDays(8).plusHours(9)),
+                window.stream().map(Task::getStartTime).toList());
+        assertEquals(START.plusHours(9), daily.getStartTime(), "Повторения — копии, исходная задача не меняется");
+        assertEquals(2, RecurringTasks.occurrences(List.of(weekly), null, null, Integer.MAX_VALUE).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurringTasks.occurrences(List.of(daily), START, null, Integer.MAX_VALUE));
+        assertTrue(RecurringTasks.occursDuring(daily, START.plusDays(1000).plusHours(9).plusMinutes(29),
+                START.plusDays(1000).plusHours(10)));
+        assertFalse(RecurringTasks.occursDuring(daily, START.plusDays(1001).plusHours(9),
+                START.plusDays(1001).plusHours(10)));
+    }
+
+    @Test
+    void shouldDetectCollisionsLikeEnumeration() {
+        Random random = new Random(42);
+        for (int round = 0; round < 5_000; round++) {
+            Task first = randomTask(1, random);
+            Task second = randomTask(2, random);
+
+            boolean expected = collideByEnumeration(first, second);
+            assertEquals(expected, RecurringTasks.collide(first, second), first.getRecurrence() + " / "
+                    + second.getRecurrence() + " " + first + " / " + second);
+            assertEquals(expected, RecurringTasks.collide(second, first));
+        }
+    }
+
+    @Test
+    void shouldCheckLongRulesWithoutEnumeratingThem() {
+        Task endless = recurring(1, START.plusHours(9), 30, "FREQ=DAILY;INTERVAL=1");
+        Task longRule = recurring(2, START.plusHours(10), 30, "FREQ=DAILY;INTERVAL=1;COUNT=" + Recurrence.MAX_COUNT);
+        Task farUntil = recurring(3, START.plusHours(8), 30, "FREQ=WEEKLY;INTERVAL=1;UNTIL=9999-01-01T00:00");
+        Task clash = recurring(4, START.plusDays(99_999).plusHours(9).plusMinutes(15), 30,
+                "FREQ=DAILY;INTERVAL=1000;COUNT=1");
+
+        assertTimeout(Duration.ofSeconds(1), () -> {
+            assertFalse(RecurringTasks.collide(endless, longRule));
+            assertFalse(RecurringTasks.collide(farUntil, longRule));
+            assertTrue(RecurringTasks.collide(clash, endless));
+            assertFalse(RecurringTasks.collide(clash, longRule));
+        });
+    }
+
+    private static Task randomTask(int id, Random random) {
+        String frequency = random.nextBoolean() ? "FREQ=DAILY" : "FREQ=WEEKLY";
+        LocalDateTime start = START.plusMinutes(random.nextInt(14 * 24 * 60));
+        String bound;
+        switch (random.nextInt(3)) {
+            case 0:
+                bound = ";COUNT=" + (1 + random.nextInt(30));
+                break;
+            case 1:
+                bound = ";UNTIL=" + start.plusDays(random.nextInt(120) - 5);
+                break;
+            default:
+                bound = "";
+        }
+        return recurring(id, start, random.nextInt(600), frequency + ";INTERVAL=" + (1 + random.nextInt(3)) + bound);
+    }
+
+    // Перебирает повторения конечного правила; для двух бесконечных — 200 повторений после начала обеих
+    private static boolean collideByEnumeration(Task first, Task second) {
+        boolean firstBounded = first.getRecurrence().isBounded();
+        Task enumerated = firstBounded || !second.getRecurrence().isBounded() ? first : second;
+        Task other = enumerated == first ? second : first;
+        long from = enumerated.getRecurrence().isBounded() ? 0 : 14;
+        long to = enumerated.getRecurrence().isBounded() ? RecurringTasks.lastIndex(enumerated) : 213;
+        for (long index = from; index <= to; index++) {
+            LocalDateTime start = RecurringTasks.startOf(enumerated, index);
+            if (RecurringTasks.occursDuring(other, start, start.plus(enumerated.getDuration()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Status;
+import task.Task;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static Task task(int id, String title, String description) {
+        return new Task(id, title, description, Status.NEW);
+    }
+
+    @Test
+    void shouldTokenizeCyrillicAndLatinCaseInsensitively() {
+        assertEquals(List.of("купить", "елку", "к", "new", "year", "2025"),
+                List.copyOf(SearchIndex.tokenize("Купить ЁЛКУ к New-Year 2025!")));
+    }
+
+    @Test
+    void shouldRequireAllWordsAndRankTitleMatchesFirst() {
+        SearchIndex index = new SearchIndex();
+        index.put(task(1, "Отчёт за квартал", "Собрать цифры продаж"));
+        index.put(task(2, "Встреча", "Обсудить отчет по продажам"));
+        index.put(task(3, "Отчет", "Черновик"));
+
+        assertEquals(List.of(1, 3, 2), index.search("отчет", 10));
+        assertEquals(List.of(2), index.search("отчёт продажам", 10));
+        assertEquals(List.of(1, 2), index.search("отчет прод", 10), "Последнее слово ищется по началу");
+        assertEquals(List.of(1), index.search("ОТЧЕТ", 1));
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void shouldForgetOldWordsOnUpdateAndRemove() {
+        SearchIndex index = new SearchIndex();
+        index.put(task(1, "Buy milk", "Store"));
+        index.put(task(1, "Buy bread", "Store"));
+
+        assertTrue(index.search("milk", 10).isEmpty());
+        assertEquals(List.of(1), index.search("bread", 10));
+
+        index.remove(1);
+        assertTrue(index.search("store", 10).isEmpty());
+    }
+}
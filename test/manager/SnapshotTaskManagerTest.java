@@ -0,0 +1,203 @@
+package manager;
+
+import exceptions.ManagerValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTaskManagerTest extends TaskManagerTest<SnapshotTaskManager> {
+
+    @BeforeEach
+    public void setUp() {
+        manager = new SnapshotTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    @Override
+    protected void shouldCalculateEpicStatus() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+
+        Subtask subtask1 = new Subtask("Subtask 1", "Description", epic.getId());
+        subtask1.setStatus(Status.DONE);
+        manager.createSubtask(subtask1);
+        assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus());
+
+        Subtask subtask2 = new Subtask("Subtask 2", "Description", epic.getId());
+        manager.createSubtask(subtask2);
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    public void shouldKeepOldSnapshotUnchanged() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        subtask.setStartTime(LocalDateTime.of(2030, 1, 1, 10, 0));
+        subtask.setDuration(Duration.ofHours(1));
+        manager.createSubtask(subtask);
+        TaskSnapshot before = manager.snapshot();
+
+        subtask.setStatus(Status.DONE);
+        subtask.setStartTime(LocalDateTime.of(2030, 1, 2, 10, 0));
+        manager.updateSubtask(subtask);
+        TaskSnapshot after = manager.snapshot();
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        Epic oldEpic = (Epic) before.get(epic.getId());
+        assertEquals(Status.NEW, oldEpic.getStatus());
+        assertEquals(LocalDateTime.of(2030, 1, 1, 10, 0), oldEpic.getStartTime());
+        Epic newEpic = (Epic) after.get(epic.getId());
+        assertEquals(Status.DONE, newEpic.getStatus());
+        assertEquals(LocalDateTime.of(2030, 1, 2, 10, 0), newEpic.getStartTime());
+        assertEquals(LocalDateTime.of(2030, 1, 1, 10, 0), before.getPrioritizedTasks().get(0).getStartTime());
+    }
+
+    @Test
+    public void shouldShareUnchangedTasksBetweenVersions() {
+        Task first = new Task("First", "Description");
+        Task second = new Task("Second", "Description");
+        manager.createTask(first);
+        manager.createTask(second);
+        TaskSnapshot before = manager.snapshot();
+
+        second.setTitle("Changed");
+        manager.updateTask(second);
+        TaskSnapshot after = manager.snapshot();
+
+        assertSame(before.tasks().get(first.getId()), after.tasks().get(first.getId()));
+        assertNotSame(before.tasks().get(second.getId()), after.tasks().get(second.getId()));
+        assertSame(before.epics(), after.epics());
+    }
+
+    @Test
+    public void shouldPublishBatchAsOneVersion() {
+        long version = manager.getVersion();
+
+        manager.batch(() -> {
+            manager.createTask(new Task("First", "Description"));
+            manager.createTask(new Task("Second", "Description"));
+            assertTrue(manager.getAllTasks().isEmpty(), "Пакет не должен быть виден до завершения");
+        });
+
+        assertEquals(version + 1, manager.getVersion());
+        assertEquals(2, manager.getAllTasks().size());
+    }
+
+    @Test
+    public void shouldPublishStateOfFilledDelegate() {
+        InMemoryTaskManager delegate = new InMemoryTaskManager();
+        delegate.createTask(new Task("Task", "Description"));
+
+        SnapshotTaskManager snapshots = new SnapshotTaskManager(delegate);
+
+        assertEquals(1, snapshots.getVersion());
+        assertEquals("Task", snapshots.getTaskById(1).getTitle());
+        assertEquals(1, snapshots.getHistory().size());
+    }
+
+    @Test
+    public void shouldMatchDelegateAfterIncrementalPublishing() {
+        InMemoryTaskManager delegate = new InMemoryTaskManager();
+        manager = new SnapshotTaskManager(delegate);
+        LocalDateTime day = LocalDateTime.of(2030, 3, 1, 9, 0);
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Task task = i % 2 == 0 ? new Task("Task " + i, "Description")
+                    : new Subtask("Subtask " + i, "Description", epic.getId());
+            task.setStartTime(day.plusHours(i * 2L));
+            task.setDuration(Duration.ofMinutes(30));
+            if (task instanceof Subtask) {
+                manager.createSubtask((Subtask) task);
+            } else {
+                manager.createTask(task);
+            }
+            ids.add(task.getId());
+        }
+        Random random = new Random(3);
+        for (int step = 0; step < 100; step++) {
+            int id = ids.get(random.nextInt(ids.size()));
+            Task task = manager.snapshot().get(id);
+            if (task == null) {
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0:
+                    task.setStartTime(day.minusDays(1).plusMinutes(random.nextInt(10_000) * 45L));
+                    try {
+                        if (task instanceof Subtask) {
+                            manager.updateSubtask((Subtask) task);
+                        } else {
+                            manager.updateTask(task);
+                        }
+                    } catch (ManagerValidationException e) {
+                        // Пересечение по времени: состояние не меняется
+                    }
+                    break;
+                case 1:
+                    if (task instanceof Subtask) {
+                        manager.getSubtaskById(id);
+                    } else {
+                        manager.getTaskById(id);
+                    }
+                    break;
+                default:
+                    if (task instanceof Subtask) {
+                        manager.deleteSubtask(id);
+                    } else {
+                        manager.deleteTask(id);
+                    }
+            }
+        }
+
+        SnapshotTaskManager rebuilt = new SnapshotTaskManager(delegate);
+        assertEquals(titles(rebuilt.getPrioritizedTasks()), titles(manager.getPrioritizedTasks()));
+        assertEquals(titles(rebuilt.getHistory()), titles(manager.getHistory()));
+        assertEquals(titles(rebuilt.getTasksPage(0, 100)), titles(manager.getTasksPage(0, 100)));
+        assertEquals(titles(rebuilt.getSubtasksPage(5, 3)), titles(manager.getSubtasksPage(5, 3)));
+        assertEquals(rebuilt.getEpicById(epic.getId()).getStartTime(), manager.getEpicById(epic.getId()).getStartTime());
+        assertEquals(rebuilt.findFreeSlots(Duration.ofMinutes(20), day, day.plusDays(3), 50),
+                manager.findFreeSlots(Duration.ofMinutes(20), day, day.plusDays(3), 50));
+    }
+
+    @Test
+    public void shouldNotCopyHistoryOnView() {
+        Task first = new Task("First", "Description");
+        Task second = new Task("Second", "Description");
+        manager.createTask(first);
+        manager.createTask(second);
+        manager.getTaskById(first.getId());
+        TaskSnapshot before = manager.snapshot();
+
+        manager.getTaskById(second.getId());
+        manager.getTaskById(first.getId());
+        TaskSnapshot after = manager.snapshot();
+
+        assertSame(before.tasks(), after.tasks());
+        assertEquals(List.of("First"), titles(before.getHistory()));
+        assertEquals(List.of("Second", "First"), titles(after.getHistory()));
+        manager.deleteTask(first.getId());
+        assertEquals(List.of("Second"), titles(manager.getHistory()));
+    }
+
+    private static List<String> titles(List<? extends Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+}
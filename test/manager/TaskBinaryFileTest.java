@@ -0,0 +1,148 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Epic;
+import task.Recurrence;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskBinaryFileTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private File write(List<Task> rows, List<Integer> historyIds) throws IOException {
+        File file = tempDir.resolve("storage.bin").toFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            TaskBinaryFile.write(rows, historyIds, out);
+        }
+        return file;
+    }
+
+    @Test
+    public void shouldRoundTripAllFields() throws IOException {
+        LocalDateTime startTime = LocalDateTime.of(1969, 12, 31, 23, 59, 30, 123_456_789);
+        List<Task> rows = List.of(
+                new Task(1, "Задача, с запятой", "Строка 1\nСтрока 2", Status.DONE,
+                        Duration.ofMinutes(45), startTime),
+                new Epic(2, "Epic", "", Status.IN_PROGRESS),
+                new Subtask(3, null, null, Status.NEW, 2, null, LocalDateTime.of(2024, 3, 8, 9, 5)));
+
+        ParallelSnapshotLoader.Result result = TaskBinaryFile.load(write(rows, List.of(3, 1)));
+
+        assertEquals(3, result.rows.size());
+        Task task = result.rows.get(0);
+        assertEquals("Задача, с запятой", task.getTitle());
+        assertEquals("Строка 1\nСтрока 2", task.getDescription());
+        assertEquals(Status.DONE, task.getStatus());
+        assertEquals(Duration.ofMinutes(45), task.getDuration());
+        assertEquals(startTime, task.getStartTime());
+
+        Epic epic = (Epic) result.rows.get(1);
+        assertEquals("", epic.getDescription());
+        assertNull(epic.getStartTime());
+
+        Subtask subtask = (Subtask) result.rows.get(2);
+        assertEquals(2, subtask.getEpicId());
+        assertNull(subtask.getTitle());
+        assertNull(subtask.getDuration());
+        assertEquals(LocalDateTime.of(2024, 3, 8, 9, 5), subtask.getStartTime());
+        assertEquals(List.of(3, 1), result.historyIds);
+    }
+
+    @Test
+    public void shouldReadSingleRecordWithoutMaterializingOthers() throws IOException {
+        List<Task> rows = new ArrayList<>();
+        for (int id = 1; id <= 1_000; id++) {
+            rows.add(new Task(id, "Task " + id, "Description", Status.NEW));
+        }
+        TaskBinaryFile binaryFile = TaskBinaryFile.open(write(rows, List.of()));
+
+        assertEquals(1_000, binaryFile.size());
+        assertEquals(500, binaryFile.id(499));
+        assertEquals(TaskType.TASK, binaryFile.type(499));
+        assertEquals("Task 500", binaryFile.get(499).getTitle());
+        assertThrows(IndexOutOfBoundsException.class, () -> binaryFile.get(1_000));
+    }
+
+    @Test
+    public void shouldDistinguishBinaryAndCsvFiles() throws IOException {
+        File csv = tempDir.resolve("storage.csv").toFile();
+        Files.writeString(csv.toPath(), TaskCsvCodec.HEADER + "\n1,TASK,Task,NEW,Description,,,\n\n");
+
+        assertFalse(TaskBinaryFile.isBinary(csv));
+        assertTrue(TaskBinaryFile.isBinary(write(List.of(), List.of())));
+        assertThrows(IllegalArgumentException.class, () -> TaskBinaryFile.open(csv));
+    }
+
+    @Test
+    public void shouldRoundTripRecurrence() throws IOException {
+        Task task = new Task(1, "Standup", "Description", Status.NEW, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 3, 8, 9, 0));
+        task.setRecurrence(Recurrence.parse("FREQ=DAILY;INTERVAL=1;COUNT=5"));
+
+        TaskBinaryFile binaryFile = TaskBinaryFile.open(write(List.of(task, new Task(2, "Once", null, Status.NEW)),
+                List.of()));
+
+        assertEquals(task.getRecurrence(), binaryFile.get(0).getRecurrence());
+        assertNull(binaryFile.get(1).getRecurrence());
+    }
+
+    @Test
+    public void shouldReadFirstVersionRecords() throws IOException {
+        byte[] title = "Task".getBytes(StandardCharsets.UTF_8);
+        int heapOffset = TaskBinaryFile.HEADER_SIZE + TaskBinaryFile.V1_RECORD_SIZE;
+        ByteBuffer file = ByteBuffer.allocate(heapOffset + title.length);
+        file.putInt(TaskBinaryFile.MAGIC).putInt(1).putInt(1).putInt(0).putLong(heapOffset);
+        file.putInt(7).put((byte) 0).put((byte) 0).put((byte) 0).put((byte) 0);
+        file.putInt(TaskBinaryFile.HEADER_SIZE + 32, 0).putInt(TaskBinaryFile.HEADER_SIZE + 36, title.length);
+        file.putInt(TaskBinaryFile.HEADER_SIZE + 44, -1);
+        file.position(heapOffset);
+        file.put(title);
+        Path path = tempDir.resolve("v1.bin");
+        Files.write(path, file.array());
+
+        Task task = TaskBinaryFile.open(path.toFile()).get(0);
+        assertEquals(7, task.getId());
+        assertEquals("Task", task.getTitle());
+        assertNull(task.getDescription());
+        assertNull(task.getRecurrence());
+    }
+
+    @Test
+    public void shouldRejectTooManyRowsBeforeAllocating() {
+        Task task = new Task(1, "Task", "Description", Status.NEW);
+        List<Task> rows = new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return task;
+            }
+
+            @Override
+            public int size() {
+                return 40_000_000;
+            }
+        };
+
+        assertThrows(IOException.class, () -> TaskBinaryFile.write(rows, List.of(), new ByteArrayOutputStream()));
+    }
+}
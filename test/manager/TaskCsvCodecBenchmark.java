@@ -0,0 +1,150 @@
+package manager;
+
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сравнение прежнего кодирования строк хранилища ({@code String.format}, {@code split},
+ * {@code LocalDateTime.parse}) с {@link TaskCsvCodec}. Запускается вручную:
+ * {@code java manager.TaskCsvCodecBenchmark [rows]}.
+ */
+public class TaskCsvCodecBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Task> tasks = generate(rows);
+        List<String> lines = new ArrayList<>(rows);
+        TaskCsvCodec codec = new TaskCsvCodec();
+        for (Task task : tasks) {
+            lines.add(codec.encode(task));
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long legacyEncode = measure(() -> {
+                Writer out = Writer.nullWriter();
+                for (Task task : tasks) {
+                    out.write(legacyToString(task) + "\n");
+                }
+            });
+            long codecEncode = measure(() -> {
+                Writer out = Writer.nullWriter();
+                TaskCsvCodec writer = new TaskCsvCodec();
+                for (Task task : tasks) {
+                    writer.write(task, out);
+                }
+                writer.flush(out);
+            });
+            long legacyDecode = measure(() -> {
+                long checksum = 0;
+                for (String line : lines) {
+                    checksum += legacyFromString(line).getId();
+                }
+                blackhole(checksum);
+            });
+            long codecDecode = measure(() -> {
+                long checksum = 0;
+                TaskCsvCodec reader = new TaskCsvCodec();
+                for (String line : lines) {
+                    checksum += reader.decode(line).getId();
+                }
+                blackhole(checksum);
+            });
+
+            System.out.printf("round %d, %d rows: encode %d ms -> %d ms (x%.1f), decode %d ms -> %d ms (x%.1f)%n",
+                    round, rows,
+                    legacyEncode, codecEncode, (double) legacyEncode / Math.max(codecEncode, 1),
+                    legacyDecode, codecDecode, (double) legacyDecode / Math.max(codecDecode, 1));
+        }
+    }
+
+    private interface Body {
+        void run() throws IOException;
+    }
+
+    private static long measure(Body body) throws IOException {
+        long start = System.nanoTime();
+        body.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void blackhole(long value) {
+        if (value == 42) {
+            System.out.println();
+        }
+    }
+
+    private static List<Task> generate(int rows) {
+        List<Task> tasks = new ArrayList<>(rows);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int epicId = 0;
+        for (int id = 1; id <= rows; id++) {
+            switch (id % 10) {
+                case 0:
+                    epicId = id;
+                    tasks.add(new Epic(id, "Эпик " + id, "Описание эпика", Status.NEW));
+                    break;
+                case 1:
+                case 2:
+                case 3:
+                case 4:
+                    tasks.add(new Subtask(id, "Подзадача " + id, "Описание подзадачи", Status.IN_PROGRESS,
+                            Math.max(epicId, 1), Duration.ofMinutes(15), start.plusMinutes(id * 15L)));
+                    break;
+                default:
+                    tasks.add(new Task(id, "Task " + id, "Description", Status.DONE,
+                            Duration.ofMinutes(30), start.plusMinutes(id * 15L)));
+            }
+        }
+        return tasks;
+    }
+
+    // Прежняя реализация FileBackedTaskManager.toString(Task)
+    private static String legacyToString(Task task) {
+        TaskType type = task.getType();
+        String epicId = type == TaskType.SUBTASK ? Integer.toString(((Subtask) task).getEpicId()) : "";
+        String duration = task.getDuration() != null ? Long.toString(task.getDuration().toMinutes()) : "";
+        String startTime = task.getStartTime() != null ? task.getStartTime().toString() : "";
+
+        return String.format("%d,%s,%s,%s,%s,%s,%s,%s",
+                task.getId(), type, task.getTitle(), task.getStatus(), task.getDescription(),
+                epicId, duration, startTime);
+    }
+
+    // Прежняя реализация разбора строки в loadFromFile: split дважды на строку
+    private static Task legacyFromString(String value) {
+        String[] header = value.split(",");
+        Integer.parseInt(header[0]);
+        TaskType.valueOf(header[1]);
+
+        String[] fields = value.split(",");
+        int id = Integer.parseInt(fields[0]);
+        TaskType type = TaskType.valueOf(fields[1]);
+        String title = fields[2];
+        Status status = Status.valueOf(fields[3]);
+        String description = fields[4];
+        Duration duration = fields.length > 6 && !fields[6].isEmpty()
+                ? Duration.ofMinutes(Long.parseLong(fields[6])) : null;
+        LocalDateTime startTime = fields.length > 7 && !fields[7].isEmpty()
+                ? LocalDateTime.parse(fields[7]) : null;
+
+        switch (type) {
+            case EPIC:
+                return new Epic(id, title, description, status, duration, startTime);
+            case SUBTASK:
+                return new Subtask(id, title, description, status, Integer.parseInt(fields[5]), duration, startTime);
+            default:
+                return new Task(id, title, description, status, duration, startTime);
+        }
+    }
+}
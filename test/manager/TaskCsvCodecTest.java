@@ -0,0 +1,131 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Recurrence;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskCsvCodecTest {
+    private final TaskCsvCodec codec = new TaskCsvCodec();
+
+    @Test
+    public void shouldRoundTripSubtaskWithTime() {
+        Subtask subtask = new Subtask(7, "Купить продукты", "Для праздника", Status.IN_PROGRESS, 3,
+                Duration.ofMinutes(90), LocalDateTime.of(2024, 3, 8, 9, 5));
+
+        String line = codec.encode(subtask);
+        assertEquals("7,SUBTASK,Купить продукты,IN_PROGRESS,Для праздника,3,90,2024-03-08T09:05", line);
+
+        Subtask decoded = (Subtask) codec.decode(line);
+        assertEquals(7, decoded.getId());
+        assertEquals("Купить продукты", decoded.getTitle());
+        assertEquals(Status.IN_PROGRESS, decoded.getStatus());
+        assertEquals(3, decoded.getEpicId());
+        assertEquals(Duration.ofMinutes(90), decoded.getDuration());
+        assertEquals(subtask.getStartTime(), decoded.getStartTime());
+    }
+
+    @Test
+    public void shouldEscapeSeparatorsAndNewlines() {
+        Task task = new Task(1, "Title, with comma", "Line 1\nLine 2\r\\end", Status.NEW);
+
+        String line = codec.encode(task);
+        assertFalse(line.contains("\n"), "Задача должна занимать одну строку");
+
+        Task decoded = codec.decode(line);
+        assertEquals(task.getTitle(), decoded.getTitle());
+        assertEquals(task.getDescription(), decoded.getDescription());
+        assertNull(decoded.getDuration());
+        assertNull(decoded.getStartTime());
+    }
+
+    @Test
+    public void shouldKeepSecondsAndFractionsOfStartTime() {
+        LocalDateTime[] times = {
+                LocalDateTime.of(2024, 1, 1, 0, 0, 30),
+                LocalDateTime.of(2024, 1, 1, 0, 0, 0, 5_000_000),
+                LocalDateTime.of(2024, 1, 1, 0, 0, 1, 123_456_000),
+                LocalDateTime.of(2024, 1, 1, 0, 0, 1, 123_456_789)
+        };
+        for (LocalDateTime time : times) {
+            Task task = new Task(1, "Task", "Description", Status.DONE, Duration.ofMinutes(1), time);
+            String line = codec.encode(task);
+            assertTrue(line.endsWith(time.toString()), "Формат должен совпадать с LocalDateTime.toString()");
+            assertEquals(time, codec.decode(line).getStartTime());
+        }
+    }
+
+    @Test
+    public void shouldDecodeLegacyLines() {
+        Task task = codec.decode("1,TASK,Task,NEW,Description");
+        assertEquals("Description", task.getDescription());
+        assertNull(task.getStartTime());
+
+        Epic epic = (Epic) codec.decode("2,EPIC,Epic,DONE,Description,,,");
+        assertEquals(Status.DONE, epic.getStatus());
+    }
+
+    @Test
+    public void shouldDecodeFromOffset() {
+        Task task = codec.decode("PUT,5,TASK,Task,NEW,Description,,15,2024-01-01T10:00", 4);
+        assertEquals(5, task.getId());
+        assertEquals(Duration.ofMinutes(15), task.getDuration());
+    }
+
+    @Test
+    public void shouldRejectMalformedLines() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("x,TASK,Task,NEW,Description"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("1,STORY,Task,NEW,Description"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("1,SUBTASK,Task,NEW,Description,,,"));
+    }
+
+    @Test
+    public void shouldWriteRowsThroughBuffer() throws IOException {
+        StringWriter out = new StringWriter();
+        TaskCsvCodec writer = new TaskCsvCodec();
+        writer.writeLine(TaskCsvCodec.HEADER, out);
+        for (int i = 1; i <= 5_000; i++) {
+            writer.write(new Task(i, "Task " + i, "Description", Status.NEW), out);
+        }
+        writer.flush(out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(5_001, lines.length);
+        assertEquals(5_000, codec.decode(lines[5_000]).getId());
+    }
+
+    @Test
+    public void shouldRoundTripRecurrenceOnlyForRecurringTasks() {
+        Task task = new Task(4, "Standup", "Description", Status.NEW, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 3, 8, 9, 0));
+        task.setRecurrence(Recurrence.parse("FREQ=WEEKLY;INTERVAL=2;UNTIL=2024-06-01T00:00"));
+
+        String line = codec.encode(task);
+        assertEquals("4,TASK,Standup,NEW,Description,,15,2024-03-08T09:00,FREQ=WEEKLY;INTERVAL=2;UNTIL=2024-06-01T00:00",
+                line);
+        assertEquals(task.getRecurrence(), codec.decode(line).getRecurrence());
+        assertNull(codec.decode("4,TASK,Standup,NEW,Description,,15,2024-03-08T09:00").getRecurrence());
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.decode("4,TASK,Standup,NEW,Description,,15,2024-03-08T09:00,FREQ=HOURLY"));
+    }
+
+    @Test
+    public void shouldReadUnescapedLinesVerbatim() {
+        TaskCsvCodec legacy = new TaskCsvCodec(false);
+
+        Task task = legacy.decode("1,TASK,C:\\new,NEW,a\\,,,");
+        assertEquals("C:\\new", task.getTitle());
+        assertEquals("a\\", task.getDescription());
+        assertTrue(TaskCsvCodec.isEscapedHeader(TaskCsvCodec.HEADER));
+        assertFalse(TaskCsvCodec.isEscapedHeader("id,type,name,status,description,epic,duration,startTime"));
+    }
+}
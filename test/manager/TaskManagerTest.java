@@ -5,11 +5,14 @@ import exceptions.ManagerValidationException;
 import org.junit.jupiter.api.Test;
 import task.Epic;
 import task.Status;
+import task.Recurrence;
 import task.Subtask;
 import task.Task;
+import task.TimeSlot;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -58,6 +61,502 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 "Статус эпика должен быть DONE, так как подзадача имеет статус DONE");
     }
 
+    @Test
+    protected void shouldReportConflictingTasks() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task first = new Task("First", "Description");
+        first.setStartTime(start);
+        first.setDuration(Duration.ofHours(1));
+        manager.createTask(first);
+
+        Task adjacent = new Task("Adjacent", "Description");
+        adjacent.setStartTime(start.plusHours(1));
+        adjacent.setDuration(Duration.ofHours(1));
+        manager.createTask(adjacent);
+
+        Task overlapping = new Task("Overlapping", "Description");
+        overlapping.setStartTime(start.plusMinutes(30));
+        overlapping.setDuration(Duration.ofHours(1));
+        ManagerValidationException e = assertThrows(ManagerValidationException.class,
+                () -> manager.createTask(overlapping));
+
+        assertEquals(List.of(first.getId(), adjacent.getId()),
+                e.getConflicts().stream().map(Task::getId).toList());
+        assertEquals(2, manager.getPrioritizedTasks().size(), "Задача, начинающаяся в конце другой, допустима");
+    }
+
+    @Test
+    protected void shouldRemoveScheduledSubtasksWithEpic() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        subtask.setStartTime(start);
+        subtask.setDuration(Duration.ofHours(1));
+        manager.createSubtask(subtask);
+
+        manager.deleteEpic(epic.getId());
+
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+        Task task = new Task("Task", "Description");
+        task.setStartTime(start);
+        task.setDuration(Duration.ofHours(1));
+        assertDoesNotThrow(() -> manager.createTask(task));
+    }
+
+    @Test
+    protected void shouldPageByIdAcrossChanges() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task("Task " + i, "Description");
+            manager.createTask(task);
+            taskIds.add(task.getId());
+            manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+        }
+        manager.deleteTask(taskIds.get(1));
+
+        List<Task> first = manager.getTasksPage(0, 2);
+        assertEquals(List.of(taskIds.get(0), taskIds.get(2)), first.stream().map(Task::getId).toList());
+        List<Task> second = manager.getTasksPage(first.get(1).getId(), 2);
+        assertEquals(List.of(taskIds.get(3), taskIds.get(4)), second.stream().map(Task::getId).toList());
+        assertTrue(manager.getTasksPage(taskIds.get(4), 2).isEmpty());
+
+        assertEquals(List.of(epic.getId()), manager.getEpicsPage(0, 10).stream().map(Epic::getId).toList());
+        assertEquals(3, manager.getSubtasksPage(epic.getId(), 3).size());
+        manager.deleteEpic(epic.getId());
+        assertTrue(manager.getSubtasksPage(0, 10).isEmpty());
+    }
+
+    @Test
+    protected void shouldCreateBatchesAtomically() {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 1, 9, 0);
+        Task existing = new Task("Existing", "Description");
+        existing.setStartTime(start);
+        existing.setDuration(Duration.ofHours(1));
+        manager.createTask(existing);
+
+        List<Task> batch = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Task task = new Task("Batch " + i, "Description");
+            task.setStartTime(start.plusHours(i));
+            task.setDuration(Duration.ofHours(1));
+            batch.add(task);
+        }
+        manager.createTasks(batch);
+        assertEquals(4, manager.getPrioritizedTasks().size());
+        assertTrue(batch.stream().allMatch(task -> task.getId() > existing.getId()));
+
+        Task first = new Task("Clash A", "Description");
+        first.setStartTime(start.plusDays(1));
+        first.setDuration(Duration.ofHours(2));
+        Task second = new Task("Clash B", "Description");
+        second.setStartTime(start.plusDays(1).plusHours(1));
+        second.setDuration(Duration.ofHours(1));
+        Task free = new Task("Free", "Description");
+        assertThrows(ManagerValidationException.class, () -> manager.createTasks(List.of(free, first, second)),
+                "Задачи пакета пересекаются между собой");
+
+        Task overlapsExisting = new Task("Late", "Description");
+        overlapsExisting.setStartTime(start.plusMinutes(30));
+        overlapsExisting.setDuration(Duration.ofMinutes(10));
+        ManagerValidationException exception = assertThrows(ManagerValidationException.class,
+                () -> manager.createTasks(List.of(free, overlapsExisting)));
+        assertEquals(List.of(existing.getId()), exception.getConflicts().stream().map(Task::getId).toList());
+        assertEquals(4, manager.getAllTasks().size(), "Отклонённый пакет не должен создавать задач");
+    }
+
+    @Test
+    protected void shouldUpdateManyAtOnce() {
+        LocalDateTime start = LocalDateTime.of(2030, 4, 1, 9, 0);
+        Task morning = new Task("Morning", "Description");
+        morning.setStartTime(start);
+        morning.setDuration(Duration.ofHours(1));
+        Task noon = new Task("Noon", "Description");
+        noon.setStartTime(start.plusHours(1));
+        noon.setDuration(Duration.ofHours(1));
+        manager.createTasks(List.of(morning, noon));
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask first = new Subtask("First", "Description", epic.getId());
+        Subtask second = new Subtask("Second", "Description", epic.getId());
+        manager.createSubtasks(List.of(first, second));
+
+        // Поменять задачи местами по одной нельзя: первая же замена пересечётся со второй задачей
+        Task swappedMorning = new Task(morning.getId(), "Morning", "Description", Status.NEW,
+                Duration.ofHours(1), start.plusHours(1));
+        Task swappedNoon = new Task(noon.getId(), "Noon", "Description", Status.NEW,
+                Duration.ofHours(1), start);
+        Subtask firstDone = new Subtask(first.getId(), "First", "Description", Status.DONE, epic.getId());
+        Subtask secondDone = new Subtask(second.getId(), "Second", "Description", Status.DONE, epic.getId());
+        Epic renamed = new Epic("Renamed", "Description");
+        renamed.setId(epic.getId());
+        manager.updateMany(List.of(swappedMorning, swappedNoon, firstDone, secondDone, renamed));
+
+        assertEquals(List.of("Noon", "Morning"),
+                manager.getPrioritizedTasks().stream().map(Task::getTitle).toList());
+        Epic updated = manager.getEpicById(epic.getId());
+        assertEquals(Status.DONE, updated.getStatus());
+        assertEquals("Renamed", updated.getTitle());
+
+        Task missing = new Task(9999, "Missing", "Description", Status.NEW);
+        Task renamedMorning = new Task(morning.getId(), "Changed", "Description", Status.NEW);
+        assertThrows(NotFoundException.class, () -> manager.updateMany(List.of(renamedMorning, missing)));
+        assertEquals("Morning", manager.getTaskById(morning.getId()).getTitle(),
+                "Отклонённый пакет не должен менять задачи");
+    }
+
+    @Test
+    protected void shouldApplyTransactionAsOneUnit() {
+        Epic source = new Epic("Source", "Description");
+        Epic target = new Epic("Target", "Description");
+        manager.createEpic(source);
+        manager.createEpic(target);
+        Subtask subtask = new Subtask("Subtask", "Description", source.getId());
+        manager.createSubtask(subtask);
+
+        Task followUp = new Task("Follow-up", "Description");
+        manager.inTransaction(tx -> {
+            Subtask moved = new Subtask(subtask.getId(), "Subtask", "Description", Status.DONE, target.getId());
+            tx.updateSubtask(moved);
+            tx.createTask(followUp);
+        });
+
+        assertEquals(List.of(subtask.getId()), manager.getEpicById(target.getId()).getSubtaskIds());
+        assertTrue(manager.getEpicById(source.getId()).getSubtaskIds().isEmpty());
+        assertEquals(Status.DONE, manager.getEpicById(target.getId()).getStatus());
+        assertEquals(followUp, manager.getTaskById(followUp.getId()));
+    }
+
+    @Test
+    protected void shouldRollBackFailedTransaction() {
+        LocalDateTime start = LocalDateTime.of(2030, 5, 1, 9, 0);
+        Task busy = new Task("Busy", "Description");
+        busy.setStartTime(start);
+        busy.setDuration(Duration.ofHours(1));
+        manager.createTask(busy);
+        Task removed = new Task("Removed", "Description");
+        manager.createTask(removed);
+        manager.getTaskById(removed.getId());
+        Epic source = new Epic("Source", "Description");
+        Epic target = new Epic("Target", "Description");
+        manager.createEpic(source);
+        manager.createEpic(target);
+        Subtask subtask = new Subtask("Subtask", "Description", source.getId());
+        manager.createSubtask(subtask);
+
+        Task clash = new Task("Clash", "Description");
+        clash.setStartTime(start.plusMinutes(30));
+        clash.setDuration(Duration.ofHours(1));
+        assertThrows(ManagerValidationException.class, () -> manager.inTransaction(tx -> {
+            tx.updateSubtask(new Subtask(subtask.getId(), "Moved", "Description", Status.DONE, target.getId()));
+            tx.updateEpic(new Epic(source.getId(), "Renamed", "Description", Status.NEW));
+            tx.deleteTask(removed.getId());
+            tx.createTask(new Task("Created", "Description"));
+            tx.createTask(clash);
+        }));
+
+        assertEquals(List.of(subtask.getId()), manager.getEpicById(source.getId()).getSubtaskIds());
+        assertTrue(manager.getEpicById(target.getId()).getSubtaskIds().isEmpty());
+        assertEquals(Status.NEW, manager.getEpicById(target.getId()).getStatus());
+        assertEquals("Source", manager.getEpicById(source.getId()).getTitle());
+        assertEquals("Subtask", manager.getSubtaskById(subtask.getId()).getTitle());
+        assertEquals(List.of(busy.getId(), removed.getId()),
+                manager.getAllTasks().stream().map(Task::getId).sorted().toList());
+        assertTrue(manager.getHistory().stream().anyMatch(task -> task.getId() == removed.getId()),
+                "Удаление из истории тоже откатывается");
+        assertTrue(manager.search("created", 10).isEmpty());
+        assertEquals(List.of(busy.getId()), manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+
+        Task next = new Task("Next", "Description");
+        manager.createTask(next);
+        assertEquals(subtask.getId() + 1, next.getId(), "Id, выданные в откаченной транзакции, переиспользуются");
+    }
+
+    @Test
+    protected void shouldFindFreeSlots() {
+        LocalDateTime day = LocalDateTime.of(2030, 6, 1, 9, 0);
+        Task early = new Task("Early", "Description");
+        early.setStartTime(day.minusHours(1));
+        early.setDuration(Duration.ofMinutes(90));
+        Task meeting = new Task("Meeting", "Description");
+        meeting.setStartTime(day.plusHours(1));
+        meeting.setDuration(Duration.ofHours(1));
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask call = new Subtask("Call", "Description", epic.getId());
+        call.setStartTime(day.plusHours(2).plusMinutes(20));
+        call.setDuration(Duration.ofMinutes(30));
+        manager.createTasks(List.of(early, meeting));
+        manager.createSubtask(call);
+
+        List<TimeSlot> slots = manager.findFreeSlots(Duration.ofMinutes(30), day, day.plusHours(4), 10);
+        assertEquals(List.of(
+                new TimeSlot(day.plusMinutes(30), day.plusHours(1)),
+                new TimeSlot(day.plusHours(2).plusMinutes(50), day.plusHours(4))), slots);
+        assertEquals(1, manager.findFreeSlots(Duration.ofMinutes(30), day, day.plusHours(4), 1).size());
+
+        Task fitted = new Task("Fitted", "Description");
+        fitted.setStartTime(slots.get(0).getStart());
+        fitted.setDuration(Duration.ofMinutes(30));
+        assertDoesNotThrow(() -> manager.createTask(fitted));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.findFreeSlots(Duration.ZERO, day, day.plusHours(1), 1));
+    }
+
+    @Test
+    protected void shouldScheduleUnscheduledTasks() {
+        LocalDateTime day = LocalDateTime.of(2030, 6, 1, 9, 0);
+        Task busy = new Task("Busy", "Description");
+        busy.setStartTime(day.plusHours(1));
+        busy.setDuration(Duration.ofHours(1));
+        Task hour = new Task("Hour", "Description");
+        hour.setDuration(Duration.ofHours(1));
+        Task urgent = new Task("Urgent", "Description");
+        urgent.setDuration(Duration.ofMinutes(90));
+        Task important = new Task("Important", "Description");
+        important.setDuration(Duration.ofMinutes(30));
+        Task unsized = new Task("Unsized", "Description");
+        manager.createTasks(List.of(busy, hour, urgent, important, unsized));
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask call = new Subtask("Call", "Description", epic.getId());
+        call.setDuration(Duration.ofMinutes(30));
+        manager.createSubtask(call);
+
+        ScheduleRequest dryRun = new ScheduleRequest(day, day.plusHours(5), true);
+        dryRun.setDeadline(urgent.getId(), day.plusHours(2));
+        dryRun.setPriority(important.getId(), 5);
+        SchedulePlan plan = manager.schedule(dryRun);
+
+        assertFalse(plan.isApplied());
+        assertEquals(List.of(important.getId(), call.getId(), urgent.getId(), hour.getId()),
+                plan.getAssignments().stream().map(SchedulePlan.Assignment::getTaskId).toList());
+        assertEquals(List.of(day, day.plusMinutes(30), day.plusHours(2), day.plusMinutes(210)),
+                plan.getAssignments().stream().map(SchedulePlan.Assignment::getStart).toList());
+        assertTrue(plan.getAssignments().get(2).isLate(), "Срочная задача не успевает к сроку");
+        assertEquals(List.of(unsized.getId()), plan.getUnscheduledIds());
+        assertEquals(1, manager.getPrioritizedTasks().size(), "Пробный запуск не меняет задачи");
+
+        ScheduleRequest apply = new ScheduleRequest(day, day.plusHours(5), false);
+        apply.setDeadline(urgent.getId(), day.plusHours(2));
+        apply.setPriority(important.getId(), 5);
+        assertTrue(manager.schedule(apply).isApplied());
+        assertEquals(5, manager.getPrioritizedTasks().size());
+        assertEquals(day.plusMinutes(210), manager.getTaskById(hour.getId()).getStartTime());
+        assertEquals(day.plusMinutes(30), manager.getEpicById(epic.getId()).getStartTime());
+
+        ScheduleRequest rest = new ScheduleRequest(day, day.plusHours(5), true);
+        rest.setDefaultDuration(Duration.ofMinutes(15));
+        SchedulePlan restPlan = manager.schedule(rest);
+        assertEquals(day.plusMinutes(270), restPlan.getAssignments().get(0).getStart());
+        assertTrue(restPlan.getUnscheduledIds().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new ScheduleRequest(day, day, true));
+    }
+
+    @Test
+    protected void shouldComputeCriticalPathFromDependencies() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask design = new Subtask("Design", "Description", epic.getId());
+        design.setDuration(Duration.ofMinutes(60));
+        Subtask docs = new Subtask("Docs", "Description", epic.getId());
+        docs.setDuration(Duration.ofMinutes(30));
+        Subtask build = new Subtask("Build", "Description", epic.getId());
+        build.setDuration(Duration.ofMinutes(120));
+        Subtask release = new Subtask("Release", "Description", epic.getId());
+        release.setDuration(Duration.ofMinutes(10));
+        manager.createSubtasks(List.of(design, docs, build, release));
+        manager.addDependency(docs.getId(), design.getId());
+        manager.addDependency(build.getId(), design.getId());
+        manager.addDependency(release.getId(), docs.getId());
+        manager.addDependency(release.getId(), build.getId());
+
+        CriticalPath path = manager.getCriticalPath(epic.getId());
+        assertEquals(List.of(design.getId(), build.getId(), release.getId()), path.getPath());
+        assertEquals(Duration.ofMinutes(190), path.getLength());
+        assertEquals(Duration.ofMinutes(180), path.getEarliestStarts().get(release.getId()));
+        assertEquals(design.getId(), path.getOrder().get(0));
+
+        docs.setDuration(Duration.ofMinutes(200));
+        manager.updateSubtask(docs);
+        path = manager.getCriticalPath(epic.getId());
+        assertEquals(List.of(design.getId(), docs.getId(), release.getId()), path.getPath());
+        assertEquals(Duration.ofMinutes(270), path.getLength());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(design.getId(), release.getId()));
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(design.getId(), design.getId()));
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(design.getId(), epic.getId()));
+        assertThrows(NotFoundException.class, () -> manager.addDependency(design.getId(), 9999));
+        assertThrows(NotFoundException.class, () -> manager.getCriticalPath(9999));
+
+        assertThrows(IllegalStateException.class, () -> manager.inTransaction(tx -> {
+            tx.removeDependency(release.getId(), build.getId());
+            tx.deleteSubtask(docs.getId());
+            throw new IllegalStateException("Откат");
+        }));
+        assertEquals(List.of(docs.getId(), build.getId()), manager.getDependencies(release.getId()));
+        assertEquals(Duration.ofMinutes(270), manager.getCriticalPath(epic.getId()).getLength());
+
+        manager.deleteSubtask(docs.getId());
+        assertEquals(List.of(build.getId()), manager.getDependencies(release.getId()));
+        assertEquals(Duration.ofMinutes(190), manager.getCriticalPath(epic.getId()).getLength());
+    }
+
+    @Test
+    protected void shouldExpandRecurringTasksOnlyForRequestedWindow() {
+        LocalDateTime day = LocalDateTime.of(2030, 6, 1, 9, 0);
+        Task standup = new Task("Standup", "Description");
+        standup.setStartTime(day);
+        standup.setDuration(Duration.ofMinutes(30));
+        standup.setRecurrence(Recurrence.parse("FREQ=DAILY;INTERVAL=1"));
+        manager.createTask(standup);
+
+        List<Task> window = manager.getPrioritizedTasks(day.plusDays(100), day.plusDays(103), 100);
+        assertEquals(List.of(day.plusDays(100), day.plusDays(101), day.plusDays(102)),
+                window.stream().map(Task::getStartTime).toList());
+        assertTrue(window.stream().allMatch(task -> task.getId() == standup.getId()));
+        assertEquals(2, manager.getPrioritizedTasks(day.plusDays(100), day.plusDays(103), 2).size());
+
+        Task clash = new Task("Clash", "Description");
+        clash.setStartTime(day.plusDays(500).plusMinutes(15));
+        clash.setDuration(Duration.ofMinutes(30));
+        ManagerValidationException overlap = assertThrows(ManagerValidationException.class,
+                () -> manager.createTask(clash));
+        assertEquals(List.of(standup.getId()), overlap.getConflicts().stream().map(Task::getId).toList());
+
+        Task meeting = new Task("Meeting", "Description");
+        meeting.setStartTime(day.plusDays(1).plusHours(1));
+        meeting.setDuration(Duration.ofHours(1));
+        manager.createTask(meeting);
+        Task daily = new Task("Daily", "Description");
+        daily.setStartTime(day.plusDays(7).plusMinutes(10));
+        daily.setDuration(Duration.ofMinutes(10));
+        daily.setRecurrence(Recurrence.parse("FREQ=WEEKLY;INTERVAL=1"));
+        assertThrows(ManagerValidationException.class, () -> manager.createTask(daily));
+        Task review = new Task("Review", "Description");
+        review.setStartTime(day.plusDays(1).plusMinutes(90));
+        review.setDuration(Duration.ofMinutes(60));
+        review.setRecurrence(Recurrence.parse("FREQ=WEEKLY;INTERVAL=1;COUNT=2"));
+        assertThrows(ManagerValidationException.class, () -> manager.createTask(review),
+                "Первое повторение пересекается с обычной задачей");
+        review.setStartTime(day.plusHours(3));
+        manager.createTask(review);
+
+        assertEquals(List.of(standup.getId(), review.getId(), standup.getId(), meeting.getId()),
+                manager.getPrioritizedTasks(day, day.plusDays(2), 100).stream().map(Task::getId).toList());
+        assertEquals(List.of(standup.getId(), review.getId(), meeting.getId()),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(List.of(new TimeSlot(day.plusDays(1).minusHours(1), day.plusDays(1)),
+                        new TimeSlot(day.plusDays(1).plusMinutes(30), day.plusDays(1).plusHours(1)),
+                        new TimeSlot(day.plusDays(1).plusHours(2), day.plusDays(1).plusHours(3))),
+                manager.findFreeSlots(Duration.ofMinutes(30), day.plusDays(1).minusHours(1),
+                        day.plusDays(1).plusHours(3), 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.getPrioritizedTasks(day, null, Integer.MAX_VALUE));
+        List<TimeSlot> firstSlots = assertTimeout(Duration.ofSeconds(1),
+                () -> manager.findFreeSlots(Duration.ofMinutes(30), day, day.plusYears(5000), 2),
+                "Повторения широкого окна вычисляются только до нужного числа промежутков");
+        assertEquals(List.of(new TimeSlot(day.plusMinutes(30), day.plusHours(3)),
+                new TimeSlot(day.plusHours(4), day.plusDays(1))), firstSlots);
+
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        subtask.setStartTime(day.minusDays(1));
+        subtask.setRecurrence(Recurrence.parse("FREQ=DAILY;INTERVAL=1;COUNT=3"));
+        assertThrows(IllegalArgumentException.class, () -> manager.createSubtask(subtask));
+        Task unplanned = new Task("Unplanned", "Description");
+        unplanned.setRecurrence(Recurrence.parse("FREQ=DAILY;INTERVAL=1"));
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(unplanned));
+
+        manager.deleteTask(standup.getId());
+        assertEquals(List.of(review.getId(), meeting.getId()),
+                manager.getPrioritizedTasks(day, day.plusDays(2), 100).stream().map(Task::getId).toList());
+        manager.createTask(clash);
+
+        Task endless = new Task("Endless", "Description");
+        endless.setStartTime(day.plusYears(2));
+        endless.setDuration(Duration.ofHours(30));
+        endless.setRecurrence(Recurrence.parse("FREQ=DAILY;INTERVAL=1"));
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(endless),
+                "Повторения длиннее периода пересекались бы друг с другом");
+        endless.setRecurrence(Recurrence.parse("FREQ=DAILY;INTERVAL=2"));
+        manager.createTask(endless);
+        assertEquals(3, manager.getPrioritizedTasks(day.plusYears(2), day.plusYears(2).plusDays(6), 100).size());
+    }
+
+    @Test
+    protected void shouldQueryByStatus() {
+        Task task = new Task("Task", "Description");
+        manager.createTask(task);
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        manager.createSubtask(subtask);
+
+        assertEquals(List.of(task.getId()), manager.getTasksByStatus(Status.NEW).stream().map(Task::getId).toList());
+        assertEquals(1, manager.getEpicsByStatus(Status.NEW).size());
+
+        task.setStatus(Status.DONE);
+        manager.updateTask(task);
+        subtask.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+
+        assertTrue(manager.getTasksByStatus(Status.NEW).isEmpty());
+        assertEquals(1, manager.getTasksByStatus(Status.DONE).size());
+        assertEquals(List.of(subtask.getId()),
+                manager.getSubtasksByStatus(Status.IN_PROGRESS).stream().map(Task::getId).toList());
+        assertEquals(List.of(epic.getId()),
+                manager.getEpicsByStatus(Status.IN_PROGRESS).stream().map(Task::getId).toList());
+
+        manager.deleteSubtask(subtask.getId());
+        assertTrue(manager.getSubtasksByStatus(Status.IN_PROGRESS).isEmpty());
+        assertEquals(1, manager.getEpicsByStatus(Status.NEW).size());
+    }
+
+    @Test
+    protected void shouldSearchAcrossTypes() {
+        Task task = new Task("Купить продукты", "Молоко и хлеб");
+        manager.createTask(task);
+        Epic epic = new Epic("Праздник", "Купить торт");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Пригласить гостей", "Список", epic.getId());
+        manager.createSubtask(subtask);
+
+        assertEquals(List.of(task.getId(), epic.getId()),
+                manager.search("купить", 10).stream().map(Task::getId).toList());
+
+        task.setTitle("Забрать посылку");
+        task.setDescription("На почте");
+        manager.updateTask(task);
+        manager.deleteSubtask(subtask.getId());
+
+        assertEquals(List.of(epic.getId()), manager.search("купить", 10).stream().map(Task::getId).toList());
+        assertTrue(manager.search("гостей", 10).isEmpty());
+    }
+
+    @Test
+    protected void shouldReturnPrioritizedTasksInRange() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int day = 0; day < 10; day++) {
+            Task task = new Task("Day " + day, "Description");
+            task.setStartTime(start.plusDays(day));
+            task.setDuration(Duration.ofHours(1));
+            manager.createTask(task);
+        }
+        manager.createTask(new Task("Unscheduled", "Description"));
+
+        List<Task> week = manager.getPrioritizedTasks(start.plusDays(2), start.plusDays(9));
+        assertEquals(List.of("Day 2", "Day 3", "Day 4", "Day 5", "Day 6", "Day 7", "Day 8"),
+                week.stream().map(Task::getTitle).toList());
+        assertEquals(List.of("Day 2", "Day 3"),
+                manager.getPrioritizedTasks(start.plusDays(2), null, 2).stream().map(Task::getTitle).toList());
+        assertEquals(3, manager.getPrioritizedTasks(null, start.plusDays(2).plusMinutes(1)).size());
+        assertTrue(manager.getPrioritizedTasks(start.plusDays(20), null).isEmpty());
+    }
+
     @Test
     protected void shouldReturnPrioritizedTasks() {
         LocalDateTime now = LocalDateTime.now();
@@ -124,6 +623,47 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 "Статус эпика должен быть IN_PROGRESS, так как все подзадачи имеют статус IN_PROGRESS");
     }
 
+    @Test
+    protected void shouldRecalculateEpicAfterSubtaskChanges() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.createEpic(epic);
+        Epic other = new Epic("Other", "Description");
+        manager.createEpic(other);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+        Subtask first = new Subtask("First", "Description", epic.getId());
+        first.setStartTime(start);
+        first.setDuration(Duration.ofHours(1));
+        first.setStatus(Status.DONE);
+        Subtask second = new Subtask("Second", "Description", epic.getId());
+        second.setStartTime(start.plusHours(2));
+        second.setDuration(Duration.ofHours(1));
+        second.setStatus(Status.DONE);
+        manager.createSubtask(first);
+        manager.createSubtask(second);
+
+        // Та же подзадача, изменённая на месте: прежний вклад должен вычесться
+        first.setStartTime(start.plusHours(5));
+        first.setStatus(Status.NEW);
+        manager.updateSubtask(first);
+        assertEquals(start.plusHours(2), epic.getStartTime());
+        assertEquals(start.plusHours(6), epic.getEndTime());
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+
+        manager.deleteSubtask(first.getId());
+        assertEquals(start.plusHours(3), epic.getEndTime());
+        assertEquals(Duration.ofHours(1), epic.getDuration());
+        assertEquals(Status.DONE, epic.getStatus());
+
+        Subtask moved = new Subtask(second);
+        moved.setEpicId(other.getId());
+        manager.updateSubtask(moved);
+        assertNull(epic.getStartTime());
+        assertEquals(Status.NEW, epic.getStatus());
+        assertEquals(start.plusHours(2), other.getStartTime());
+        assertEquals(Status.DONE, other.getStatus());
+    }
+
     @Test
     protected void shouldHandleTasksWithoutTime() {
         Task task = new Task("Task", "Description");
@@ -0,0 +1,80 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Status;
+import task.Task;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskSlotFileTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private List<Task> reopen(File file) {
+        try (TaskSlotFile slotFile = TaskSlotFile.open(file, DurabilityPolicy.WRITE_THROUGH)) {
+            List<Task> rows = slotFile.takeLoadedRows();
+            rows.sort(Comparator.comparingInt(Task::getId));
+            return rows;
+        }
+    }
+
+    @Test
+    public void shouldOverwriteRecordInPlace() {
+        File file = tempDir.resolve("storage.slots").toFile();
+        List<Task> rows = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            rows.add(new Task(id, "Task " + id, "Description", Status.NEW));
+        }
+        try (TaskSlotFile slotFile = TaskSlotFile.create(file, rows, DurabilityPolicy.WRITE_THROUGH)) {
+            long size = file.length();
+            slotFile.apply(List.of(new Task(50, "Task 50", "Updated", Status.DONE)), List.of());
+
+            assertEquals(size, file.length(), "Запись того же размера должна перезаписать свой слот");
+            assertEquals(0, slotFile.getFreeSlotCount());
+        }
+
+        List<Task> loaded = reopen(file);
+        assertEquals(100, loaded.size());
+        assertEquals("Updated", loaded.get(49).getDescription());
+        assertEquals(Status.DONE, loaded.get(49).getStatus());
+    }
+
+    @Test
+    public void shouldMoveGrownRecordAndReuseHoles() {
+        File file = tempDir.resolve("storage.slots").toFile();
+        List<Task> rows = List.of(
+                new Task(1, "Task 1", "Description", Status.NEW),
+                new Task(2, "Task 2", "Description", Status.NEW));
+        try (TaskSlotFile slotFile = TaskSlotFile.create(file, rows, DurabilityPolicy.SYNC)) {
+            slotFile.apply(List.of(new Task(1, "Task 1", "x".repeat(300), Status.NEW)), List.of());
+            assertEquals(1, slotFile.getFreeSlotCount(), "Прежний слот должен освободиться");
+            int slots = slotFile.getSlotCount();
+
+            slotFile.apply(List.of(new Task(3, "Task 3", "Description", Status.NEW)), List.of(2));
+            assertEquals(slots, slotFile.getSlotCount(), "Новая задача должна занять освободившийся слот");
+            assertEquals(1, slotFile.getFreeSlotCount());
+        }
+
+        List<Task> loaded = reopen(file);
+        assertEquals(List.of(1, 3), loaded.stream().map(Task::getId).toList());
+        assertEquals(300, loaded.get(0).getDescription().length());
+    }
+
+    @Test
+    public void shouldRejectNonSlottedFiles() throws Exception {
+        File file = tempDir.resolve("storage.csv").toFile();
+        Files.writeString(file.toPath(), TaskCsvCodec.HEADER + "\n\n");
+
+        assertFalse(TaskSlotFile.isSlotted(file));
+        assertThrows(IllegalArgumentException.class, () -> TaskSlotFile.open(file, DurabilityPolicy.WRITE_THROUGH));
+    }
+}
@@ -0,0 +1,166 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import task.Status;
+import task.Task;
+import task.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskTimeIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private static Task task(int id, int startMinute, Integer minutes) {
+        return new Task(id, "Task " + id, "Description", Status.NEW,
+                minutes == null ? null : Duration.ofMinutes(minutes), BASE.plusMinutes(startMinute));
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void shouldFindOverlapsWithHalfOpenIntervals() {
+        TaskTimeIndex index = new TaskTimeIndex();
+        index.add(task(1, 0, 60));
+        index.add(task(2, 60, 60));
+        index.add(task(3, 200, null));
+
+        assertEquals(List.of(1), ids(index.findOverlaps(BASE.plusMinutes(30), BASE.plusMinutes(60), 0)));
+        assertEquals(List.of(1, 2), ids(index.findOverlaps(BASE.plusMinutes(59), BASE.plusMinutes(61), 0)));
+        assertEquals(List.of(2), ids(index.findOverlaps(BASE.plusMinutes(59), BASE.plusMinutes(61), 1)));
+        assertTrue(index.findOverlaps(BASE.plusMinutes(120), BASE.plusMinutes(200), 0).isEmpty());
+        assertEquals(List.of(3), ids(index.findOverlaps(BASE.plusMinutes(190), BASE.plusMinutes(210), 0)));
+    }
+
+    @Test
+    void shouldKeepTasksWithEqualStartAndRemoveByIdAfterMutation() {
+        TaskTimeIndex index = new TaskTimeIndex();
+        Task first = task(1, 10, 5);
+        index.add(task(2, 10, 5));
+        index.add(first);
+
+        assertEquals(List.of(1, 2), ids(index.toList()));
+
+        first.setStartTime(BASE.plusDays(1));
+        assertTrue(index.remove(1));
+        assertFalse(index.contains(1));
+        assertEquals(List.of(2), ids(index.toList()));
+    }
+
+    @Test
+    void shouldMatchBruteForceAfterRandomChanges() {
+        Random random = new Random(42);
+        TaskTimeIndex index = new TaskTimeIndex();
+        List<Task> sorted = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            sorted.add(task(id, random.nextInt(5000), random.nextInt(4) == 0 ? null : random.nextInt(120)));
+        }
+        sorted.sort(InMemoryTaskManager.PRIORITY_ORDER);
+        index.rebuild(sorted);
+        List<Task> all = new ArrayList<>(sorted);
+
+        for (int step = 0; step < 2000; step++) {
+            int id = 1 + random.nextInt(300);
+            if (random.nextBoolean()) {
+                Task task = task(id, random.nextInt(5000), random.nextInt(120));
+                all.removeIf(existing -> existing.getId() == id);
+                all.add(task);
+                index.add(task);
+            } else {
+                all.removeIf(existing -> existing.getId() == id);
+                index.remove(id);
+            }
+
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(5000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(200));
+            int excludeId = random.nextInt(300);
+            List<Integer> expected = all.stream()
+                    .filter(task -> task.getId() != excludeId)
+                    .filter(task -> task.getStartTime().isBefore(end)
+                            && TaskTimeIndex.endOf(task).isAfter(start))
+                    .sorted(InMemoryTaskManager.PRIORITY_ORDER)
+                    .map(Task::getId)
+                    .toList();
+            assertEquals(expected, ids(index.findOverlaps(start, end, excludeId)));
+        }
+        all.sort(InMemoryTaskManager.PRIORITY_ORDER);
+        assertEquals(ids(all), ids(index.toList()));
+    }
+
+    @Test
+    void shouldReturnRangeByStartTimeWithLimit() {
+        Random random = new Random(7);
+        TaskTimeIndex index = new TaskTimeIndex();
+        List<Task> all = new ArrayList<>();
+        for (int id = 1; id <= 300; id++) {
+            Task task = task(id, random.nextInt(3000), random.nextInt(3) == 0 ? null : random.nextInt(90));
+            all.add(task);
+            index.add(task);
+        }
+        all.sort(InMemoryTaskManager.PRIORITY_ORDER);
+
+        for (int step = 0; step < 500; step++) {
+            LocalDateTime from = random.nextInt(10) == 0 ? null : BASE.plusMinutes(random.nextInt(3000));
+            LocalDateTime to = random.nextInt(10) == 0 ? null : BASE.plusMinutes(random.nextInt(3000));
+            int limit = 1 + random.nextInt(50);
+            List<Integer> expected = all.stream()
+                    .filter(task -> from == null || !task.getStartTime().isBefore(from))
+                    .filter(task -> to == null || task.getStartTime().isBefore(to))
+                    .limit(limit)
+                    .map(Task::getId)
+                    .toList();
+            assertEquals(expected, ids(index.range(from, to, limit)));
+        }
+        assertEquals(ids(all), ids(index.range(null, null, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void shouldFindFreeSlotsLikeLinearScan() {
+        Random random = new Random(3);
+        TaskTimeIndex index = new TaskTimeIndex();
+        List<Task> all = new ArrayList<>();
+        for (int id = 1; id <= 150; id++) {
+            Task task = task(id, random.nextInt(6000), random.nextInt(5) == 0 ? null : 10 + random.nextInt(60));
+            all.add(task);
+            index.add(task);
+        }
+        all.sort(InMemoryTaskManager.PRIORITY_ORDER);
+
+        for (int step = 0; step < 500; step++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(6000));
+            LocalDateTime to = from.plusMinutes(1 + random.nextInt(1500));
+            Duration duration = Duration.ofMinutes(1 + random.nextInt(90));
+            int limit = 1 + random.nextInt(8);
+
+            List<TimeSlot> expected = new ArrayList<>();
+            LocalDateTime cursor = from;
+            for (Task task : all) {
+                if (!task.getStartTime().isBefore(to) || expected.size() == limit) {
+                    break;
+                }
+                if (!task.getStartTime().isBefore(from) && !cursor.plus(duration).isAfter(task.getStartTime())) {
+                    expected.add(new TimeSlot(cursor, task.getStartTime()));
+                }
+                if (TaskTimeIndex.endOf(task).isAfter(cursor)) {
+                    cursor = TaskTimeIndex.endOf(task);
+                }
+            }
+            if (expected.size() < limit && !cursor.plus(duration).isAfter(to)) {
+                expected.add(new TimeSlot(cursor, to));
+            }
+
+            List<TimeSlot> slots = index.freeSlots(duration, from, to, limit);
+            assertEquals(expected, slots);
+            for (TimeSlot slot : slots) {
+                assertTrue(index.findOverlaps(slot.getStart(), slot.getStart().plus(duration), 0).isEmpty());
+            }
+        }
+    }
+}
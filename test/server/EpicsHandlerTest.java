@@ -54,4 +54,42 @@ class EpicsHandlerTest extends BaseHttpTest {
         assertEquals(200, response.statusCode());
         assertTrue(response.body().contains("DONE"));
     }
+
+    @Test
+    protected void testGetCriticalPath() throws Exception {
+        Epic epic = new Epic("Test Epic", "Description");
+        taskManager.createEpic(epic);
+        Subtask first = new Subtask("First", "Description", epic.getId());
+        first.setDuration(java.time.Duration.ofMinutes(30));
+        Subtask second = new Subtask("Second", "Description", epic.getId());
+        second.setDuration(java.time.Duration.ofMinutes(45));
+        taskManager.createSubtask(first);
+        taskManager.createSubtask(second);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> added = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/subtasks/" + second.getId() + "/dependencies/" + first.getId()))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, added.statusCode());
+
+        HttpResponse<String> cycle = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/subtasks/" + first.getId() + "/dependencies/" + second.getId()))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, cycle.statusCode());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/epics/" + epic.getId() + "/critical-path"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"length\": 75"), response.body());
+
+        HttpResponse<String> missing = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/epics/9999/critical-path"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, missing.statusCode());
+    }
 }
@@ -43,4 +43,160 @@ public class HistoryAndPrioritizedTest extends BaseHttpTest {
 
         assertEquals(200, response.statusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    protected void testSearch() throws Exception {
+        taskManager.createTask(new Task("Купить продукты", "Description"));
+        taskManager.createTask(new Task("Test Task", "Description"));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/search?q=%D0%BF%D1%80%D0%BE%D0%B4%D1%83%D0%BA%D1%82%D1%8B"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("Купить продукты"));
+        assertFalse(response.body().contains("Test Task"));
+
+        HttpResponse<String> missing = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/search"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, missing.statusCode());
+
+        HttpResponse<String> invalidLimit = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/search?q=test&limit=0"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalidLimit.statusCode());
+    }
+
+    @Test
+    protected void testGetPrioritizedTasksInRange() throws Exception {
+        Task early = new Task("Early Task", "Description");
+        early.setStartTime(java.time.LocalDateTime.of(2030, 1, 1, 9, 0));
+        early.setDuration(java.time.Duration.ofHours(1));
+        Task late = new Task("Late Task", "Description");
+        late.setStartTime(java.time.LocalDateTime.of(2030, 1, 8, 9, 0));
+        late.setDuration(java.time.Duration.ofHours(1));
+        taskManager.createTask(early);
+        taskManager.createTask(late);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized?from=2030-01-01T00:00&to=2030-01-07T00:00&limit=10"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("Early Task"));
+        assertFalse(response.body().contains("Late Task"));
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized?from=yesterday"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+
+        HttpResponse<String> invalidLimit = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized?limit=-1"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalidLimit.statusCode());
+    }
+
+    @Test
+    protected void testRecurringTaskInRange() throws Exception {
+        String body = "{\"title\": \"Standup\", \"description\": \"Description\", \"status\": \"NEW\", "
+                + "\"startTime\": \"2030-01-01T09:00:00\", \"duration\": 15, "
+                + "\"recurrence\": \"FREQ=DAILY;INTERVAL=1;COUNT=3\"}";
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+        assertEquals("FREQ=DAILY;INTERVAL=1;COUNT=3",
+                gson.fromJson(created.body(), Task.class).getRecurrence().toString());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized?from=2030-01-02T00:00&to=2030-01-10T00:00"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("2030-01-02T09:00"));
+        assertTrue(response.body().contains("2030-01-03T09:00"));
+        assertFalse(response.body().contains("2030-01-04T09:00"));
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(body.replace("DAILY", "HOURLY")))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    @Test
+    protected void testGetSlots() throws Exception {
+        Task busy = new Task("Busy Task", "Description");
+        busy.setStartTime(java.time.LocalDateTime.of(2030, 1, 1, 10, 0));
+        busy.setDuration(java.time.Duration.ofHours(1));
+        taskManager.createTask(busy);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/slots?duration=60&from=2030-01-01T09:30&to=2030-01-01T12:00"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertFalse(response.body().contains("2030-01-01T09:30"), "До задачи остаётся только 30 минут");
+        assertTrue(response.body().contains("2030-01-01T11:00"));
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/slots?duration=60&from=2030-01-01T12:00&to=2030-01-01T09:00"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    @Test
+    protected void testPostSchedule() throws Exception {
+        Task busy = new Task("Busy Task", "Description");
+        busy.setStartTime(java.time.LocalDateTime.of(2030, 1, 1, 10, 0));
+        busy.setDuration(java.time.Duration.ofHours(1));
+        Task open = new Task("Open Task", "Description");
+        open.setDuration(java.time.Duration.ofMinutes(90));
+        taskManager.createTask(busy);
+        taskManager.createTask(open);
+        String body = "{\"from\": \"2030-01-01T09:00:00\", \"to\": \"2030-01-01T13:00:00\", "
+                + "\"deadlines\": {\"" + open.getId() + "\": \"2030-01-01T12:00:00\"}}";
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> dryRun = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/schedule?dryRun=true"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, dryRun.statusCode());
+        assertTrue(dryRun.body().contains("2030-01-01T11:00"));
+        assertTrue(dryRun.body().contains("\"late\": true"));
+        assertNull(taskManager.getTaskById(open.getId()).getStartTime(), "Пробный запуск не меняет задачи");
+
+        HttpResponse<String> applied = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/schedule"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, applied.statusCode());
+        assertEquals(java.time.LocalDateTime.of(2030, 1, 1, 11, 0),
+                taskManager.getTaskById(open.getId()).getStartTime());
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/schedule"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"from\": \"2030-01-01T13:00:00\", \"to\": \"2030-01-01T09:00:00\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+}
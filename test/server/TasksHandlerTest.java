@@ -32,6 +32,101 @@ public class TasksHandlerTest extends BaseHttpTest {
         assertTrue(response.body().contains("Test Task"));
     }
 
+    @Test
+    protected void testGetTasksByStatus() throws Exception {
+        Task open = new Task("Open Task", "Description");
+        Task done = new Task("Done Task", "Description");
+        done.setStatus(Status.DONE);
+        taskManager.createTask(open);
+        taskManager.createTask(done);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?status=done"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("Done Task"));
+        assertFalse(response.body().contains("Open Task"));
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?status=LATER"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    @Test
+    protected void testGetTasksPage() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            taskManager.createTask(new Task("Paged Task " + i, "Description"));
+        }
+        int firstId = taskManager.getAllTasks().stream().mapToInt(Task::getId).min().orElseThrow();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?limit=2"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, first.statusCode());
+        assertTrue(first.body().contains("Paged Task 1"));
+        assertTrue(first.body().contains("Paged Task 2"));
+        assertFalse(first.body().contains("Paged Task 3"));
+        String cursor = first.headers().firstValue("X-Next-After").orElseThrow();
+        assertEquals(String.valueOf(firstId + 1), cursor);
+
+        HttpResponse<String> second = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?limit=2&after=" + cursor))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, second.statusCode());
+        assertTrue(second.body().contains("Paged Task 3"));
+        assertTrue(second.headers().firstValue("X-Next-After").isEmpty());
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?limit=0"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    @Test
+    protected void testPostBatch() throws Exception {
+        Task existing = new Task("Existing Task", "Description");
+        taskManager.createTask(existing);
+        String body = "{\"createTasks\": [{\"title\": \"Batch A\", \"description\": \"d\", \"status\": \"NEW\"},"
+                + " {\"title\": \"Batch B\", \"description\": \"d\", \"status\": \"NEW\"}],"
+                + " \"updateTasks\": [{\"id\": " + existing.getId()
+                + ", \"title\": \"Renamed Task\", \"description\": \"d\", \"status\": \"DONE\"}]}";
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, response.statusCode());
+        assertTrue(response.body().contains("Batch A"));
+        assertEquals(3, taskManager.getAllTasks().size());
+        assertEquals("Renamed Task", taskManager.getTaskById(existing.getId()).getTitle());
+
+        HttpResponse<String> missing = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"updateTasks\": [{\"id\": 999, \"title\": \"x\"}]}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, missing.statusCode());
+
+        HttpResponse<String> orphan = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"createTasks\": [{\"title\": \"Lost Task\"}],"
+                        + " \"createSubtasks\": [{\"title\": \"Orphan\", \"epicId\": 999}]}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, orphan.statusCode());
+        assertEquals(3, taskManager.getAllTasks().size(), "Пакет выполняется целиком или никак");
+    }
+
     @Test
     protected void testGetTaskById() throws Exception {
         Task task = new Task("Test Task", "Description");
@@ -136,6 +231,8 @@ public class TasksHandlerTest extends BaseHttpTest {
 
         assertEquals(406, response.statusCode());
         assertTrue(response.body().contains("пересекается"));
+        assertTrue(response.body().contains("\"conflicts\""));
+        assertTrue(response.body().contains("Task 1"));
     }
 
     @Test
@@ -0,0 +1,42 @@
+package task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurrenceTest {
+    @Test
+    public void shouldParseAndPrintRule() {
+        Recurrence recurrence = Recurrence.parse("COUNT=4;FREQ=WEEKLY;INTERVAL=2");
+
+        assertEquals(Recurrence.Frequency.WEEKLY, recurrence.getFrequency());
+        assertEquals(Duration.ofDays(14), recurrence.getPeriod());
+        assertEquals(4, recurrence.getCount());
+        assertTrue(recurrence.isBounded());
+        assertEquals("FREQ=WEEKLY;INTERVAL=2;COUNT=4", recurrence.toString());
+        assertEquals(recurrence, Recurrence.parse(recurrence.toString()));
+
+        Recurrence daily = Recurrence.parse("FREQ=DAILY");
+        assertEquals(1, daily.getInterval());
+        assertFalse(daily.isBounded());
+        assertEquals(LocalDateTime.of(2030, 1, 1, 0, 0),
+                Recurrence.parse("FREQ=DAILY;UNTIL=2030-01-01T00:00").getUntil());
+    }
+
+    @Test
+    public void shouldRejectInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("FREQ=MONTHLY"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("INTERVAL=2"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("FREQ=DAILY;INTERVAL=0"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("FREQ=DAILY;COUNT=2;UNTIL=2030-01-01T00:00"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("FREQ=DAILY;BYDAY=MO"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("FREQ=DAILY;COUNT=10000000"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("FREQ=DAILY;INTERVAL=100000"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Recurrence.parse("FREQ=DAILY;UNTIL=+100000-01-01T00:00"));
+        assertDoesNotThrow(() -> Recurrence.parse("FREQ=WEEKLY;COUNT=" + Recurrence.MAX_COUNT));
+    }
+}
@@ -0,0 +1,63 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectMapTest {
+
+    @Test
+    public void shouldMatchHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+
+        for (int step = 0; step < 50_000; step++) {
+            int key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, "v" + step), map.put(key, "v" + step));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.keySet(), map.keySet());
+    }
+
+    @Test
+    public void shouldRemoveValuesByPredicate() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int key = 0; key < 1_000; key++) {
+            map.put(key, Integer.toString(key));
+        }
+
+        assertTrue(map.values().removeIf(value -> Integer.parseInt(value) % 3 == 0));
+
+        assertEquals(666, map.size());
+        for (int key = 0; key < 1_000; key++) {
+            assertEquals(key % 3 != 0, map.containsKey(key), "ключ " + key);
+        }
+    }
+
+    @Test
+    public void shouldRejectNullValues() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+        assertNull(map.get("1"));
+        map.put(0, "zero");
+        assertEquals(List.of(0), List.copyOf(map.keySet()));
+    }
+}
@@ -0,0 +1,69 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntOrderedSetTest {
+
+    @Test
+    public void shouldKeepInsertionOrderAfterRemovals() {
+        IntOrderedSet set = new IntOrderedSet();
+        for (int value = 1; value <= 6; value++) {
+            set.add(value);
+        }
+
+        set.remove(2);
+        set.remove(6);
+        set.add(2);
+
+        assertEquals(List.of(1, 3, 4, 5, 2), set.asList());
+        assertEquals(3, set.asList().get(1));
+        assertFalse(set.add(3), "Повторное значение не добавляется");
+    }
+
+    @Test
+    public void shouldMatchLinkedHashSetUnderRandomOperations() {
+        Random random = new Random(11);
+        IntOrderedSet set = new IntOrderedSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int value = random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.contains(value), set.contains(value));
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(new ArrayList<>(expected), set.asList());
+        assertEquals(new IntOrderedSet(set), set);
+    }
+
+    @Test
+    public void shouldCopyIndependently() {
+        IntOrderedSet original = new IntOrderedSet();
+        for (int value = 1; value <= 40; value++) {
+            original.add(value);
+        }
+        original.remove(7);
+
+        IntOrderedSet copy = new IntOrderedSet(original);
+        copy.remove(1);
+        copy.add(7);
+
+        assertTrue(original.contains(1));
+        assertFalse(original.contains(7));
+        assertEquals(39, original.size());
+        assertEquals(7, copy.asList().get(copy.size() - 1));
+        assertFalse(copy.contains(1));
+    }
+}
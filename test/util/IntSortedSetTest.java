@@ -0,0 +1,94 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntSortedSetTest {
+
+    @Test
+    public void shouldKeepValuesSortedAndFindNextPosition() {
+        IntSortedSet set = new IntSortedSet();
+        set.add(5);
+        set.add(1);
+        set.add(9);
+        set.add(3);
+
+        assertArrayEquals(new int[]{1, 3, 5, 9}, set.toArray());
+        assertFalse(set.add(3), "Повторное значение не добавляется");
+        assertEquals(2, set.indexAfter(3));
+        assertEquals(2, set.indexAfter(4));
+        assertEquals(0, set.indexAfter(0));
+        assertEquals(4, set.indexAfter(9));
+        assertTrue(set.remove(3));
+        assertEquals(5, set.get(1));
+    }
+
+    @Test
+    public void shouldMatchTreeSetUnderRandomOperations() {
+        Random random = new Random(5);
+        IntSortedSet set = new IntSortedSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int value = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            int probe = random.nextInt(520) - 10;
+            assertEquals(expected.headSet(probe, true).size(), set.indexAfter(probe));
+            assertEquals(expected.contains(probe), set.contains(probe));
+            if (!expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.stream().skip(index).findFirst().orElseThrow(), set.get(index));
+            }
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+        assertEquals(expected.size(), set.size());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, Arrays.stream(set.toArray()).count());
+    }
+
+    @Test
+    public void shouldRemoveAndRestoreLargeRangeInAnyOrder() {
+        int count = 200_000;
+        IntSortedSet set = new IntSortedSet();
+        for (int id = 1; id <= count; id++) {
+            set.add(id);
+        }
+        // Удаление всей доски и откат с повторной вставкой в произвольном порядке
+        for (int id = 1; id <= count; id++) {
+            assertTrue(set.remove(id));
+        }
+        assertTrue(set.isEmpty());
+        int[] ids = new int[count];
+        Random random = new Random(7);
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        for (int id : ids) {
+            assertTrue(set.add(id));
+        }
+
+        assertEquals(count, set.size());
+        assertEquals(1, set.get(0));
+        assertEquals(count, set.get(count - 1));
+        assertEquals(count / 2, set.indexAfter(count / 2));
+        assertArrayEquals(IntStream.rangeClosed(1, count).toArray(), set.toArray());
+    }
+}
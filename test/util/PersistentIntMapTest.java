@@ -0,0 +1,50 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentIntMapTest {
+
+    @Test
+    public void shouldMatchTreeMapUnderRandomOperations() {
+        Random random = new Random(11);
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(1_000) - 500;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + step);
+                map = map.put(key, "v" + step);
+            }
+            int probe = random.nextInt(1_040) - 520;
+            assertEquals(expected.get(probe), map.get(probe));
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        assertEquals(new ArrayList<>(expected.tailMap(100, false).values()).subList(0, 10), map.valuesAfter(100, 10));
+        assertEquals(new ArrayList<>(expected.tailMap(-1_000, false).values()), map.valuesAfter(-1_000, 5_000));
+        assertTrue(map.valuesAfter(600, 10).isEmpty());
+    }
+
+    @Test
+    public void shouldKeepPreviousVersionsUnchanged() {
+        PersistentIntMap<String> first = PersistentIntMap.<String>empty().put(1, "a").put(2, "b").put(3, "c");
+
+        PersistentIntMap<String> second = first.put(2, "B").remove(3).put(4, "d");
+
+        assertEquals(List.of("a", "b", "c"), new ArrayList<>(first.values()));
+        assertEquals(List.of("a", "B", "d"), new ArrayList<>(second.values()));
+        assertSame(first, first.remove(10), "Удаление отсутствующего ключа не создаёт версию");
+        assertTrue(PersistentIntMap.empty().isEmpty());
+    }
+}